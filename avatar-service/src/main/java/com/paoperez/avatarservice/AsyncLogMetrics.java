@@ -0,0 +1,54 @@
+package com.paoperez.avatarservice;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Iterator;
+
+/**
+ * Queue depth, capacity and dropped events of the {@link BoundedAsyncAppender}s on the root logger,
+ * tagged with the appender name.
+ */
+final class AsyncLogMetrics implements MeterBinder {
+  private final LoggerContext context;
+
+  AsyncLogMetrics(final LoggerContext context) {
+    this.context = context;
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    Iterator<Appender<ILoggingEvent>> appenders =
+        context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+    while (appenders.hasNext()) {
+      Appender<ILoggingEvent> appender = appenders.next();
+      if (appender instanceof BoundedAsyncAppender) {
+        bindTo(registry, (BoundedAsyncAppender) appender);
+      }
+    }
+  }
+
+  private static void bindTo(final MeterRegistry registry, final BoundedAsyncAppender appender) {
+    Gauge.builder("logging.queue.depth", appender, BoundedAsyncAppender::getNumberOfElementsInQueue)
+        .tag("appender", appender.getName())
+        .description("Events waiting to be written")
+        .baseUnit("events")
+        .register(registry);
+    Gauge.builder("logging.queue.capacity", appender, BoundedAsyncAppender::getQueueSize)
+        .tag("appender", appender.getName())
+        .description("Events the queue holds")
+        .baseUnit("events")
+        .register(registry);
+    FunctionCounter
+        .builder("logging.events.dropped", appender, BoundedAsyncAppender::getDroppedCount)
+        .tag("appender", appender.getName())
+        .description("Events dropped because the queue was full")
+        .baseUnit("events")
+        .register(registry);
+  }
+}
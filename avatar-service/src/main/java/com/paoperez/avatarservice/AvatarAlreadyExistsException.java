@@ -4,6 +4,6 @@ class AvatarAlreadyExistsException extends Exception {
   private static final long serialVersionUID = 1L;
 
   AvatarAlreadyExistsException(final String userName) {
-    super(String.format("Avatar with userName %s already exists.", userName));
+    super("Avatar with userName " + userName + " already exists.", null, false, false);
   }
 }
@@ -1,11 +1,20 @@
 package com.paoperez.avatarservice;
 
+import ch.qos.logback.classic.LoggerContext;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.discovery.DiscoveryClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.config.Configuration.AccessLevel;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
 class AvatarConfig {
   @Bean
   AvatarService avatarService(final AvatarRepository avatarRepository) {
@@ -25,4 +34,37 @@ class AvatarConfig {
   AvatarMapper avatarMapper(final ModelMapper modelMapper) {
     return new AvatarMapperImpl(modelMapper);
   }
+
+  @Bean
+  DeregisterOnShutdown deregisterOnShutdown(
+      final ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+      final ObjectProvider<DiscoveryClient> discoveryClient,
+      @Value("${discovery.shutdown-delay:10000}") final long delayMillis) {
+    return new DeregisterOnShutdown(applicationInfoManager, discoveryClient, delayMillis);
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql-cache.purge")
+  GraphQLCachePurge graphQLCachePurge(
+      final ObjectProvider<org.springframework.cloud.client.discovery.DiscoveryClient> clients,
+      @Value("${graphql-cache.service-id:graphql-service}") final String serviceId) {
+    return new GraphQLCachePurge(clients, serviceId);
+  }
+
+  @Bean
+  MongoClientSettingsBuilderCustomizer mongoMetrics(final MeterRegistry meterRegistry) {
+    return settings -> settings.addCommandListener(new MongoCommandMetrics(meterRegistry))
+        .applyToConnectionPoolSettings(pool ->
+            pool.addConnectionPoolListener(new MongoPoolMetrics(meterRegistry)));
+  }
+
+  @Bean
+  static RepositoryMethods repositoryMethods() {
+    return new RepositoryMethods();
+  }
+
+  @Bean
+  AsyncLogMetrics asyncLogMetrics() {
+    return new AsyncLogMetrics((LoggerContext) LoggerFactory.getILoggerFactory());
+  }
 }
@@ -1,10 +1,10 @@
 package com.paoperez.avatarservice;
 
-import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,13 +17,20 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @ControllerAdvice
 final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
+  private final ExpectedErrorLog expectedErrors;
+
+  AvatarExceptionHandler(
+      @Value("${errors.expected.lines-per-second:1}") final int expectedErrorLinesPerSecond) {
+    this.expectedErrors = new ExpectedErrorLog(expectedErrorLinesPerSecond);
+  }
 
   @ExceptionHandler(AvatarNotFoundException.class)
   final ResponseEntity<AvatarErrorResponse> handleNotFoundException(
       final AvatarNotFoundException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     AvatarErrorResponse responseBody =
         AvatarErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.NOT_FOUND).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.NOT_FOUND).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -31,9 +38,10 @@ final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(AvatarAlreadyExistsException.class)
   final ResponseEntity<AvatarErrorResponse> handleAlreadyExistsException(
       final AvatarAlreadyExistsException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.CONFLICT, ex.getMessage(), request);
     AvatarErrorResponse responseBody =
         AvatarErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.CONFLICT).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.CONFLICT).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -41,9 +49,10 @@ final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(AvatarMismatchException.class)
   final ResponseEntity<AvatarErrorResponse> handleMismatchException(
       final AvatarMismatchException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     AvatarErrorResponse responseBody =
         AvatarErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -53,9 +62,9 @@ final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
       final ConstraintViolationException ex, final WebRequest request) {
     Collection<String> message = ex.getConstraintViolations().stream()
         .map(ConstraintViolation::getMessage).collect(Collectors.toList());
-
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     AvatarErrorResponse responseBody = AvatarErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -66,9 +75,9 @@ final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
       final WebRequest request) {
     Collection<String> message = ex.getBindingResult().getFieldErrors().stream()
         .map(FieldError::getDefaultMessage).collect(Collectors.toList());
-
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     AvatarErrorResponse responseBody = AvatarErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -78,7 +87,7 @@ final class AvatarExceptionHandler extends ResponseEntityExceptionHandler {
       final WebRequest request) {
     AvatarErrorResponse responseBody =
         AvatarErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
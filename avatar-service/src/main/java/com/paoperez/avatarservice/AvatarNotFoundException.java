@@ -4,6 +4,7 @@ class AvatarNotFoundException extends Exception {
   private static final long serialVersionUID = 1L;
 
   AvatarNotFoundException(final String id) {
-    super(String.format("Avatar with id %s not found.", id));
+    // Expected on every request for a stale id, so without the cost of a stack trace
+    super("Avatar with id " + id + " not found.", null, false, false);
   }
 }
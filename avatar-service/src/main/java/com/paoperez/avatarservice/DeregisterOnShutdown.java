@@ -0,0 +1,48 @@
+package com.paoperez.avatarservice;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.DiscoveryClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+
+/**
+ * Marks the instance as down in the registry as soon as shutdown starts, then keeps serving for a
+ * while so that clients can drop it from their server lists before the web server stops.
+ */
+final class DeregisterOnShutdown implements ApplicationListener<ContextClosedEvent> {
+  private static final Logger logger = LoggerFactory.getLogger(DeregisterOnShutdown.class);
+
+  private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+  private final ObjectProvider<DiscoveryClient> discoveryClient;
+  private final long delayMillis;
+
+  DeregisterOnShutdown(final ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+      final ObjectProvider<DiscoveryClient> discoveryClient, final long delayMillis) {
+    this.applicationInfoManager = applicationInfoManager;
+    this.discoveryClient = discoveryClient;
+    this.delayMillis = delayMillis;
+  }
+
+  @Override
+  public void onApplicationEvent(final ContextClosedEvent event) {
+    ApplicationInfoManager infoManager = applicationInfoManager.getIfAvailable();
+    DiscoveryClient client = discoveryClient.getIfAvailable();
+    // Nobody routes to an instance that never managed to register.
+    if (infoManager == null || client == null
+        || client.getLastSuccessfulHeartbeatTimePeriod() < 0) {
+      return;
+    }
+
+    logger.info("Marking instance as down, shutting down in {}ms", delayMillis);
+    infoManager.setInstanceStatus(InstanceStatus.DOWN);
+    try {
+      Thread.sleep(delayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
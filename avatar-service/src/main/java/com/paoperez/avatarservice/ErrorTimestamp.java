@@ -0,0 +1,35 @@
+package com.paoperez.avatarservice;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The current time to the second as ISO-8601 text for error responses, formatted once per second
+ * instead of once per response. Same text as a serialized LocalDateTime, without the fraction.
+ */
+final class ErrorTimestamp {
+  private static volatile Cached cached = new Cached(Long.MIN_VALUE, "");
+
+  private ErrorTimestamp() {}
+
+  static String now() {
+    long second = System.currentTimeMillis() / 1000;
+    Cached current = cached;
+    if (current.second != second) {
+      current = new Cached(second,
+          DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now().withNano(0)));
+      cached = current;
+    }
+    return current.timestamp;
+  }
+
+  private static final class Cached {
+    private final long second;
+    private final String timestamp;
+
+    Cached(final long second, final String timestamp) {
+      this.second = second;
+      this.timestamp = timestamp;
+    }
+  }
+}
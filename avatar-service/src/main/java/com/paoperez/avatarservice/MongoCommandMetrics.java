@@ -0,0 +1,73 @@
+package com.paoperez.avatarservice;
+
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Times every command the driver sends as {@code mongodb.driver.commands}, tagged by command,
+ * collection, the repository method it was sent from (see {@link RepositoryMethods}) and whether
+ * it succeeded. The tags are taken when a command starts, on the thread that sends it.
+ */
+final class MongoCommandMetrics implements CommandListener {
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<Integer, Tags> started = new ConcurrentHashMap<>();
+
+  /**
+   * @param meterRegistry - The registry of the command times.
+   */
+  MongoCommandMetrics(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void commandStarted(final CommandStartedEvent event) {
+    started.put(event.getRequestId(), Tags.of("command", event.getCommandName(), "collection",
+        collection(event.getCommandName(), event.getCommand()), "method",
+        RepositoryMethods.current()));
+  }
+
+  @Override
+  public void commandSucceeded(final CommandSucceededEvent event) {
+    record(event, "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(final CommandFailedEvent event) {
+    record(event, "failed", event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  private void record(final CommandEvent event, final String status, final long nanos) {
+    Tags tags = started.remove(event.getRequestId());
+    if (tags == null) {
+      tags = Tags.of("command", event.getCommandName(), "collection", "none", "method",
+          RepositoryMethods.NONE);
+    }
+    Timer.builder("mongodb.driver.commands").tags(tags).tag("status", status)
+        .description("Time of Mongo commands").register(meterRegistry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return String - The collection a command is for: the value of its name for most commands,
+   *         its collection field for getMore, or none for commands on the database.
+   */
+  static String collection(final String commandName, final BsonDocument command) {
+    BsonValue value = command.get(commandName);
+    if (value != null && value.isString()) {
+      return value.asString().getValue();
+    }
+    value = command.get("collection");
+    return value != null && value.isString() ? value.asString().getValue() : "none";
+  }
+}
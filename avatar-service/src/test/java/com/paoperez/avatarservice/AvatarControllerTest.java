@@ -25,7 +25,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-@WebMvcTest
+@WebMvcTest(AvatarController.class)
 class AvatarControllerTest {
         @Autowired
         private MockMvc mockMvc;
@@ -0,0 +1,39 @@
+package com.paoperez.categoryservice;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands events to the appender it wraps through a bounded queue drained by a worker thread, so a
+ * slow log disk does not show up as request latency. Once the queue is nearly full, events below
+ * the block level are dropped and counted, while events at or above it wait for room.
+ */
+public final class BoundedAsyncAppender extends AsyncAppender {
+  private final AtomicLong dropped = new AtomicLong();
+  private Level blockLevel = Level.WARN;
+
+  /**
+   * @param blockLevel - The lowest level that waits for room in a full queue rather than being
+   *        dropped: TRACE never drops, OFF never blocks.
+   */
+  public void setBlockLevel(final String blockLevel) {
+    this.blockLevel = Level.toLevel(blockLevel, Level.WARN);
+  }
+
+  long getDroppedCount() {
+    return dropped.get();
+  }
+
+  // Only called once the queue is past its discarding threshold
+  @Override
+  protected boolean isDiscardable(final ILoggingEvent event) {
+    if (event.getLevel().isGreaterOrEqual(blockLevel)) {
+      return false;
+    }
+
+    dropped.incrementAndGet();
+    return true;
+  }
+}
@@ -4,6 +4,6 @@ class CategoryAlreadyExistsException extends Exception {
   private static final long serialVersionUID = 1L;
 
   CategoryAlreadyExistsException(final String name) {
-    super(String.format("Category with name %s already exists.", name));
+    super("Category with name " + name + " already exists.", null, false, false);
   }
 }
@@ -1,6 +1,5 @@
 package com.paoperez.categoryservice;
 
-import java.time.LocalDateTime;
 import lombok.Builder;
 import lombok.Value;
 import org.springframework.http.HttpStatus;
@@ -9,6 +8,6 @@ import org.springframework.http.HttpStatus;
 @Builder
 class CategoryErrorResponse {
   private String message;
-  private LocalDateTime timestamp;
+  private String timestamp;
   private HttpStatus status;
 }
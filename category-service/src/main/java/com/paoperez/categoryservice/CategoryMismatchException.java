@@ -4,7 +4,7 @@ class CategoryMismatchException extends Exception {
     private static final long serialVersionUID = 1L;
 
     CategoryMismatchException(String id, String categoryId) {
-        super(String.format("Category with id %s does not match category argument %s.", id,
-                categoryId));
+        super("Category with id " + id + " does not match category argument " + categoryId + ".",
+            null, false, false);
     }
 }
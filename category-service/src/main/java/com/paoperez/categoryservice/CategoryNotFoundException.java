@@ -4,6 +4,7 @@ class CategoryNotFoundException extends Exception {
   private static final long serialVersionUID = 1L;
 
   CategoryNotFoundException(final String id) {
-    super(String.format("Category with id %s not found.", id));
+    // Expected on every request for a stale id, so without the cost of a stack trace
+    super("Category with id " + id + " not found.", null, false, false);
   }
 }
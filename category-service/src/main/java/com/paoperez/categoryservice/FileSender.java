@@ -0,0 +1,80 @@
+package com.paoperez.categoryservice;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import zipkin2.Call;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.Sender;
+
+/**
+ * Appends the spans an {@code AsyncReporter} hands over, a batch at a time from its own thread, to
+ * a file with one span per line in the JSON format of Zipkin, so that a trace can be read without
+ * a collector or later be posted to one.
+ */
+final class FileSender extends Sender {
+  private final Path path;
+  private final OutputStream output;
+  private final int messageMaxBytes;
+
+  /**
+   * @param path            - The file to append to, created with its directories if missing.
+   * @param messageMaxBytes - The most bytes of spans written at once.
+   */
+  FileSender(final Path path, final int messageMaxBytes) throws IOException {
+    Path directory = path.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    this.path = path;
+    this.output = new BufferedOutputStream(Files.newOutputStream(path,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    this.messageMaxBytes = messageMaxBytes;
+  }
+
+  @Override
+  public Encoding encoding() {
+    return Encoding.JSON;
+  }
+
+  @Override
+  public int messageMaxBytes() {
+    return messageMaxBytes;
+  }
+
+  @Override
+  public int messageSizeInBytes(final List<byte[]> encodedSpans) {
+    // A new line per span instead of a comma, and no brackets
+    return Encoding.JSON.listSizeInBytes(encodedSpans);
+  }
+
+  @Override
+  public synchronized Call<Void> sendSpans(final List<byte[]> encodedSpans) {
+    try {
+      for (byte[] span : encodedSpans) {
+        output.write(span);
+        output.write('\n');
+      }
+      output.flush();
+    } catch (IOException e) {
+      // Counted as dropped spans by the reporter
+      throw new UncheckedIOException(e);
+    }
+    return Call.create(null);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    output.close();
+  }
+
+  @Override
+  public String toString() {
+    return "FileSender{" + path + "}";
+  }
+}
@@ -0,0 +1,28 @@
+package com.paoperez.categoryservice;
+
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Overall health at {@code GET /health} on the public port, for health checks: the actuator only
+ * listens on the internal management port, which is not published.
+ */
+@RestController
+final class HealthController {
+  private final HealthEndpoint healthEndpoint;
+
+  HealthController(final HealthEndpoint healthEndpoint) {
+    this.healthEndpoint = healthEndpoint;
+  }
+
+  @GetMapping("/health")
+  ResponseEntity<Status> health() {
+    Status status = healthEndpoint.health().getStatus();
+    return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK
+        : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+  }
+}
@@ -0,0 +1,130 @@
+package com.paoperez.categoryservice;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The connection pool of every server the driver talks to, tagged by its address: its maximum
+ * size, the connections open and checked out, the threads waiting for one and how long they wait.
+ * Connections are checked out on the thread that asked for them, so the wait is timed on it.
+ */
+final class MongoPoolMetrics implements ConnectionPoolListener {
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<ServerId, Pool> pools = new ConcurrentHashMap<>();
+  private final ThreadLocal<Long> checkOutStarted = new ThreadLocal<>();
+
+  /**
+   * @param meterRegistry - The registry of the pool gauges and check-out waits.
+   */
+  MongoPoolMetrics(final MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void connectionPoolCreated(final ConnectionPoolCreatedEvent event) {
+    pools.computeIfAbsent(event.getServerId(),
+        serverId -> new Pool(serverId, event.getSettings().getMaxSize()));
+  }
+
+  @Override
+  public void connectionPoolClosed(final ConnectionPoolClosedEvent event) {
+    Pool pool = pools.remove(event.getServerId());
+    if (pool != null) {
+      pool.meters.forEach(meterRegistry::remove);
+    }
+  }
+
+  @Override
+  public void connectionCreated(final ConnectionCreatedEvent event) {
+    update(event.getConnectionId().getServerId(), pool -> pool.size.incrementAndGet());
+  }
+
+  @Override
+  public void connectionClosed(final ConnectionClosedEvent event) {
+    update(event.getConnectionId().getServerId(), pool -> pool.size.decrementAndGet());
+  }
+
+  @Override
+  public void connectionCheckOutStarted(final ConnectionCheckOutStartedEvent event) {
+    checkOutStarted.set(System.nanoTime());
+    update(event.getServerId(), pool -> pool.waiting.incrementAndGet());
+  }
+
+  @Override
+  public void connectionCheckedOut(final ConnectionCheckedOutEvent event) {
+    ServerId serverId = event.getConnectionId().getServerId();
+    checkedOut(serverId, "success");
+    update(serverId, pool -> pool.checkedOut.incrementAndGet());
+  }
+
+  @Override
+  public void connectionCheckOutFailed(final ConnectionCheckOutFailedEvent event) {
+    checkedOut(event.getServerId(), "failed");
+  }
+
+  @Override
+  public void connectionCheckedIn(final ConnectionCheckedInEvent event) {
+    update(event.getConnectionId().getServerId(), pool -> pool.checkedOut.decrementAndGet());
+  }
+
+  private void checkedOut(final ServerId serverId, final String result) {
+    Long started = checkOutStarted.get();
+    checkOutStarted.remove();
+    update(serverId, pool -> pool.waiting.decrementAndGet());
+    if (started != null) {
+      Timer.builder("mongodb.driver.pool.checkout").tags(tags(serverId)).tag("result", result)
+          .description("Time to check a connection out of the pool").register(meterRegistry)
+          .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void update(final ServerId serverId, final Consumer<Pool> update) {
+    Pool pool = pools.get(serverId);
+    if (pool != null) {
+      update.accept(pool);
+    }
+  }
+
+  private static Tags tags(final ServerId serverId) {
+    return Tags.of("server.address", serverId.getAddress().toString());
+  }
+
+  private final class Pool {
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger checkedOut = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final List<Meter> meters = new ArrayList<>();
+
+    Pool(final ServerId serverId, final int maxSize) {
+      Tags tags = tags(serverId);
+      meters.add(Gauge.builder("mongodb.driver.pool.max", () -> maxSize).tags(tags)
+          .description("Connections the pool may open").register(meterRegistry));
+      meters.add(Gauge.builder("mongodb.driver.pool.size", size, AtomicInteger::get).tags(tags)
+          .description("Connections open, in use or idle").register(meterRegistry));
+      meters.add(Gauge.builder("mongodb.driver.pool.checkedout", checkedOut, AtomicInteger::get)
+          .tags(tags).description("Connections in use").register(meterRegistry));
+      meters.add(Gauge.builder("mongodb.driver.pool.waitqueuesize", waiting, AtomicInteger::get)
+          .tags(tags).description("Threads waiting for a connection").register(meterRegistry));
+    }
+  }
+}
@@ -6,4 +6,5 @@ MONGO_PASSWORD=$(cat /mnt/disks/${DEPLOYMENT_ENV}-contentually/secrets/mongo/pas
 echo "Creating user ${MONGO_USERNAME} with readWrite access to database contentually..."
 mongo admin --eval "db.createUser({ user: '${MONGO_USERNAME}', pwd: '${MONGO_PASSWORD}', roles: [{ role: 'readWrite', db: 'contentually' }]});"
 
-mongo contentually --eval "db.Content.createIndex({ rank: 1 }, { unique: true });" --authenticationDatabase admin --username ${MONGO_USERNAME} --password ${MONGO_PASSWORD}
\ No newline at end of file
+mongo contentually --eval "db.Content.createIndex({ rank: 1 }, { unique: true });" --authenticationDatabase admin --username ${MONGO_USERNAME} --password ${MONGO_PASSWORD}
+mongo contentually --eval "db.Content.createIndex({ categoryId: 1, rank: 1 }); db.Content.createIndex({ avatarId: 1, rank: 1 });" --authenticationDatabase admin --username ${MONGO_USERNAME} --password ${MONGO_PASSWORD}
\ No newline at end of file
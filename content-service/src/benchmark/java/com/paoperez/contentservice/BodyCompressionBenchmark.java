@@ -0,0 +1,140 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+/**
+ * Read latency of contents with bodies stored as text and deflated, on embedded Mongo. The size
+ * of the collection before and after the storage engine's own compression, and the bytes of it in
+ * the cache after reading every content, are printed before the measurements. Run with ./mvnw
+ * -Pbenchmark -DskipTests verify -Dbenchmark.args=BodyCompressionBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BodyCompressionBenchmark {
+  private static final int DOCUMENTS = 10_000;
+  private static final List<String> LIST_FIELDS = Arrays.asList("title", "rank");
+
+  @Param({"0", "1024"})
+  private int threshold;
+
+  @Param({"1000", "10000"})
+  private int bodyLength;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private GenericApplicationContext context;
+  private ContentRepository repository;
+  private final List<String> ids = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+    context = new GenericApplicationContext();
+    context.addApplicationListener(new BodyCompression(threshold, new SimpleMeterRegistry()));
+    context.refresh();
+    MongoTemplate template = new MongoTemplate(client, "contentually");
+    template.setApplicationContext(context);
+    repository = new MongoRepositoryFactory(template).getRepository(ContentRepository.class,
+        RepositoryFragments.just(new ContentProjectionsImpl(template)));
+
+    List<Content> batch = new ArrayList<>(1000);
+    for (int i = 0; i < DOCUMENTS; i++) {
+      batch.add(content(i + 1));
+      if (batch.size() == 1000 || i == DOCUMENTS - 1) {
+        repository.saveAll(batch).forEach(content -> ids.add(content.getId()));
+        batch.clear();
+      }
+    }
+
+    repository.findAll();
+    Document stats = template.executeCommand(new Document("collStats", "Content"));
+    Document cache = stats.get("wiredTiger", Document.class).get("cache", Document.class);
+    System.out.printf("%nthreshold %d, body of %d: %d bytes, %d stored, %s in cache%n",
+        threshold, bodyLength, ((Number) stats.get("size")).longValue(),
+        ((Number) stats.get("storageSize")).longValue(),
+        cache.get("bytes currently in the cache"));
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    client.close();
+    mongod.stop();
+    context.close();
+  }
+
+  @Benchmark
+  public List<Content> findAll() {
+    return repository.findAll();
+  }
+
+  @Benchmark
+  public List<Content> findAllWithoutBody() {
+    return repository.findAll(LIST_FIELDS);
+  }
+
+  @Benchmark
+  public Optional<Content> findById() {
+    return repository.findById(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+  }
+
+  private Content content(final int rank) {
+    Content content = new Content();
+    content.setCreated(System.currentTimeMillis());
+    content.setUpdated(content.getCreated());
+    content.setTitle("Content " + rank);
+    StringBuilder body = new StringBuilder(bodyLength);
+    String[] words = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing"};
+    while (body.length() < bodyLength) {
+      body.append(words[ThreadLocalRandom.current().nextInt(words.length)]).append(' ');
+    }
+    content.setBody(body.toString());
+    content.setRank(rank);
+    content.setCategoryId("category-" + rank % 25);
+    content.setAvatarId("avatar-" + rank % 200);
+    content.setImageId("image-" + rank % 500);
+    return content;
+  }
+}
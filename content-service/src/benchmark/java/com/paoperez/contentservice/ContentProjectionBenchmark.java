@@ -0,0 +1,125 @@
+package com.paoperez.contentservice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+/**
+ * Latency of GET /contents without and with the fields a list of titles asks for, from the read
+ * to the serialised response, on embedded Mongo. The size of both responses is printed before the
+ * measurements. Run with ./mvnw -Pbenchmark -DskipTests verify
+ * -Dbenchmark.args=ContentProjectionBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentProjectionBenchmark {
+  private static final int BODY_LENGTH = 1000;
+  private static final List<String> LIST_FIELDS = ImmutableList.of("title", "rank");
+
+  @Param({"100", "1000", "10000"})
+  private int documents;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private ContentService service;
+  private ContentMapper mapper;
+  private ObjectMapper objectMapper;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+    MongoTemplate template = new MongoTemplate(client, "contentually");
+    service = new ContentServiceImpl(new MongoRepositoryFactory(template).getRepository(
+        ContentRepository.class, RepositoryFragments.just(new ContentProjectionsImpl(template))),
+        new RankIndex(template, 0, new SimpleMeterRegistry()));
+    mapper = new ContentMapperImpl(new ContentConfig().modelMapper());
+    objectMapper = new ObjectMapper();
+
+    List<Content> contents = new ArrayList<>(documents);
+    for (int i = 0; i < documents; i++) {
+      contents.add(content(i + 1));
+    }
+    template.insertAll(contents);
+
+    System.out.printf("%n%d contents: %d bytes, %d bytes with fields %s%n", documents,
+        allContents().length, listOfTitles().length, LIST_FIELDS);
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    client.close();
+    mongod.stop();
+  }
+
+  @Benchmark
+  public byte[] allContents() throws JsonProcessingException {
+    return respond(service.getAllContents());
+  }
+
+  @Benchmark
+  public byte[] listOfTitles() throws JsonProcessingException {
+    return respond(service.getAllContents(LIST_FIELDS));
+  }
+
+  private byte[] respond(final Collection<Content> contents) throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(
+        ContentsDTO.builder().data(mapper.contentsToContentDTOs(contents)).build());
+  }
+
+  private static Content content(final int rank) {
+    Content content = new Content();
+    content.setCreated(System.currentTimeMillis());
+    content.setUpdated(content.getCreated());
+    content.setTitle("Content " + rank);
+    StringBuilder body = new StringBuilder(BODY_LENGTH);
+    while (body.length() < BODY_LENGTH) {
+      body.append("lorem ipsum dolor sit amet ");
+    }
+    content.setBody(body.toString());
+    content.setRank(rank);
+    content.setCategoryId("category-" + rank % 25);
+    content.setAvatarId("avatar-" + rank % 200);
+    content.setImageId("image-" + rank % 500);
+    return content;
+  }
+}
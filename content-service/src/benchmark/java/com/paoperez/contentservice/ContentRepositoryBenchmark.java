@@ -0,0 +1,157 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+/**
+ * Cost of every repository operation the service uses, on embedded Mongo with the indexes of the
+ * database image. Run with ./mvnw -Pbenchmark -DskipTests verify, results go to
+ * target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentRepositoryBenchmark {
+  private static final int BATCH_SIZE = 10_000;
+  private static final int BODY_LENGTH = 1000;
+
+  @Param({"1000", "100000", "1000000"})
+  private int documents;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private MongoTemplate template;
+  private ContentRepository repository;
+  private final List<String> ids = new ArrayList<>();
+  private int nextRank;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+    template = new MongoTemplate(client, "contentually");
+    ContentIndexes.ensure(template.indexOps(Content.class));
+    repository = new MongoRepositoryFactory(template).getRepository(ContentRepository.class,
+        RepositoryFragments.just(new ContentProjectionsImpl(template)));
+
+    List<Content> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < documents; i++) {
+      batch.add(content(i + 1));
+      if (batch.size() == BATCH_SIZE || i == documents - 1) {
+        template.insertAll(batch).forEach(content -> ids.add(content.getId()));
+        batch.clear();
+      }
+    }
+    nextRank = documents + 1;
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    client.close();
+    mongod.stop();
+  }
+
+  @Benchmark
+  public List<Content> findAll() {
+    return repository.findAll();
+  }
+
+  @Benchmark
+  public Optional<Content> findById() {
+    return repository.findById(anyId());
+  }
+
+  @Benchmark
+  public String save(final Created created) {
+    created.content = repository.save(content(nextRank++));
+    return created.content.getId();
+  }
+
+  @Benchmark
+  public void deleteById(final Deletable deletable) {
+    repository.deleteById(deletable.id);
+  }
+
+  private String anyId() {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+  }
+
+  private static Content content(final int rank) {
+    Content content = new Content();
+    content.setCreated(System.currentTimeMillis());
+    content.setUpdated(content.getCreated());
+    content.setTitle("Content " + rank);
+    StringBuilder body = new StringBuilder(BODY_LENGTH);
+    while (body.length() < BODY_LENGTH) {
+      body.append("lorem ipsum dolor sit amet ");
+    }
+    content.setBody(body.toString());
+    content.setRank(rank);
+    content.setCategoryId("category-" + rank % 25);
+    content.setAvatarId("avatar-" + rank % 200);
+    content.setImageId("image-" + rank % 500);
+    return content;
+  }
+
+  /**
+   * Removes what a save created, so that the collection keeps its size.
+   */
+  @State(Scope.Thread)
+  public static class Created {
+    private Content content;
+
+    @TearDown(Level.Invocation)
+    public void delete(final ContentRepositoryBenchmark benchmark) {
+      benchmark.template.remove(content);
+    }
+  }
+
+  /**
+   * Inserts a document for every delete, so that the collection keeps its size.
+   */
+  @State(Scope.Thread)
+  public static class Deletable {
+    private String id;
+
+    @Setup(Level.Invocation)
+    public void insert(final ContentRepositoryBenchmark benchmark) {
+      id = benchmark.template.insert(content(benchmark.nextRank++)).getId();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.paoperez.contentservice;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Throughput of requests for contents that do not exist, from the controller through the
+ * exception handler to the error response, logging to a file like the service does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class NotFoundBenchmark {
+  private MockMvc mockMvc;
+
+  @Setup
+  public void start() throws ContentNotFoundException {
+    LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+    context.reset();
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%d %5p [%t] %logger : %m%n");
+    encoder.start();
+    FileAppender<ILoggingEvent> appender = new FileAppender<>();
+    appender.setContext(context);
+    appender.setFile("target/not-found-benchmark.log");
+    appender.setAppend(false);
+    appender.setEncoder(encoder);
+    appender.start();
+    ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+    root.setLevel(Level.INFO);
+    root.addAppender(appender);
+
+    // Stub only, since a mock keeps every invocation to verify
+    ContentService contentService = mock(ContentService.class, withSettings().stubOnly());
+    when(contentService.getContent(anyString())).thenAnswer(invocation -> {
+      throw new ContentNotFoundException(invocation.getArgument(0));
+    });
+    ContentController controller =
+        new ContentController(contentService, new ContentMapperImpl(new ModelMapper()));
+    mockMvc = MockMvcBuilders.standaloneSetup(controller)
+        .setControllerAdvice(new ContentExceptionHandler(1))
+        .build();
+  }
+
+  @Benchmark
+  public int getMissingContent() throws Exception {
+    return mockMvc.perform(get("/contents/{id}", "missing")).andReturn().getResponse()
+        .getStatus();
+  }
+}
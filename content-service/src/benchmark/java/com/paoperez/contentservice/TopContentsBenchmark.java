@@ -0,0 +1,134 @@
+package com.paoperez.contentservice;
+
+import com.google.common.collect.ImmutableList;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Time to find the ids and ranks of the top contents among a million on embedded Mongo: from the
+ * rank index, with a query sorted on the unique index of rank, and by reading all of them and
+ * sorting, which is what clients did before ?top=. Also the time to apply a change of rank to the
+ * index. The time to read the index and the heap it takes are printed before the measurements.
+ * Run with ./mvnw -Pbenchmark -DskipTests verify -Dbenchmark.args=TopContentsBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TopContentsBenchmark {
+  private static final int DOCUMENTS = 1000000;
+  private static final int BATCH_SIZE = 10000;
+  private static final List<String> FIELDS = ImmutableList.copyOf(RankIndex.FIELDS);
+
+  @Param({"10", "100"})
+  private int count;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private MongoTemplate template;
+  private ContentProjections projections;
+  private RankIndex index;
+  private List<String> ids;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+    template = new MongoTemplate(client, "contentually");
+    template.indexOps(Content.class).ensureIndex(new Index("rank", Sort.Direction.ASC).unique());
+    projections = new ContentProjectionsImpl(template);
+
+    for (int batch = 0; batch < DOCUMENTS; batch += BATCH_SIZE) {
+      List<Content> contents = new ArrayList<>(BATCH_SIZE);
+      for (int i = batch; i < batch + BATCH_SIZE; i++) {
+        Content content = new Content();
+        content.setTitle("Content " + i);
+        content.setRank(DOCUMENTS - i);
+        contents.add(content);
+      }
+      template.insertAll(contents);
+    }
+
+    long heap = usedHeap();
+    long started = System.nanoTime();
+    index = new RankIndex(template, 0, new SimpleMeterRegistry());
+    index.rebuild();
+    System.out.printf("%n%d contents indexed in %dms, taking %dMB of heap%n", index.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+        (usedHeap() - heap) / 1024 / 1024);
+    ids = index.top(DOCUMENTS).stream().map(Content::getId).collect(Collectors.toList());
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    client.close();
+    mongod.stop();
+  }
+
+  @Benchmark
+  public List<Content> index() {
+    return index.top(count);
+  }
+
+  @Benchmark
+  public List<Content> sortedQuery() {
+    return projections.findTopRanked(count, FIELDS);
+  }
+
+  @Benchmark
+  public List<Content> findAllAndSort() {
+    return projections.findAll(FIELDS).stream().sorted(Comparator.comparing(Content::getRank))
+        .limit(count).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public void changeRank() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    index.put(ids.get(random.nextInt(DOCUMENTS)), random.nextInt(DOCUMENTS));
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,126 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongoCmdOptionsBuilder;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+/**
+ * Saves per second with as many concurrent writers as request threads in a burst, each save on
+ * its own ({@code save}) or coalesced into bulk writes ({@code coalescedSave}), on embedded Mongo
+ * with the journal on as in db/mongod.conf and the body compression listener registered. Run with
+ * ./mvnw -Pbenchmark -DskipTests verify -Dbenchmark.args=WriteCoalescingBenchmark, results go to
+ * target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+public class WriteCoalescingBenchmark {
+  private static final int BODY_LENGTH = 1000;
+
+  @Param({"2", "5"})
+  private long window;
+
+  @Param({"50", "200"})
+  private int maxBatchSize;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private GenericApplicationContext context;
+  private ContentRepository repository;
+  private WriteCoalescer coalescer;
+  private final AtomicInteger nextRank = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        // Embedded mongod runs without a journal unless told otherwise
+        .cmdOptions(new MongoCmdOptionsBuilder().useNoJournal(false).build())
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+
+    // Publishes the mapping events of both kinds of save to the listeners the service has
+    context = new GenericApplicationContext();
+    context.registerBean(BodyCompression.class,
+        () -> new BodyCompression(1024, new SimpleMeterRegistry()));
+    context.refresh();
+    MongoTemplate template = new MongoTemplate(client, "contentually");
+    template.setApplicationContext(context);
+    template.indexOps(Content.class).ensureIndex(new Index("rank", Sort.Direction.ASC).unique());
+    repository = new MongoRepositoryFactory(template).getRepository(ContentRepository.class,
+        RepositoryFragments.just(new ContentProjectionsImpl(template)));
+    coalescer = new WriteCoalescer(template, context, window, maxBatchSize, 1000, 10000,
+        new SimpleMeterRegistry());
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    context.close();
+    client.close();
+    mongod.stop();
+  }
+
+  @Benchmark
+  public Content save() {
+    return repository.save(content(nextRank.incrementAndGet()));
+  }
+
+  @Benchmark
+  public Content coalescedSave() {
+    return coalescer.save(content(nextRank.incrementAndGet()));
+  }
+
+  private static Content content(final int rank) {
+    Content content = new Content();
+    content.setCreated(System.currentTimeMillis());
+    content.setUpdated(content.getCreated());
+    content.setTitle("Content " + rank);
+    StringBuilder body = new StringBuilder(BODY_LENGTH);
+    while (body.length() < BODY_LENGTH) {
+      body.append("lorem ipsum dolor sit amet ");
+    }
+    content.setBody(body.toString());
+    content.setRank(rank);
+    content.setCategoryId("category-" + rank % 25);
+    content.setAvatarId("avatar-" + rank % 200);
+    content.setImageId("image-" + rank % 500);
+    return content;
+  }
+}
@@ -0,0 +1,144 @@
+package com.paoperez.contentservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.bson.BsonBinarySubType;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+
+/**
+ * Stores the body of a content deflated, as binary, once it has at least a threshold of characters
+ * and deflating makes it smaller, and inflates it back to text when a read fetches it. Reads that
+ * do not fetch the body (see {@link ContentProjections}) never inflate it.
+ */
+final class BodyCompression extends AbstractMongoEventListener<Content> {
+  static final String FIELD = "body";
+
+  private final int threshold;
+  private final DistributionSummary plainBodies;
+  private final DistributionSummary deflatedBodies;
+  private final Counter bytesSaved;
+  private final Timer inflation;
+
+  /**
+   * @param threshold     - The number of characters from which bodies are deflated, 0 or less to
+   *                      store new bodies as text; stored ones are inflated either way.
+   * @param meterRegistry - The registry of the size of stored bodies and the time to inflate them.
+   */
+  BodyCompression(final int threshold, final MeterRegistry meterRegistry) {
+    this.threshold = threshold;
+    this.plainBodies = bodies("plain", meterRegistry);
+    this.deflatedBodies = bodies("deflate", meterRegistry);
+    this.bytesSaved = Counter.builder("content.body.compression.saved").baseUnit("bytes")
+        .description("Bytes of body text that deflating kept out of storage")
+        .register(meterRegistry);
+    this.inflation = Timer.builder("content.body.inflation")
+        .description("Time to inflate a stored body").register(meterRegistry);
+  }
+
+  @Override
+  public void onBeforeSave(final BeforeSaveEvent<Content> event) {
+    Document document = event.getDocument();
+    if (document != null && document.get(FIELD) instanceof String) {
+      document.put(FIELD, encode(document.getString(FIELD)));
+    }
+  }
+
+  @Override
+  public void onAfterLoad(final AfterLoadEvent<Content> event) {
+    Document document = event.getDocument();
+    if (document != null && isDeflated(document.get(FIELD))) {
+      document.put(FIELD, decode((Binary) document.get(FIELD)));
+    }
+  }
+
+  /**
+   * @param body - The body of a content.
+   * @return Object - The body as it is stored: deflated binary or, when that does not pay off, the
+   *         text itself.
+   */
+  Object encode(final String body) {
+    byte[] text = body.getBytes(StandardCharsets.UTF_8);
+    if (threshold <= 0 || body.length() < threshold) {
+      plainBodies.record(text.length);
+      return body;
+    }
+
+    byte[] deflated = deflate(text);
+    if (deflated.length >= text.length) {
+      plainBodies.record(text.length);
+      return body;
+    }
+
+    deflatedBodies.record(deflated.length);
+    bytesSaved.increment(text.length - deflated.length);
+    return new Binary(BsonBinarySubType.USER_DEFINED, deflated);
+  }
+
+  /**
+   * @param body - A body as it is stored.
+   * @return String - The text of the body.
+   */
+  String decode(final Binary body) {
+    return inflation.record(() -> new String(inflate(body.getData()), StandardCharsets.UTF_8));
+  }
+
+  static boolean isDeflated(final Object body) {
+    return body instanceof Binary
+        && ((Binary) body).getType() == BsonBinarySubType.USER_DEFINED.getValue();
+  }
+
+  private static byte[] deflate(final byte[] text) {
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(text);
+      deflater.finish();
+      ByteArrayOutputStream deflated = new ByteArrayOutputStream(text.length / 2);
+      byte[] buffer = new byte[4096];
+      while (!deflater.finished()) {
+        deflated.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return deflated.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(final byte[] deflated) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(deflated);
+      ByteArrayOutputStream text = new ByteArrayOutputStream(deflated.length * 4);
+      byte[] buffer = new byte[4096];
+      while (!inflater.finished()) {
+        int inflated = inflater.inflate(buffer);
+        if (inflated == 0 && inflater.needsInput()) {
+          throw new IllegalStateException("Stored body is truncated");
+        }
+        text.write(buffer, 0, inflated);
+      }
+      return text.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Stored body is not deflated", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static DistributionSummary bodies(final String encoding,
+      final MeterRegistry meterRegistry) {
+    return DistributionSummary.builder("content.body.stored").baseUnit("bytes")
+        .description("Size of bodies as they are written").tag("encoding", encoding)
+        .register(meterRegistry);
+  }
+}
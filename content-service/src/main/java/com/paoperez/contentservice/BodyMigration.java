@@ -0,0 +1,121 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+/**
+ * Once the service is up, deflates in the background the bodies that were stored as text before
+ * {@link BodyCompression} was turned on, a batch at a time with a pause in between so that it does
+ * not compete with requests. A body is only replaced if it has not changed since it was read, so
+ * instances may migrate at the same time, and one that stops leaves the rest to its next start.
+ * Every start scans all contents for such bodies, so it is only on until a migration completes.
+ */
+final class BodyMigration implements ApplicationListener<ApplicationReadyEvent> {
+  private static final Logger logger = LoggerFactory.getLogger(BodyMigration.class);
+
+  private final MongoOperations operations;
+  private final BodyCompression compression;
+  private final int threshold;
+  private final int batchSize;
+  private final long pauseMillis;
+  private final Counter migrated;
+
+  BodyMigration(final MongoOperations operations, final BodyCompression compression,
+      final int threshold, final int batchSize, final long pauseMillis,
+      final MeterRegistry meterRegistry) {
+    this.operations = operations;
+    this.compression = compression;
+    this.threshold = threshold;
+    this.batchSize = batchSize;
+    this.pauseMillis = pauseMillis;
+    this.migrated = Counter.builder("content.body.migrated")
+        .description("Stored bodies deflated by the background migration")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void onApplicationEvent(final ApplicationReadyEvent event) {
+    if (threshold <= 0) {
+      return;
+    }
+
+    Thread thread = new Thread(this::run, "body-migration");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run() {
+    try {
+      long count = migrate();
+      logger.info("Deflated {} stored bodies, content.body.compression.migrate can be turned off",
+          count);
+    } catch (MongoException e) {
+      logger.warn("Stopped deflating stored bodies, will resume on next start", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return long - The number of bodies deflated.
+   */
+  long migrate() throws InterruptedException {
+    MongoCollection<Document> collection =
+        operations.getCollection(operations.getCollectionName(Content.class));
+    Document longTextBodies = new Document(BodyCompression.FIELD, new Document("$type", "string"))
+        .append("$expr", new Document("$gte", Arrays.asList(
+            new Document("$strLenCP", "$" + BodyCompression.FIELD), threshold)));
+    long count = 0;
+    List<WriteModel<Document>> updates = new ArrayList<>(batchSize);
+    try (MongoCursor<Document> cursor = collection.find(longTextBodies)
+        .projection(Projections.include(BodyCompression.FIELD)).batchSize(batchSize).iterator()) {
+      while (cursor.hasNext()) {
+        Document document = cursor.next();
+        String body = document.getString(BodyCompression.FIELD);
+        Object encoded = compression.encode(body);
+        if (encoded instanceof Binary) {
+          updates.add(new UpdateOneModel<>(
+              new Document("_id", document.get("_id")).append(BodyCompression.FIELD, body),
+              Updates.set(BodyCompression.FIELD, encoded)));
+        }
+
+        if (updates.size() == batchSize) {
+          count += write(collection, updates);
+          Thread.sleep(pauseMillis);
+        }
+      }
+    }
+    return count + write(collection, updates);
+  }
+
+  private long write(final MongoCollection<Document> collection,
+      final List<WriteModel<Document>> updates) {
+    if (updates.isEmpty()) {
+      return 0;
+    }
+
+    int modified = collection.bulkWrite(updates, new BulkWriteOptions().ordered(false))
+        .getModifiedCount();
+    updates.clear();
+    migrated.increment(modified);
+    return modified;
+  }
+}
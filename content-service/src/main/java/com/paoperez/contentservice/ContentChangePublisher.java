@@ -0,0 +1,84 @@
+package com.paoperez.contentservice;
+
+import com.google.common.collect.ImmutableMap;
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Tells every graphql-service instance that a content was saved or deleted, for the clients
+ * subscribed to its changes. Changes are sent in the background, in order; one that fails is not
+ * retried, so subscribers miss it.
+ */
+final class ContentChangePublisher extends AbstractMongoEventListener<Content> {
+  private static final Logger logger = LoggerFactory.getLogger(ContentChangePublisher.class);
+
+  private final ObjectProvider<DiscoveryClient> discoveryClient;
+  private final String serviceId;
+  private final RestTemplate restTemplate;
+  private final ThreadPoolExecutor executor;
+
+  ContentChangePublisher(final ObjectProvider<DiscoveryClient> discoveryClient,
+      final String serviceId) {
+    this.discoveryClient = discoveryClient;
+    this.serviceId = serviceId;
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(1000);
+    requestFactory.setReadTimeout(1000);
+    this.restTemplate = new RestTemplate(requestFactory);
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("content-changes-");
+    threadFactory.setDaemon(true);
+    this.executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(1000), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @Override
+  public void onAfterSave(final AfterSaveEvent<Content> event) {
+    publish(event.getSource().getId(), "SAVED");
+  }
+
+  @Override
+  public void onAfterDelete(final AfterDeleteEvent<Content> event) {
+    Document query = event.getSource();
+    if (query.get("_id") != null) {
+      publish(query.get("_id").toString(), "DELETED");
+    }
+  }
+
+  private void publish(final String id, final String type) {
+    executor.execute(() -> {
+      DiscoveryClient client = discoveryClient.getIfAvailable();
+      if (client == null) {
+        return;
+      }
+
+      for (ServiceInstance instance : client.getInstances(serviceId)) {
+        // The actuator listens on the management port, which the instance's metadata names
+        String port = instance.getMetadata().getOrDefault("management.port",
+            String.valueOf(instance.getPort()));
+        URI uri = UriComponentsBuilder.fromUri(instance.getUri()).port(port)
+            .path("/actuator/contentchanges").build().toUri();
+        try {
+          restTemplate.postForLocation(uri, ImmutableMap.of("id", id, "type", type));
+        } catch (RestClientException e) {
+          logger.debug("Could not publish the change of {} to {}", id, uri, e);
+        }
+      }
+    });
+  }
+}
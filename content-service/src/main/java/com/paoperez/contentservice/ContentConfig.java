@@ -1,15 +1,52 @@
 package com.paoperez.contentservice;
 
+import ch.qos.logback.classic.LoggerContext;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.discovery.DiscoveryClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.config.Configuration.AccessLevel;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoOperations;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
 class ContentConfig {
   @Bean
-  ContentService contentService(final ContentRepository repository) {
-    return new ContentServiceImpl(repository);
+  ContentService contentService(final ContentRepository repository, final RankIndex rankIndex,
+      final ObjectProvider<WriteCoalescer> writeCoalescer) {
+    return new ContentServiceImpl(repository, rankIndex, writeCoalescer.getIfAvailable());
+  }
+
+  @Bean
+  @ConditionalOnProperty("content.write-coalescing.enabled")
+  WriteCoalescer writeCoalescer(final MongoOperations operations,
+      final ApplicationEventPublisher eventPublisher,
+      @Value("${content.write-coalescing.window:5}") final long windowMillis,
+      @Value("${content.write-coalescing.max-batch-size:100}") final int maxBatchSize,
+      @Value("${content.write-coalescing.queue-size:1000}") final int queueSize,
+      @Value("${content.write-coalescing.timeout:10000}") final long timeoutMillis,
+      final MeterRegistry meterRegistry) {
+    return new WriteCoalescer(operations, eventPublisher, windowMillis, maxBatchSize, queueSize,
+        timeoutMillis, meterRegistry);
+  }
+
+  @Bean
+  RankIndex rankIndex(final MongoOperations operations,
+      @Value("${content.rank-index.refresh-interval:60000}") final long refreshMillis,
+      final MeterRegistry meterRegistry) {
+    return new RankIndex(operations, refreshMillis, meterRegistry);
+  }
+
+  @Bean
+  ContentIndexes contentIndexes(final MongoOperations operations) {
+    return new ContentIndexes(operations);
   }
 
   @Bean
@@ -25,4 +62,79 @@ class ContentConfig {
   ContentMapper contentMapper(final ModelMapper modelMapper) {
     return new ContentMapperImpl(modelMapper);
   }
+
+  @Bean
+  DeregisterOnShutdown deregisterOnShutdown(
+      final ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+      final ObjectProvider<DiscoveryClient> discoveryClient,
+      @Value("${discovery.shutdown-delay:10000}") final long delayMillis) {
+    return new DeregisterOnShutdown(applicationInfoManager, discoveryClient, delayMillis);
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql-cache.purge")
+  GraphQLCachePurge graphQLCachePurge(
+      final ObjectProvider<org.springframework.cloud.client.discovery.DiscoveryClient> clients,
+      @Value("${graphql-cache.service-id:graphql-service}") final String serviceId) {
+    return new GraphQLCachePurge(clients, serviceId);
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql-subscriptions.publish")
+  ContentChangePublisher contentChangePublisher(
+      final ObjectProvider<org.springframework.cloud.client.discovery.DiscoveryClient> clients,
+      @Value("${graphql-subscriptions.service-id:graphql-service}") final String serviceId) {
+    return new ContentChangePublisher(clients, serviceId);
+  }
+
+  @Bean
+  BodyCompression bodyCompression(
+      @Value("${content.body.compression.threshold:1024}") final int threshold,
+      final MeterRegistry meterRegistry) {
+    return new BodyCompression(threshold, meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnProperty("content.body.compression.migrate")
+  BodyMigration bodyMigration(final MongoOperations operations,
+      final BodyCompression compression,
+      @Value("${content.body.compression.threshold:1024}") final int threshold,
+      @Value("${content.body.compression.migrate-batch-size:100}") final int batchSize,
+      @Value("${content.body.compression.migrate-pause:100}") final long pauseMillis,
+      final MeterRegistry meterRegistry) {
+    return new BodyMigration(operations, compression, threshold, batchSize, pauseMillis,
+        meterRegistry);
+  }
+
+  @Bean
+  MongoClientSettingsBuilderCustomizer mongoMetrics(final MeterRegistry meterRegistry,
+      final SlowCommands slowCommands) {
+    return settings -> settings.addCommandListener(new MongoCommandMetrics(meterRegistry))
+        .addCommandListener(slowCommands)
+        .applyToConnectionPoolSettings(pool ->
+            pool.addConnectionPoolListener(new MongoPoolMetrics(meterRegistry)));
+  }
+
+  @Bean
+  SlowCommands slowCommands(final ObjectProvider<MongoOperations> operations,
+      @Value("${slow-commands.threshold:100}") final long thresholdMillis,
+      @Value("${slow-commands.capacity:100}") final int capacity,
+      final MeterRegistry meterRegistry) {
+    return new SlowCommands(operations, thresholdMillis, capacity, meterRegistry);
+  }
+
+  @Bean
+  SlowCommandsEndpoint slowCommandsEndpoint(final SlowCommands slowCommands) {
+    return new SlowCommandsEndpoint(slowCommands);
+  }
+
+  @Bean
+  static RepositoryMethods repositoryMethods() {
+    return new RepositoryMethods();
+  }
+
+  @Bean
+  AsyncLogMetrics asyncLogMetrics() {
+    return new AsyncLogMetrics((LoggerContext) LoggerFactory.getILoggerFactory());
+  }
 }
@@ -2,12 +2,16 @@ package com.paoperez.contentservice;
 
 import java.net.URI;
 import java.util.Collection;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -31,17 +36,40 @@ public class ContentController {
   }
 
   @GetMapping()
-  public ResponseEntity<ContentsDTO> getAllContents() {
-    Collection<ContentDTO> contents =
-        contentMapper.contentsToContentDTOs(contentService.getAllContents());
+  public ResponseEntity<ContentsDTO> getAllContents(
+      final @RequestParam(required = false) Set<String> fields,
+      final @RequestParam(required = false) @Positive Integer top,
+      final @RequestParam(required = false) Set<String> categoryIds,
+      final @RequestParam(required = false) Set<String> avatarIds,
+      final @RequestParam(defaultValue = "10") @Positive @Max(1000) int first,
+      final @RequestParam(required = false) Integer after) throws ServletRequestBindingException {
+    if (categoryIds != null && avatarIds != null) {
+      throw new ServletRequestBindingException("Contents are found by categoryIds or avatarIds");
+    }
+
+    Collection<Content> allContents;
+    if (categoryIds != null) {
+      allContents = contentService.getContentsByCategory(categoryIds, first, after, fields);
+    } else if (avatarIds != null) {
+      allContents = contentService.getContentsByAvatar(avatarIds, first, after, fields);
+    } else if (top != null) {
+      allContents = fields == null ? contentService.getTopContents(top)
+          : contentService.getTopContents(top, fields);
+    } else {
+      allContents = fields == null ? contentService.getAllContents()
+          : contentService.getAllContents(fields);
+    }
+    Collection<ContentDTO> contents = contentMapper.contentsToContentDTOs(allContents);
     ContentsDTO contentsDTO = ContentsDTO.builder().data(contents).build();
     return new ResponseEntity<>(contentsDTO, HttpStatus.OK);
   }
 
   @GetMapping("/{id}")
-  public ResponseEntity<ContentDTO> getContent(final @PathVariable @NotBlank String id)
-      throws ContentNotFoundException {
-    ContentDTO contentDTO = contentMapper.contentToContentDto(contentService.getContent(id));
+  public ResponseEntity<ContentDTO> getContent(final @PathVariable @NotBlank String id,
+      final @RequestParam(required = false) Set<String> fields) throws ContentNotFoundException {
+    Content content =
+        fields == null ? contentService.getContent(id) : contentService.getContent(id, fields);
+    ContentDTO contentDTO = contentMapper.contentToContentDto(content);
     return new ResponseEntity<>(contentDTO, HttpStatus.OK);
   }
 
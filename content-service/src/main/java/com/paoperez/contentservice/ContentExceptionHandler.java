@@ -1,12 +1,12 @@
 package com.paoperez.contentservice;
 
-import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,13 +21,20 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 final class ContentExceptionHandler extends ResponseEntityExceptionHandler {
   private static final Logger log = LoggerFactory.getLogger(ContentExceptionHandler.class);
 
+  private final ExpectedErrorLog expectedErrors;
+
+  ContentExceptionHandler(
+      @Value("${errors.expected.lines-per-second:1}") final int expectedErrorLinesPerSecond) {
+    this.expectedErrors = new ExpectedErrorLog(expectedErrorLinesPerSecond);
+  }
+
   @ExceptionHandler(ContentNotFoundException.class)
   final ResponseEntity<ContentErrorResponse> handleNotFoundException(
       final ContentNotFoundException ex, final WebRequest request) {
-    log.error("Not Found", ex);
+    expectedErrors.log(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     ContentErrorResponse responseBody =
         ContentErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.NOT_FOUND).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.NOT_FOUND).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -35,9 +42,10 @@ final class ContentExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(ContentMismatchException.class)
   final ResponseEntity<ContentErrorResponse> handleMismatchException(
       final ContentMismatchException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     ContentErrorResponse responseBody =
         ContentErrorResponse.builder().message(ex.getLocalizedMessage())
-            .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+            .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -47,9 +55,9 @@ final class ContentExceptionHandler extends ResponseEntityExceptionHandler {
       final ConstraintViolationException ex, final WebRequest request) {
     Collection<String> message = ex.getConstraintViolations().stream()
         .map(ConstraintViolation::getMessage).collect(Collectors.toList());
-    log.error("Bad Request", ex);
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     ContentErrorResponse responseBody = ContentErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -60,9 +68,9 @@ final class ContentExceptionHandler extends ResponseEntityExceptionHandler {
       final WebRequest request) {
     Collection<String> message = ex.getBindingResult().getFieldErrors().stream()
         .map(FieldError::getDefaultMessage).collect(Collectors.toList());
-    log.error("Bad Request", ex);
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     ContentErrorResponse responseBody = ContentErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -74,7 +82,7 @@ final class ContentExceptionHandler extends ResponseEntityExceptionHandler {
     ContentErrorResponse responseBody = ContentErrorResponse.builder()
         .message(
             "There is an internal server error. We will look into it and update the site soon.")
-        .timestamp(LocalDateTime.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
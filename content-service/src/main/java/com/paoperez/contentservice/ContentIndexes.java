@@ -0,0 +1,54 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.MongoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+/**
+ * Once the service is up, creates in the background the indexes of contents that are missing,
+ * since the init script of the database only creates them on a new volume. The contents of a
+ * category or an avatar are found and ordered by rank through theirs. Existing indexes are left
+ * as they are.
+ */
+final class ContentIndexes implements ApplicationListener<ApplicationReadyEvent> {
+  private static final Logger logger = LoggerFactory.getLogger(ContentIndexes.class);
+
+  private final MongoOperations operations;
+
+  ContentIndexes(final MongoOperations operations) {
+    this.operations = operations;
+  }
+
+  /**
+   * @param indexOps - The index operations of the contents' collection.
+   */
+  static void ensure(final IndexOperations indexOps) {
+    indexOps.ensureIndex(new Index("rank", Sort.Direction.ASC).unique());
+    indexOps.ensureIndex(new Index().on("categoryId", Sort.Direction.ASC)
+        .on("rank", Sort.Direction.ASC));
+    indexOps.ensureIndex(new Index().on("avatarId", Sort.Direction.ASC)
+        .on("rank", Sort.Direction.ASC));
+  }
+
+  @Override
+  public void onApplicationEvent(final ApplicationReadyEvent event) {
+    Thread thread = new Thread(this::run, "content-indexes");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void run() {
+    try {
+      ensure(operations.indexOps(Content.class));
+    } catch (MongoException | DataAccessException e) {
+      logger.warn("Could not create the indexes of contents, will retry on next start", e);
+    }
+  }
+}
@@ -4,6 +4,7 @@ class ContentMismatchException extends Exception {
   private static final long serialVersionUID = 1L;
 
   ContentMismatchException(String id, String idArg) {
-    super(String.format("Content with id %s does not match content argument %s.", id, idArg));
+    super("Content with id " + id + " does not match content argument " + idArg + ".", null,
+        false, false);
   }
 }
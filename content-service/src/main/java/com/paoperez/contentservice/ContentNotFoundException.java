@@ -4,6 +4,7 @@ class ContentNotFoundException extends Exception {
   private static final long serialVersionUID = 1L;
 
   ContentNotFoundException(String id) {
-    super(String.format("Content with id %s not found.", id));
+    // Expected on every request for a stale id, so without the cost of a stack trace
+    super("Content with id " + id + " not found.", null, false, false);
   }
 }
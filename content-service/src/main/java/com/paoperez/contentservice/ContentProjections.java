@@ -0,0 +1,54 @@
+package com.paoperez.contentservice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads of contents that fetch only some of their fields from the database, leaving the others
+ * null. The id is always fetched.
+ */
+interface ContentProjections {
+
+  /**
+   * @param fields - The names of the fields to fetch; names that are not fields are ignored.
+   * @return List<Content> - All contents, with only the given fields.
+   */
+  List<Content> findAll(Collection<String> fields);
+
+  /**
+   * @param id     - The id of the content.
+   * @param fields - The names of the fields to fetch; names that are not fields are ignored.
+   * @return Optional<Content> - The content, with only the given fields.
+   */
+  Optional<Content> findById(String id, Collection<String> fields);
+
+  /**
+   * @param ids    - The ids of the contents.
+   * @param fields - The names of the fields to fetch; names that are not fields are ignored.
+   * @return List<Content> - The contents found, in no particular order, with only the given
+   *         fields.
+   */
+  List<Content> findAllById(Collection<String> ids, Collection<String> fields);
+
+  /**
+   * @param count  - The number of contents.
+   * @param fields - The names of the fields to fetch; names that are not fields are ignored.
+   * @return List<Content> - The ranked contents with the lowest ranks, in order, with only the
+   *         given fields.
+   */
+  List<Content> findTopRanked(int count, Collection<String> fields);
+
+  /**
+   * @param field  - The field the contents are found by, e.g. categoryId.
+   * @param values - The values of the field.
+   * @param count  - The number of contents for each value.
+   * @param after  - The rank the contents come after, or null for the first ones.
+   * @param fields - The names of the fields to fetch, or null for all of them; names that are not
+   *               fields are ignored.
+   * @return List<Content> - The ranked contents with each value, in order of the values and then
+   *         of rank.
+   */
+  List<Content> findRankedBy(String field, Collection<String> values, int count, Integer after,
+      Collection<String> fields);
+}
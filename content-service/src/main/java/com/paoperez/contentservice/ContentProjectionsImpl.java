@@ -0,0 +1,72 @@
+package com.paoperez.contentservice;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Fetches the given fields with a projection, so that the server does not send the others.
+ */
+final class ContentProjectionsImpl implements ContentProjections {
+  private static final Set<String> FIELDS = ImmutableSet.of("id", "created", "updated", "title",
+      "body", "rank", "categoryId", "avatarId", "imageId");
+
+  private final MongoOperations operations;
+
+  ContentProjectionsImpl(final MongoOperations operations) {
+    this.operations = operations;
+  }
+
+  @Override
+  public List<Content> findAll(final Collection<String> fields) {
+    return operations.find(project(new Query(), fields), Content.class);
+  }
+
+  @Override
+  public Optional<Content> findById(final String id, final Collection<String> fields) {
+    Query query = project(new Query(Criteria.where("id").is(id)), fields);
+    return Optional.ofNullable(operations.findOne(query, Content.class));
+  }
+
+  @Override
+  public List<Content> findAllById(final Collection<String> ids,
+      final Collection<String> fields) {
+    return operations.find(project(new Query(Criteria.where("id").in(ids)), fields),
+        Content.class);
+  }
+
+  @Override
+  public List<Content> findTopRanked(final int count, final Collection<String> fields) {
+    Query query = new Query(Criteria.where("rank").ne(null)).with(Sort.by("rank")).limit(count);
+    return operations.find(project(query, fields), Content.class);
+  }
+
+  @Override
+  public List<Content> findRankedBy(final String field, final Collection<String> values,
+      final int count, final Integer after, final Collection<String> fields) {
+    // A query for each value is a range of the (field, rank) index, where one query for all the
+    // values would have to sort them to give each its own count
+    List<Content> contents = new ArrayList<>();
+    for (String value : values) {
+      Query query = new Query(Criteria.where(field).is(value).and("rank")
+          .gt(after == null ? Integer.MIN_VALUE : after)).with(Sort.by("rank")).limit(count);
+      contents.addAll(operations.find(fields == null ? query : project(query, fields),
+          Content.class));
+    }
+    return contents;
+  }
+
+  private static Query project(final Query query, final Collection<String> fields) {
+    Field projection = query.fields().include("id");
+    fields.stream().filter(FIELDS::contains).forEach(projection::include);
+    return query;
+  }
+}
@@ -1,5 +1,14 @@
 package com.paoperez.contentservice;
 
+import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-interface ContentRepository extends MongoRepository<Content, String> {}
+interface ContentRepository extends MongoRepository<Content, String>, ContentProjections {
+
+  /**
+   * @param pageable - The page, sorted by rank for the top contents.
+   * @return List<Content> - The contents that have a rank.
+   */
+  List<Content> findByRankNotNull(Pageable pageable);
+}
@@ -9,6 +9,46 @@ interface ContentService {
    */
   Collection<Content> getAllContents();
 
+  /**
+   * @param fields - The names of the fields to read, the others are left null.
+   * @return Collection<Content> - a collection of all contents, with only the given fields.
+   */
+  Collection<Content> getAllContents(Collection<String> fields);
+
+  /**
+   * @param count - The number of contents.
+   * @return Collection<Content> - The ranked contents with the lowest ranks, in order.
+   */
+  Collection<Content> getTopContents(int count);
+
+  /**
+   * @param count  - The number of contents.
+   * @param fields - The names of the fields to read, the others are left null.
+   * @return Collection<Content> - The ranked contents with the lowest ranks, in order, with only
+   *         the given fields.
+   */
+  Collection<Content> getTopContents(int count, Collection<String> fields);
+
+  /**
+   * @param categoryIds - The ids of the categories.
+   * @param count       - The number of contents for each category.
+   * @param after       - The rank the contents come after, or null for the first ones.
+   * @param fields      - The names of the fields to read, or null for all of them.
+   * @return Collection<Content> - The ranked contents of each category, in order of rank.
+   */
+  Collection<Content> getContentsByCategory(Collection<String> categoryIds, int count,
+      Integer after, Collection<String> fields);
+
+  /**
+   * @param avatarIds - The ids of the avatars.
+   * @param count     - The number of contents for each avatar.
+   * @param after     - The rank the contents come after, or null for the first ones.
+   * @param fields    - The names of the fields to read, or null for all of them.
+   * @return Collection<Content> - The ranked contents of each avatar, in order of rank.
+   */
+  Collection<Content> getContentsByAvatar(Collection<String> avatarIds, int count, Integer after,
+      Collection<String> fields);
+
   /**
    * 
    * @param id - The id of the content to be retrieved
@@ -18,6 +58,15 @@ interface ContentService {
    */
   Content getContent(String id) throws ContentNotFoundException;
 
+  /**
+   * @param id     - The id of the content to be retrieved
+   * @param fields - The names of the fields to read, the others are left null.
+   * @return Content - The content to be retrieved, with only the given fields.
+   * @throws ContentNotFoundException - Thrown when the id of the content to be retrieved was not
+   *                                  found.
+   */
+  Content getContent(String id, Collection<String> fields) throws ContentNotFoundException;
+
   /**
    * @param content - The content to be created.
    * @return String - The ID of the created content.
@@ -1,27 +1,92 @@
 package com.paoperez.contentservice;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 @Service
 final class ContentServiceImpl implements ContentService {
   private final ContentRepository repository;
+  private final RankIndex rankIndex;
+  private final WriteCoalescer writeCoalescer;
 
-  ContentServiceImpl(final ContentRepository repository) {
+  ContentServiceImpl(final ContentRepository repository, final RankIndex rankIndex) {
+    this(repository, rankIndex, null);
+  }
+
+  /**
+   * @param writeCoalescer - The coalescer to save contents through, or null to save each one
+   *                       with the repository.
+   */
+  @Autowired
+  ContentServiceImpl(final ContentRepository repository, final RankIndex rankIndex,
+      @Nullable final WriteCoalescer writeCoalescer) {
     this.repository = repository;
+    this.rankIndex = rankIndex;
+    this.writeCoalescer = writeCoalescer;
   }
 
   public Collection<Content> getAllContents() {
     return repository.findAll();
   }
 
+  public Collection<Content> getAllContents(final Collection<String> fields) {
+    return repository.findAll(fields);
+  }
+
+  public Collection<Content> getTopContents(final int count) {
+    List<Content> top = rankIndex.top(count);
+    if (top == null) {
+      return repository.findByRankNotNull(PageRequest.of(0, count, Sort.by("rank")));
+    }
+
+    return inOrderOf(top, repository.findAllById(ids(top)));
+  }
+
+  public Collection<Content> getTopContents(final int count, final Collection<String> fields) {
+    List<Content> top = rankIndex.top(count);
+    if (top == null) {
+      return repository.findTopRanked(count, fields);
+    }
+    if (RankIndex.FIELDS.containsAll(fields)) {
+      return top;
+    }
+
+    return inOrderOf(top, repository.findAllById(ids(top), fields));
+  }
+
+  public Collection<Content> getContentsByCategory(final Collection<String> categoryIds,
+      final int count, final Integer after, final Collection<String> fields) {
+    return repository.findRankedBy("categoryId", categoryIds, count, after, fields);
+  }
+
+  public Collection<Content> getContentsByAvatar(final Collection<String> avatarIds,
+      final int count, final Integer after, final Collection<String> fields) {
+    return repository.findRankedBy("avatarId", avatarIds, count, after, fields);
+  }
+
   public Content getContent(final String id) throws ContentNotFoundException {
     return repository.findById(id).orElseThrow(() -> new ContentNotFoundException(id));
   }
 
+  public Content getContent(final String id, final Collection<String> fields)
+      throws ContentNotFoundException {
+    return repository.findById(id, fields).orElseThrow(() -> new ContentNotFoundException(id));
+  }
+
   public String createContent(final Content content) {
-    return repository.save(content).getId();
+    Content created = save(content);
+    rankIndex.put(created.getId(), created.getRank());
+    return created.getId();
   }
 
   public void updateContent(final String id, final Content content)
@@ -36,7 +101,8 @@ final class ContentServiceImpl implements ContentService {
       throw new ContentMismatchException(id, contentId);
     }
 
-    repository.save(content);
+    save(content);
+    rankIndex.put(id, content.getRank());
   }
 
   public void deleteContent(final String id) throws ContentNotFoundException {
@@ -45,5 +111,26 @@ final class ContentServiceImpl implements ContentService {
     }
 
     repository.deleteById(id);
+    rankIndex.remove(id);
+  }
+
+  private Content save(final Content content) {
+    return writeCoalescer != null ? writeCoalescer.save(content) : repository.save(content);
+  }
+
+  private static List<String> ids(final List<Content> contents) {
+    return contents.stream().map(Content::getId).collect(Collectors.toList());
+  }
+
+  /**
+   * @return List<Content> - The fetched contents in the order of the ranked ones, without those
+   *         deleted since they were indexed.
+   */
+  private static List<Content> inOrderOf(final List<Content> ranked,
+      final Iterable<Content> fetched) {
+    Map<String, Content> byId = new HashMap<>();
+    fetched.forEach(content -> byId.put(content.getId(), content));
+    return ranked.stream().map(content -> byId.get(content.getId()))
+        .filter(Objects::nonNull).collect(Collectors.toList());
   }
 }
@@ -0,0 +1,64 @@
+package com.paoperez.contentservice;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Logs errors that clients cause, such as requests for ids that do not exist, as one line without
+ * a stack trace. At most a given number of lines per second are written for each status, the rest
+ * are only counted and reported with the next line, so a client hammering stale ids cannot flood
+ * the log.
+ */
+final class ExpectedErrorLog {
+  private static final Logger logger = LoggerFactory.getLogger(ExpectedErrorLog.class);
+
+  private final int linesPerSecond;
+  private final Map<HttpStatus, Window> windows = new ConcurrentHashMap<>();
+
+  ExpectedErrorLog(final int linesPerSecond) {
+    this.linesPerSecond = linesPerSecond;
+  }
+
+  void log(final HttpStatus status, final String message, final WebRequest request) {
+    if (!logger.isWarnEnabled()) {
+      return;
+    }
+
+    long suppressed = windows.computeIfAbsent(status, key -> new Window())
+        .acquire(System.currentTimeMillis() / 1000, linesPerSecond);
+    if (suppressed >= 0) {
+      logger.warn("status={} {} message=\"{}\" suppressed={}", status.value(),
+          request.getDescription(false), message, suppressed);
+    }
+  }
+
+  private static final class Window {
+    private long second;
+    private int lines;
+    private long suppressed;
+
+    /**
+     * @return long - The number of lines suppressed since the last one written, or -1 if this line
+     *         is suppressed too.
+     */
+    synchronized long acquire(final long now, final int limit) {
+      if (now != second) {
+        second = now;
+        lines = 0;
+      }
+      if (lines >= limit) {
+        suppressed++;
+        return -1;
+      }
+
+      lines++;
+      long reported = suppressed;
+      suppressed = 0;
+      return reported;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.paoperez.contentservice;
+
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Tells every graphql-service instance to drop the cached query results showing a content once it
+ * is saved or deleted, by its entity tag {@code Content:id}, and the list of all contents too when
+ * it is saved since it may be new. Purges are sent in the background; one that fails leaves the
+ * results to expire.
+ */
+final class GraphQLCachePurge extends AbstractMongoEventListener<Content> {
+  private static final Logger logger = LoggerFactory.getLogger(GraphQLCachePurge.class);
+
+  private final ObjectProvider<DiscoveryClient> discoveryClient;
+  private final String serviceId;
+  private final RestTemplate restTemplate;
+  private final ThreadPoolExecutor executor;
+
+  GraphQLCachePurge(final ObjectProvider<DiscoveryClient> discoveryClient,
+      final String serviceId) {
+    this.discoveryClient = discoveryClient;
+    this.serviceId = serviceId;
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(1000);
+    requestFactory.setReadTimeout(1000);
+    this.restTemplate = new RestTemplate(requestFactory);
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("graphql-purge-");
+    threadFactory.setDaemon(true);
+    this.executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(1000), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  @Override
+  public void onAfterSave(final AfterSaveEvent<Content> event) {
+    purge("Content:" + event.getSource().getId(), "Contents");
+  }
+
+  @Override
+  public void onAfterDelete(final AfterDeleteEvent<Content> event) {
+    Document query = event.getSource();
+    if (query.get("_id") != null) {
+      purge("Content:" + query.get("_id"));
+    }
+  }
+
+  private void purge(final Object... tags) {
+    executor.execute(() -> {
+      DiscoveryClient client = discoveryClient.getIfAvailable();
+      if (client == null) {
+        return;
+      }
+
+      for (ServiceInstance instance : client.getInstances(serviceId)) {
+        // The actuator listens on the management port, which the instance's metadata names
+        String port = instance.getMetadata().getOrDefault("management.port",
+            String.valueOf(instance.getPort()));
+        URI uri = UriComponentsBuilder.fromUri(instance.getUri()).port(port)
+            .path("/actuator/graphqlcache").queryParam("tag", tags).encode().build().toUri();
+        try {
+          restTemplate.delete(uri);
+        } catch (RestClientException e) {
+          logger.debug("Could not purge cached results of {} at {}", tags, uri, e);
+        }
+      }
+    });
+  }
+}
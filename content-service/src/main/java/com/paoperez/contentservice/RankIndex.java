@@ -0,0 +1,206 @@
+package com.paoperez.contentservice;
+
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+/**
+ * The ids of the ranked contents in memory, ordered by rank with 1 first, so that the top ones
+ * are found without a query. It is read from the database once the service is up and again every
+ * refresh interval, to pick up changes other instances made; changes made through this instance
+ * are applied as they are saved. Until it is first read, {@link #top(int)} returns null.
+ */
+final class RankIndex implements ApplicationListener<ApplicationReadyEvent> {
+  /** The fields of the contents {@link #top(int)} returns. */
+  static final Set<String> FIELDS = ImmutableSet.of("id", "rank");
+
+  private static final Logger logger = LoggerFactory.getLogger(RankIndex.class);
+  private static final int BATCH_SIZE = 10000;
+
+  private final MongoOperations operations;
+  private final long refreshMillis;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      runnable -> {
+        Thread thread = new Thread(runnable, "rank-index");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private final Timer rebuilds;
+  private volatile Entries entries;
+  // Changes saved while the index is read, which the entries read may be missing
+  private Map<String, Integer> pending;
+
+  /**
+   * @param operations    - The operations to read the ranks with.
+   * @param refreshMillis - The time between reads of the index, or 0 to read it once only when
+   *                      this is the only instance writing contents.
+   * @param meterRegistry - The registry of the size of the index and the time to read it.
+   */
+  RankIndex(final MongoOperations operations, final long refreshMillis,
+      final MeterRegistry meterRegistry) {
+    this.operations = operations;
+    this.refreshMillis = refreshMillis;
+    this.rebuilds = Timer.builder("content.rank.index.rebuild")
+        .description("Time to read the rank index from the database").register(meterRegistry);
+    Gauge.builder("content.rank.index.size", this, RankIndex::size)
+        .description("Ranked contents in the rank index").register(meterRegistry);
+  }
+
+  @Override
+  public void onApplicationEvent(final ApplicationReadyEvent event) {
+    if (refreshMillis > 0) {
+      executor.scheduleWithFixedDelay(this::tryRebuild, 0, refreshMillis, TimeUnit.MILLISECONDS);
+    } else {
+      executor.execute(this::tryRebuild);
+    }
+  }
+
+  /**
+   * @param count - The number of contents.
+   * @return List<Content> - The contents with the lowest ranks, in order, with only their id and
+   *         rank; null when the index has not been read yet.
+   */
+  List<Content> top(final int count) {
+    Entries current = entries;
+    if (current == null) {
+      return null;
+    }
+
+    // Iteration is not isolated from a change of rank, which may move an entry past it
+    List<Content> top = new ArrayList<>(Math.min(count, 1024));
+    Set<String> seen = new HashSet<>();
+    for (Ranked ranked : current.ranked) {
+      if (top.size() == count) {
+        break;
+      }
+      if (seen.add(ranked.id)) {
+        Content content = new Content();
+        content.setId(ranked.id);
+        content.setRank(ranked.rank);
+        top.add(content);
+      }
+    }
+    return top;
+  }
+
+  /**
+   * @param id   - The id of a content that was saved.
+   * @param rank - Its rank, or null when it has none.
+   */
+  synchronized void put(final String id, final Integer rank) {
+    if (pending != null) {
+      pending.put(id, rank);
+    }
+    if (entries != null) {
+      entries.put(id, rank);
+    }
+  }
+
+  /**
+   * @param id - The id of a content that was deleted.
+   */
+  void remove(final String id) {
+    put(id, null);
+  }
+
+  synchronized int size() {
+    return entries == null ? 0 : entries.byId.size();
+  }
+
+  /**
+   * Reads the index from the database and replaces the current one with it.
+   */
+  void rebuild() {
+    synchronized (this) {
+      pending = new LinkedHashMap<>();
+    }
+
+    try {
+      Entries rebuilt = new Entries();
+      rebuilds.record(() -> read(rebuilt));
+      synchronized (this) {
+        pending.forEach(rebuilt::put);
+        entries = rebuilt;
+      }
+    } finally {
+      synchronized (this) {
+        pending = null;
+      }
+    }
+  }
+
+  private void tryRebuild() {
+    try {
+      rebuild();
+      logger.debug("Read {} ranked contents", size());
+    } catch (RuntimeException e) {
+      logger.warn("Could not read the rank index, will retry in {}ms", refreshMillis, e);
+    }
+  }
+
+  private void read(final Entries rebuilt) {
+    MongoCollection<Document> collection =
+        operations.getCollection(operations.getCollectionName(Content.class));
+    try (MongoCursor<Document> cursor = collection.find(Filters.ne("rank", null))
+        .projection(Projections.include("rank")).batchSize(BATCH_SIZE).iterator()) {
+      while (cursor.hasNext()) {
+        Document document = cursor.next();
+        rebuilt.put(document.get("_id").toString(),
+            ((Number) document.get("rank")).intValue());
+      }
+    }
+  }
+
+  /**
+   * Entries are sorted for reads, and found by id for changes, which are serialised.
+   */
+  private static final class Entries {
+    private final NavigableSet<Ranked> ranked = new ConcurrentSkipListSet<>(
+        Comparator.comparingInt((Ranked entry) -> entry.rank).thenComparing(entry -> entry.id));
+    private final Map<String, Ranked> byId = new HashMap<>();
+
+    void put(final String id, final Integer rank) {
+      Ranked previous = rank == null ? byId.remove(id) : byId.put(id, new Ranked(id, rank));
+      if (rank != null) {
+        ranked.add(byId.get(id));
+      }
+      if (previous != null && (rank == null || previous.rank != rank)) {
+        ranked.remove(previous);
+      }
+    }
+  }
+
+  private static final class Ranked {
+    private final String id;
+    private final int rank;
+
+    Ranked(final String id, final int rank) {
+      this.id = id;
+      this.rank = rank;
+    }
+  }
+}
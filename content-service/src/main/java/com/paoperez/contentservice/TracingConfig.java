@@ -0,0 +1,52 @@
+package com.paoperez.contentservice;
+
+import brave.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.io.IOException;
+import java.nio.file.Paths;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.cloud.sleuth.sampler.SamplerAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import zipkin2.Span;
+import zipkin2.reporter.AsyncReporter;
+import zipkin2.reporter.metrics.micrometer.MicrometerReporterMetrics;
+
+/**
+ * Spans of Mongo commands, and exporters of the spans of sampled traces besides Zipkin
+ * (spring.zipkin). Sleuth reports every span to all {@code Reporter<Span>} beans, so another
+ * exporter, or an in-memory one in tests, is a bean away. The sampler follows
+ * spring.sleuth.sampler whether Zipkin is enabled or not; Sleuth alone samples nothing.
+ */
+@Configuration(proxyBeanMethods = false)
+@Import(SamplerAutoConfiguration.class)
+class TracingConfig {
+  // Spans written at once, as much as Zipkin's HTTP sender posts
+  private static final int MESSAGE_MAX_BYTES = 5 * 1024 * 1024;
+
+  @Bean
+  MongoClientSettingsBuilderCustomizer mongoTracing(final Tracer tracer) {
+    return settings -> settings.addCommandListener(new MongoCommandTracing(tracer));
+  }
+
+  @Bean
+  @ConditionalOnProperty("tracing.file.enabled")
+  AsyncReporter<Span> fileSpanReporter(@Value("${tracing.file.path}") final String path,
+      @Value("${tracing.file.queued-max-spans:10000}") final int queuedMaxSpans,
+      final MeterRegistry meterRegistry) throws IOException {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("span-file-");
+    threadFactory.setDaemon(true);
+    // Spans beyond the queue are dropped rather than held against the requests that made them
+    return AsyncReporter.builder(new FileSender(Paths.get(path), MESSAGE_MAX_BYTES))
+        .queuedMaxSpans(queuedMaxSpans)
+        .threadFactory(threadFactory)
+        .metrics(MicrometerReporterMetrics.builder(meterRegistry)
+            .extraTags(Tag.of("exporter", "file")).build())
+        .build();
+  }
+}
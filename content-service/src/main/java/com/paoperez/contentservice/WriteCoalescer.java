@@ -0,0 +1,249 @@
+package com.paoperez.contentservice;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.WriteError;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Saves contents the way {@code repository.save} does, but gathers the saves made at the same time
+ * into one unordered bulk write, so that a burst of them costs one round trip and one journal
+ * commit instead of one each. A batch is written once it has the maximum number of saves or once
+ * the window has passed since its first one; each caller waits for its own save only, and gets its
+ * own error when that one fails. Contents are converted, and the mapping events published, on the
+ * callers' threads, so listeners such as {@link BodyCompression} see every save as before. Saves
+ * arriving while the queue is full are written on their own by their caller instead. A caller
+ * whose save is still waiting for a batch once its time is up takes it back and fails, so that the
+ * save is never written; one whose save is being written waits for the write.
+ */
+final class WriteCoalescer {
+  private static final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+
+  private final MongoOperations operations;
+  private final ApplicationEventPublisher eventPublisher;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final String collectionName;
+  private final PersistenceExceptionTranslator exceptionTranslator =
+      new MongoExceptionTranslator();
+  private final long timeoutMillis;
+  private final BlockingQueue<Write> queue;
+  private final DistributionSummary batches;
+  private final Timer bulkWrites;
+  private final Counter unbatched;
+
+  /**
+   * @param operations     - The operations to convert contents and write them with.
+   * @param eventPublisher - The publisher of the mapping events of every save.
+   * @param windowMillis   - How long a batch waits for more saves after its first one.
+   * @param maxBatchSize   - The number of saves from which a batch is written without waiting.
+   * @param queueSize      - The number of saves waiting for a batch, beyond which they are written
+   *                       on their own.
+   * @param timeoutMillis  - How long a caller waits for its save to be taken into a batch.
+   * @param meterRegistry  - The registry of the batch sizes, bulk write times and waiting saves.
+   */
+  WriteCoalescer(final MongoOperations operations, final ApplicationEventPublisher eventPublisher,
+      final long windowMillis, final int maxBatchSize, final int queueSize,
+      final long timeoutMillis, final MeterRegistry meterRegistry) {
+    this.operations = operations;
+    this.eventPublisher = eventPublisher;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.maxBatchSize = maxBatchSize;
+    this.timeoutMillis = timeoutMillis;
+    this.queue = new ArrayBlockingQueue<>(queueSize);
+    this.collectionName = operations.getCollectionName(Content.class);
+    this.batches = DistributionSummary.builder("content.write.coalescing.batch")
+        .description("Saves written by one bulk write").register(meterRegistry);
+    this.bulkWrites = Timer.builder("content.write.coalescing.write")
+        .description("Time to bulk write a batch of saves").register(meterRegistry);
+    this.unbatched = Counter.builder("content.write.coalescing.unbatched")
+        .description("Saves written on their own as the queue was full").register(meterRegistry);
+    Gauge.builder("content.write.coalescing.queued", queue, BlockingQueue::size)
+        .description("Saves waiting for a batch").register(meterRegistry);
+
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("write-coalescer-");
+    threadFactory.setDaemon(true);
+    threadFactory.newThread(this::run).start();
+  }
+
+  /**
+   * @param content - The content to insert when it has no id, or to replace or insert by its id.
+   * @return Content - The content, with the id it was inserted with.
+   * @throws DataAccessException - When its write fails, e.g. as a {@code DuplicateKeyException}
+   *                             when its rank is taken, the other writes of the batch being kept;
+   *                             or as a {@code QueryTimeoutException} when it is not taken into a
+   *                             batch in time, and so not written at all.
+   */
+  Content save(final Content content) {
+    eventPublisher.publishEvent(new BeforeConvertEvent<>(content, collectionName));
+    Document document = new Document();
+    operations.getConverter().write(content, document);
+    eventPublisher.publishEvent(new BeforeSaveEvent<>(content, document, collectionName));
+
+    boolean inserted = document.get("_id") == null;
+    if (inserted) {
+      document.put("_id", new ObjectId());
+    }
+    Write write = new Write(document, inserted);
+    if (!queue.offer(write)) {
+      unbatched.increment();
+      write(Collections.singletonList(write));
+    }
+    await(write);
+
+    if (inserted) {
+      content.setId(document.getObjectId("_id").toHexString());
+    }
+    eventPublisher.publishEvent(new AfterSaveEvent<>(content, document, collectionName));
+    return content;
+  }
+
+  private void await(final Write write) {
+    try {
+      try {
+        write.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (queue.remove(write)) {
+          throw new QueryTimeoutException(String.format(
+              "Save of %s not taken into a batch within %d ms", write.document.get("_id"),
+              timeoutMillis), e);
+        }
+        // Taken into a batch already, whose write then says whether it was saved
+        write.result.get();
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+          : new UncategorizedMongoDbException(e.getMessage(), e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryTimeoutException("Interrupted waiting for a save to be written", e);
+    }
+  }
+
+  private void run() {
+    Write carried = null;
+    while (true) {
+      List<Write> batch = new ArrayList<>(maxBatchSize);
+      try {
+        Write first = carried != null ? carried : queue.take();
+        carried = null;
+        batch.add(first);
+        Set<Object> ids = new HashSet<>();
+        ids.add(first.document.get("_id"));
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+          Write next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          // An unordered batch does not say which of two writes of a content wins
+          if (!ids.add(next.document.get("_id"))) {
+            carried = next;
+            break;
+          }
+          batch.add(next);
+        }
+        write(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        logger.error("Could not write a batch of {} saves", batch.size(), e);
+        fail(batch, e);
+      }
+    }
+  }
+
+  private void write(final List<Write> batch) {
+    List<WriteModel<Document>> models = new ArrayList<>(batch.size());
+    for (Write write : batch) {
+      models.add(write.inserted ? new InsertOneModel<>(write.document)
+          : new ReplaceOneModel<>(Filters.eq("_id", write.document.get("_id")), write.document,
+              new ReplaceOptions().upsert(true)));
+    }
+
+    batches.record(batch.size());
+    MongoCollection<Document> collection = operations.getCollection(collectionName);
+    try {
+      RepositoryMethods.run("WriteCoalescer.save", () -> bulkWrites.record(
+          () -> collection.bulkWrite(models, new BulkWriteOptions().ordered(false))));
+    } catch (MongoBulkWriteException e) {
+      if (e.getWriteConcernError() != null) {
+        fail(batch, translate(e));
+        return;
+      }
+      for (BulkWriteError error : e.getWriteErrors()) {
+        batch.get(error.getIndex()).result.completeExceptionally(translate(new MongoWriteException(
+            new WriteError(error.getCode(), error.getMessage(), error.getDetails()),
+            e.getServerAddress())));
+      }
+    } catch (RuntimeException e) {
+      fail(batch, translate(e));
+      return;
+    }
+
+    for (Write write : batch) {
+      write.result.complete(null);
+    }
+  }
+
+  private RuntimeException translate(final RuntimeException e) {
+    DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+    return translated != null ? translated : new UncategorizedMongoDbException(e.getMessage(), e);
+  }
+
+  private static void fail(final List<Write> batch, final RuntimeException e) {
+    for (Write write : batch) {
+      write.result.completeExceptionally(e);
+    }
+  }
+
+  private static final class Write {
+    private final Document document;
+    private final boolean inserted;
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    Write(final Document document, final boolean inserted) {
+      this.document = document;
+      this.inserted = inserted;
+    }
+  }
+}
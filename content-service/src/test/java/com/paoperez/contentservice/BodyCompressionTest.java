@@ -0,0 +1,72 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+
+public class BodyCompressionTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final BodyCompression compression = new BodyCompression(64, meterRegistry);
+
+  @Test
+  void onBeforeSave_whenLongBody_shouldStoreDeflatedAndLoadText() {
+    String body = repeat("Lorem ipsum dolor sit amet. ", 100);
+    Document document = new Document("title", "Blog A").append("body", body);
+
+    compression.onBeforeSave(new BeforeSaveEvent<>(new Content(), document, "Content"));
+
+    assertTrue(BodyCompression.isDeflated(document.get("body")));
+    assertTrue(((Binary) document.get("body")).length() < body.length() / 10);
+    assertEquals(body.length() - ((Binary) document.get("body")).length(),
+        meterRegistry.get("content.body.compression.saved").counter().count());
+
+    compression.onAfterLoad(new AfterLoadEvent<>(document, Content.class, "Content"));
+
+    assertEquals(body, document.get("body"));
+    assertEquals(1, meterRegistry.get("content.body.inflation").timer().count());
+  }
+
+  @Test
+  void onBeforeSave_whenShortBody_shouldStoreText() {
+    Document document = new Document("body", "Lorem ipsum dolor");
+
+    compression.onBeforeSave(new BeforeSaveEvent<>(new Content(), document, "Content"));
+
+    assertEquals("Lorem ipsum dolor", document.get("body"));
+  }
+
+  @Test
+  void encode_whenDeflatingDoesNotPayOff_shouldKeepText() {
+    StringBuilder body = new StringBuilder();
+    for (char c = '!'; c <= '~'; c++) {
+      body.append(c);
+    }
+
+    assertEquals(body.toString(), compression.encode(body.toString()));
+    assertEquals(1, meterRegistry.get("content.body.stored").tag("encoding", "plain")
+        .summary().count());
+  }
+
+  @Test
+  void onAfterLoad_whenBodyNotFetched_shouldLeaveDocument() {
+    Document document = new Document("title", "Blog A");
+
+    compression.onAfterLoad(new AfterLoadEvent<>(document, Content.class, "Content"));
+
+    assertEquals(new Document("title", "Blog A"), document);
+  }
+
+  private static String repeat(final String text, final int times) {
+    StringBuilder repeated = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      repeated.append(text);
+    }
+    return repeated.toString();
+  }
+}
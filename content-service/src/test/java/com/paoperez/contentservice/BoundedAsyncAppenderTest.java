@@ -0,0 +1,97 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BoundedAsyncAppenderTest {
+  private static final long SINK_DELAY_MILLIS = 10;
+
+  private final LoggerContext context = new LoggerContext();
+  private final Logger logger = context.getLogger(BoundedAsyncAppenderTest.class);
+  private final ThrottledSink sink = new ThrottledSink();
+  private final BoundedAsyncAppender appender = new BoundedAsyncAppender();
+
+  @BeforeEach
+  void init() {
+    sink.setContext(context);
+    sink.start();
+    appender.setContext(context);
+    appender.setName("ASYNC_TEST");
+    appender.setQueueSize(16);
+    appender.setMaxFlushTime(0);
+    appender.addAppender(sink);
+    appender.start();
+    context.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+  }
+
+  @Test
+  void append_whenSinkThrottled_shouldNotDelayRequests() {
+    int requests = 500;
+
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      logger.info("Handled request {}", i);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    appender.stop();
+
+    // Writing every line synchronously would take requests * SINK_DELAY_MILLIS = 5 s
+    assertTrue(elapsedMillis < 500, "took " + elapsedMillis + " ms");
+    assertTrue(appender.getDroppedCount() > 0);
+    assertEquals(requests, sink.written.get() + appender.getDroppedCount());
+  }
+
+  @Test
+  void append_whenQueueFullOfWarnings_shouldBlockInsteadOfDropping() {
+    int warnings = 40;
+
+    for (int i = 0; i < warnings; i++) {
+      logger.warn("Warning {}", i);
+    }
+    appender.stop();
+
+    assertEquals(0, appender.getDroppedCount());
+    assertEquals(warnings, sink.written.get());
+  }
+
+  @Test
+  void bindTo_shouldRegisterQueueAndDropMeters() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    appender.setBlockLevel("OFF");
+    for (int i = 0; i < 40; i++) {
+      logger.error("Error {}", i);
+    }
+
+    new AsyncLogMetrics(context).bindTo(registry);
+
+    assertEquals(16,
+        registry.get("logging.queue.capacity").tag("appender", "ASYNC_TEST").gauge().value());
+    assertTrue(registry.get("logging.queue.depth").gauge().value() > 0);
+    assertTrue(registry.get("logging.events.dropped").functionCounter().count() > 0);
+    appender.stop();
+  }
+
+  private static final class ThrottledSink extends AppenderBase<ILoggingEvent> {
+    private final AtomicInteger written = new AtomicInteger();
+
+    @Override
+    protected void append(final ILoggingEvent event) {
+      try {
+        TimeUnit.MILLISECONDS.sleep(SINK_DELAY_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      written.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+public class ContentChangePublisherTest {
+  private final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+  private HttpServer graphql;
+  private ContentChangePublisher publisher;
+
+  @BeforeEach
+  void init() throws IOException {
+    graphql = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    graphql.createContext("/actuator/contentchanges", exchange -> {
+      try (Scanner body =
+          new Scanner(exchange.getRequestBody(), StandardCharsets.UTF_8.name())) {
+        changes.add(exchange.getRequestMethod() + " " + body.useDelimiter("\\A").next());
+      }
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    graphql.start();
+
+    // Nothing listens on the public port, the actuator is on the management port
+    SimpleDiscoveryProperties.SimpleServiceInstance instance =
+        new SimpleDiscoveryProperties.SimpleServiceInstance(URI.create("http://localhost:1"));
+    instance.getMetadata().put("management.port",
+        String.valueOf(graphql.getAddress().getPort()));
+    SimpleDiscoveryProperties properties = new SimpleDiscoveryProperties();
+    properties.getInstances().put("graphql-service", Collections.singletonList(instance));
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("discoveryClient", new SimpleDiscoveryClient(properties));
+    publisher = new ContentChangePublisher(beanFactory.getBeanProvider(DiscoveryClient.class),
+        "graphql-service");
+  }
+
+  @AfterEach
+  void stop() {
+    graphql.stop(0);
+  }
+
+  @Test
+  void onAfterSave_shouldPublishSavedContent() throws InterruptedException {
+    Content content = new Content();
+    content.setId("A");
+
+    publisher.onAfterSave(new AfterSaveEvent<>(content, new Document(), "Content"));
+
+    assertEquals("POST {\"id\":\"A\",\"type\":\"SAVED\"}", changes.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void onAfterDelete_shouldPublishDeletedContent() throws InterruptedException {
+    publisher.onAfterDelete(
+        new AfterDeleteEvent<>(new Document("_id", "B"), Content.class, "Content"));
+
+    assertEquals("POST {\"id\":\"B\",\"type\":\"DELETED\"}", changes.poll(5, TimeUnit.SECONDS));
+  }
+}
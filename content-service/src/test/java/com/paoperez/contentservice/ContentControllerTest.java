@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.Date;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -26,7 +27,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-@WebMvcTest
+@WebMvcTest(ContentController.class)
 class ContentControllerTest {
         @Autowired
         private MockMvc mockMvc;
@@ -93,6 +94,91 @@ class ContentControllerTest {
                 verify(contentMapper, times(1)).contentsToContentDTOs(contents);
         }
 
+        @Test
+        void getAllContents_whenFields_shouldReturnOnlyThoseFields() throws Exception {
+                Content content = new Content();
+                content.setId("A");
+                content.setTitle("Blog A");
+                content.setRank(1);
+                Collection<Content> contents = ImmutableList.of(content);
+                when(service.getAllContents(ImmutableSet.of("title", "rank")))
+                                .thenReturn(contents);
+                ContentDTO contentDto = new ContentDTO();
+                contentDto.setId("A");
+                contentDto.setTitle("Blog A");
+                contentDto.setRank(1);
+                when(contentMapper.contentsToContentDTOs(contents))
+                                .thenReturn(ImmutableList.of(contentDto));
+
+                this.mockMvc.perform(get("/contents").param("fields", "title,rank")
+                                .contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data[0].title").value("Blog A"))
+                                .andExpect(jsonPath("$.data[0].rank").value(1))
+                                .andExpect(jsonPath("$.data[0].body").doesNotExist())
+                                .andExpect(jsonPath("$.data[0].imageId").doesNotExist());
+
+                verify(service, times(0)).getAllContents();
+                verify(service, times(1)).getAllContents(ImmutableSet.of("title", "rank"));
+        }
+
+        @Test
+        void getAllContents_whenTop_shouldReturnTopContents() throws Exception {
+                Content content = new Content();
+                content.setId("A");
+                content.setRank(1);
+                Collection<Content> contents = ImmutableList.of(content);
+                when(service.getTopContents(1, ImmutableSet.of("rank"))).thenReturn(contents);
+                ContentDTO contentDto = new ContentDTO();
+                contentDto.setId("A");
+                contentDto.setRank(1);
+                when(contentMapper.contentsToContentDTOs(contents))
+                                .thenReturn(ImmutableList.of(contentDto));
+
+                this.mockMvc.perform(get("/contents").param("fields", "rank").param("top", "1")
+                                .contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data[0].rank").value(1));
+
+                verify(service, times(0)).getAllContents(ImmutableSet.of("rank"));
+        }
+
+        @Test
+        void getAllContents_whenTopNotPositive_shouldReturnBadRequest() throws Exception {
+                this.mockMvc.perform(get("/contents").param("top", "0")
+                                .contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void getAllContents_whenCategoryIds_shouldReturnPageOfEachCategory() throws Exception {
+                Content content = new Content();
+                content.setId("A");
+                content.setCategoryId("X");
+                Collection<Content> contents = ImmutableList.of(content);
+                when(service.getContentsByCategory(ImmutableSet.of("X", "Y"), 3, 7,
+                                ImmutableSet.of("categoryId"))).thenReturn(contents);
+                ContentDTO contentDto = new ContentDTO();
+                contentDto.setId("A");
+                contentDto.setCategoryId("X");
+                when(contentMapper.contentsToContentDTOs(contents))
+                                .thenReturn(ImmutableList.of(contentDto));
+
+                this.mockMvc.perform(get("/contents").param("categoryIds", "X,Y")
+                                .param("first", "3").param("after", "7")
+                                .param("fields", "categoryId")
+                                .contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.data[0].categoryId").value("X"));
+        }
+
+        @Test
+        void getAllContents_whenCategoryAndAvatarIds_shouldReturnBadRequest() throws Exception {
+                this.mockMvc.perform(get("/contents").param("categoryIds", "X")
+                                .param("avatarIds", "Y").contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(status().isBadRequest());
+        }
+
         @Test
         void getContent_whenExistingId_shouldReturnOk() throws Exception {
                 long created = new Date().toInstant().toEpochMilli();
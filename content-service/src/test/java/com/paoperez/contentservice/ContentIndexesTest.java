@@ -0,0 +1,33 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+public class ContentIndexesTest {
+  @Test
+  void ensure_shouldIndexRankAndRankWithinCategoryAndAvatar() {
+    IndexOperations indexOps = mock(IndexOperations.class);
+
+    ContentIndexes.ensure(indexOps);
+
+    ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+    verify(indexOps, times(3)).ensureIndex(indexes.capture());
+    List<Document> keys = indexes.getAllValues().stream().map(IndexDefinition::getIndexKeys)
+        .collect(Collectors.toList());
+    assertEquals(Arrays.asList(new Document("rank", 1),
+        new Document("categoryId", 1).append("rank", 1),
+        new Document("avatarId", 1).append("rank", 1)), keys);
+    assertEquals(true, indexes.getAllValues().get(0).getIndexOptions().get("unique"));
+  }
+}
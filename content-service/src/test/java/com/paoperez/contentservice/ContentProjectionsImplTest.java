@@ -0,0 +1,56 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import com.google.common.collect.ImmutableList;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+public class ContentProjectionsImplTest {
+  private final MongoOperations operations = mock(MongoOperations.class);
+  private final ContentProjections projections = new ContentProjectionsImpl(operations);
+
+  @Test
+  void findAll_shouldProjectIdAndKnownFields() {
+    projections.findAll(ImmutableList.of("title", "rank", "$where"));
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(operations).find(query.capture(), eq(Content.class));
+    assertEquals(new Document("id", 1).append("title", 1).append("rank", 1),
+        query.getValue().getFieldsObject());
+  }
+
+  @Test
+  void findRankedBy_shouldQueryRankRangeOfEachValue() {
+    projections.findRankedBy("categoryId", ImmutableList.of("X", "Y"), 10, 5, null);
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(operations, times(2)).find(query.capture(), eq(Content.class));
+    Query first = query.getAllValues().get(0);
+    assertEquals(new Document("categoryId", "X").append("rank", new Document("$gt", 5)),
+        first.getQueryObject());
+    assertEquals(new Document("rank", 1), first.getSortObject());
+    assertEquals(10, first.getLimit());
+    assertEquals(new Document(), first.getFieldsObject());
+    assertEquals(new Document("categoryId", "Y").append("rank", new Document("$gt", 5)),
+        query.getAllValues().get(1).getQueryObject());
+  }
+
+  @Test
+  void findById_whenMissing_shouldReturnEmpty() {
+    assertFalse(projections.findById("Z", ImmutableList.of("body")).isPresent());
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(operations).findOne(query.capture(), any());
+    assertEquals(new Document("id", "Z"), query.getValue().getQueryObject());
+    assertEquals(new Document("id", 1).append("body", 1), query.getValue().getFieldsObject());
+  }
+}
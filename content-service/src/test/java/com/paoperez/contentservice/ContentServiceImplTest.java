@@ -2,6 +2,8 @@ package com.paoperez.contentservice;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -10,6 +12,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,13 +23,16 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 @ExtendWith(SpringExtension.class)
 class ContentServiceImplTest {
   private ContentService service;
+  private RankIndex rankIndex;
 
   @MockBean
   private ContentRepository repository;
 
   @BeforeEach
   void init() {
-    service = new ContentServiceImpl(repository);
+    rankIndex = RankIndexTest.read(new Document("_id", "A").append("rank", 2),
+        new Document("_id", "B").append("rank", 1), new Document("_id", "C").append("rank", 3));
+    service = new ContentServiceImpl(repository, rankIndex);
   }
 
   @Test
@@ -58,6 +65,30 @@ class ContentServiceImplTest {
     verify(repository, times(1)).findAll();
   }
 
+  @Test
+  void getTopContents_shouldFetchIndexedContentsInRankOrder() {
+    Content contentA = new Content();
+    contentA.setId("A");
+    contentA.setTitle("Blog A");
+    Content contentB = new Content();
+    contentB.setId("B");
+    contentB.setTitle("Blog B");
+    when(repository.findAllById(ImmutableList.of("B", "A"), ImmutableSet.of("title")))
+        .thenReturn(ImmutableList.of(contentA, contentB));
+
+    Collection<Content> actual = service.getTopContents(2, ImmutableSet.of("title"));
+
+    assertEquals(ImmutableList.of(contentB, contentA), actual);
+  }
+
+  @Test
+  void getTopContents_whenOnlyIdAndRank_shouldNotQuery() {
+    Collection<Content> actual = service.getTopContents(2, ImmutableSet.of("rank"));
+
+    assertEquals(ImmutableList.of("B", "A"), RankIndexTest.ids((List<Content>) actual));
+    verify(repository, never()).findAllById(any(), any());
+  }
+
   @Test
   void getContent_whenExistingId_shouldReturnContent() throws ContentNotFoundException {
     long created = new Date().toInstant().toEpochMilli();
@@ -118,6 +149,7 @@ class ContentServiceImplTest {
 
     assertEquals(expected.getId(), actual);
     verify(repository, times(1)).save(content);
+    assertEquals(ImmutableList.of("A", "B"), RankIndexTest.ids(rankIndex.top(2)));
   }
 
   @Test
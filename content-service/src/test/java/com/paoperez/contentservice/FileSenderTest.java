@@ -0,0 +1,43 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesDecoder;
+import zipkin2.reporter.AsyncReporter;
+
+public class FileSenderTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void sendSpans_whenReported_shouldAppendOneSpanPerLine() throws IOException {
+    Path path = directory.resolve("spans/content-spans.json");
+    FileSender sender = new FileSender(path, 1024 * 1024);
+    AsyncReporter<Span> reporter = AsyncReporter.builder(sender).build();
+
+    reporter.report(span("1", "find"));
+    reporter.report(span("2", "insert"));
+    reporter.flush();
+    reporter.close();
+    sender.close();
+
+    List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertEquals("find",
+        SpanBytesDecoder.JSON_V2.decodeOne(lines.get(0).getBytes(StandardCharsets.UTF_8)).name());
+    assertEquals("insert",
+        SpanBytesDecoder.JSON_V2.decodeOne(lines.get(1).getBytes(StandardCharsets.UTF_8)).name());
+  }
+
+  private static Span span(final String id, final String name) {
+    return Span.newBuilder().traceId("a").id(id).name(name).timestamp(1L).duration(1L).build();
+  }
+}
@@ -0,0 +1,74 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+public class GraphQLCachePurgeTest {
+  private final BlockingQueue<String> purges = new LinkedBlockingQueue<>();
+  private HttpServer graphql;
+  private GraphQLCachePurge purge;
+
+  @BeforeEach
+  void init() throws IOException {
+    graphql = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    graphql.createContext("/actuator/graphqlcache", exchange -> {
+      purges.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getQuery());
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    graphql.start();
+
+    // Nothing listens on the public port, the actuator is on the management port
+    SimpleDiscoveryProperties.SimpleServiceInstance instance =
+        new SimpleDiscoveryProperties.SimpleServiceInstance(URI.create("http://localhost:1"));
+    instance.getMetadata().put("management.port",
+        String.valueOf(graphql.getAddress().getPort()));
+    SimpleDiscoveryProperties properties = new SimpleDiscoveryProperties();
+    properties.getInstances().put("graphql-service", Collections.singletonList(instance));
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    beanFactory.addBean("discoveryClient", new SimpleDiscoveryClient(properties));
+    purge = new GraphQLCachePurge(beanFactory.getBeanProvider(DiscoveryClient.class),
+        "graphql-service");
+  }
+
+  @AfterEach
+  void stop() {
+    graphql.stop(0);
+  }
+
+  @Test
+  void onAfterSave_shouldPurgeContentAndListOfContents() throws InterruptedException {
+    Content content = new Content();
+    content.setId("A");
+
+    purge.onAfterSave(new AfterSaveEvent<>(content, new Document(), "Content"));
+
+    assertEquals("DELETE tag=Content:A&tag=Contents", purges.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void onAfterDelete_shouldPurgeContent() throws InterruptedException {
+    purge.onAfterDelete(
+        new AfterDeleteEvent<>(new Document("_id", "B"), Content.class, "Content"));
+
+    assertEquals("DELETE tag=Content:B", purges.poll(5, TimeUnit.SECONDS));
+  }
+}
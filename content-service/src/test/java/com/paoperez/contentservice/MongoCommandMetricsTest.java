@@ -0,0 +1,70 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.Repository;
+
+public class MongoCommandMetricsTest {
+  private static final ConnectionDescription CONNECTION =
+      new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final MongoCommandMetrics metrics = new MongoCommandMetrics(meterRegistry);
+
+  @Test
+  void commandSucceeded_whenSentFromRepository_shouldTagItsMethod() {
+    Contents contents = (Contents) new RepositoryMethods()
+        .postProcessAfterInitialization((Contents) () -> send(1, "find",
+            new BsonDocument("find", new BsonString("Content"))), "contents");
+
+    contents.findSomething();
+
+    assertEquals(1, meterRegistry.get("mongodb.driver.commands").tag("command", "find")
+        .tag("collection", "Content").tag("method", "Contents.findSomething")
+        .tag("status", "success").timer().count());
+    assertEquals(RepositoryMethods.NONE, RepositoryMethods.current());
+  }
+
+  @Test
+  void commandFailed_whenNotFromRepository_shouldTagNone() {
+    BsonDocument getMore =
+        new BsonDocument("getMore", new BsonInt64(42)).append("collection", new BsonString("C"));
+    metrics.commandStarted(new CommandStartedEvent(2, CONNECTION, "db", "getMore", getMore));
+
+    metrics.commandFailed(new CommandFailedEvent(2, CONNECTION, "getMore",
+        TimeUnit.MILLISECONDS.toNanos(3), new IllegalStateException()));
+
+    assertEquals(3, meterRegistry.get("mongodb.driver.commands").tag("collection", "C")
+        .tag("method", RepositoryMethods.NONE).tag("status", "failed").timer()
+        .totalTime(TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void collection_whenDatabaseCommand_shouldBeNone() {
+    assertEquals("none", MongoCommandMetrics.collection("ping",
+        new BsonDocument("ping", new BsonInt64(1))));
+  }
+
+  private void send(final int requestId, final String name, final BsonDocument command) {
+    metrics.commandStarted(new CommandStartedEvent(requestId, CONNECTION, "db", name, command));
+    metrics.commandSucceeded(new CommandSucceededEvent(requestId, CONNECTION, name,
+        new BsonDocument(), 1000));
+  }
+
+  interface Contents extends Repository<Content, String> {
+    void findSomething();
+  }
+}
@@ -0,0 +1,91 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracer.SpanInScope;
+import brave.Tracing;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.sleuth.util.ArrayListSpanReporter;
+import org.springframework.data.repository.Repository;
+
+public class MongoCommandTracingTest {
+  private static final ConnectionDescription CONNECTION =
+      new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress("content-db")));
+  private static final BsonDocument FIND = new BsonDocument("find", new BsonString("Content"));
+
+  private final ArrayListSpanReporter spans = new ArrayListSpanReporter();
+  private final Tracing tracing =
+      Tracing.newBuilder().localServiceName("content-service").spanReporter(spans).build();
+  private final Tracer tracer = tracing.tracer();
+  private final MongoCommandTracing commandTracing = new MongoCommandTracing(tracer);
+
+  @AfterEach
+  void close() {
+    tracing.close();
+  }
+
+  @Test
+  void commandSucceeded_whenInTrace_shouldReportChildSpan() {
+    Contents contents = (Contents) new RepositoryMethods().postProcessAfterInitialization(
+        (Contents) () -> {
+          commandTracing.commandStarted(new CommandStartedEvent(1, CONNECTION, "db", "find",
+              FIND));
+          commandTracing.commandSucceeded(new CommandSucceededEvent(1, CONNECTION, "find",
+              new BsonDocument(), 1000));
+        }, "contents");
+
+    Span request = tracer.newTrace().name("get /contents").start();
+    try (SpanInScope scope = tracer.withSpanInScope(request)) {
+      contents.findSomething();
+    }
+
+    assertEquals(1, spans.getSpans().size());
+    zipkin2.Span span = spans.getSpans().get(0);
+    assertEquals("find", span.name());
+    assertEquals(zipkin2.Span.Kind.CLIENT, span.kind());
+    assertEquals(request.context().spanIdString(), span.parentId());
+    assertEquals("mongodb", span.remoteServiceName());
+    assertEquals("Content", span.tags().get("mongodb.collection"));
+    assertEquals("Contents.findSomething", span.tags().get("mongodb.method"));
+    assertEquals("content-db:27017", span.tags().get("mongodb.server"));
+  }
+
+  @Test
+  void commandFailed_whenInTrace_shouldReportError() {
+    Span request = tracer.newTrace().name("get /contents").start();
+    try (SpanInScope scope = tracer.withSpanInScope(request)) {
+      commandTracing.commandStarted(new CommandStartedEvent(2, CONNECTION, "db", "find", FIND));
+      commandTracing.commandFailed(new CommandFailedEvent(2, CONNECTION, "find", 1000,
+          new IllegalStateException("Timed out")));
+    }
+
+    assertEquals(1, spans.getSpans().size());
+    assertTrue(spans.getSpans().get(0).tags().get("error").contains("Timed out"));
+  }
+
+  @Test
+  void commandStarted_whenNotInTrace_shouldNotTrace() {
+    commandTracing.commandStarted(new CommandStartedEvent(3, CONNECTION, "db", "find", FIND));
+    commandTracing.commandSucceeded(new CommandSucceededEvent(3, CONNECTION, "find",
+        new BsonDocument(), 1000));
+
+    assertTrue(spans.getSpans().isEmpty());
+  }
+
+  interface Contents extends Repository<Content, String> {
+    void findSomething();
+  }
+}
@@ -0,0 +1,63 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class MongoPoolMetricsTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final MongoPoolMetrics metrics = new MongoPoolMetrics(meterRegistry);
+  private final ServerId serverId = new ServerId(new ClusterId(), new ServerAddress());
+  private final ConnectionId connectionId = new ConnectionId(serverId);
+
+  @Test
+  void connectionCheckedOut_shouldCountItInUseAndTimeTheWait() {
+    metrics.connectionPoolCreated(new ConnectionPoolCreatedEvent(serverId,
+        ConnectionPoolSettings.builder().maxSize(10).build()));
+    metrics.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId));
+
+    assertEquals(1, gauge("mongodb.driver.pool.waitqueuesize"));
+
+    metrics.connectionCreated(new ConnectionCreatedEvent(connectionId));
+    metrics.connectionCheckedOut(new ConnectionCheckedOutEvent(connectionId));
+
+    assertEquals(10, gauge("mongodb.driver.pool.max"));
+    assertEquals(1, gauge("mongodb.driver.pool.size"));
+    assertEquals(1, gauge("mongodb.driver.pool.checkedout"));
+    assertEquals(0, gauge("mongodb.driver.pool.waitqueuesize"));
+    assertEquals(1, meterRegistry.get("mongodb.driver.pool.checkout").tag("result", "success")
+        .timer().count());
+
+    metrics.connectionCheckedIn(new ConnectionCheckedInEvent(connectionId));
+
+    assertEquals(0, gauge("mongodb.driver.pool.checkedout"));
+  }
+
+  @Test
+  void connectionPoolClosed_shouldRemoveItsGauges() {
+    metrics.connectionPoolCreated(new ConnectionPoolCreatedEvent(serverId,
+        ConnectionPoolSettings.builder().build()));
+
+    metrics.connectionPoolClosed(new ConnectionPoolClosedEvent(serverId));
+
+    assertNull(meterRegistry.find("mongodb.driver.pool.size").gauge());
+  }
+
+  private double gauge(final String name) {
+    return meterRegistry.get(name).tag("server.address", serverId.getAddress().toString())
+        .gauge().value();
+  }
+}
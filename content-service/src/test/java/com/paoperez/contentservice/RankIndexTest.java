@@ -0,0 +1,115 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+public class RankIndexTest {
+  private final MongoOperations operations = mock(MongoOperations.class);
+  private final RankIndex index = new RankIndex(operations, 0, new SimpleMeterRegistry());
+
+  @Test
+  void top_whenNotRead_shouldReturnNull() {
+    index.put("A", 1);
+
+    assertNull(index.top(10));
+  }
+
+  @Test
+  void top_shouldReturnLowestRanksInOrder() {
+    ObjectId id = new ObjectId();
+    stored(operations, new Document("_id", id).append("rank", 2),
+        new Document("_id", "B").append("rank", 3), new Document("_id", "C").append("rank", 1));
+
+    index.rebuild();
+
+    assertEquals(Arrays.asList("C", id.toHexString()), ids(index.top(2)));
+    assertEquals(2, index.top(2).get(1).getRank());
+    assertEquals(3, index.top(10).size());
+  }
+
+  @Test
+  void put_shouldMoveAndRemoveContents() {
+    stored(operations, new Document("_id", "A").append("rank", 1),
+        new Document("_id", "B").append("rank", 2));
+    index.rebuild();
+
+    index.put("A", 3);
+    index.put("C", 0);
+    index.remove("B");
+    index.put("D", null);
+
+    assertEquals(Arrays.asList("C", "A"), ids(index.top(10)));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  void rebuild_whenSavedWhileReading_shouldKeepChanges() {
+    Iterator<Document> documents = Arrays.asList(new Document("_id", "A").append("rank", 1),
+        new Document("_id", "B").append("rank", 2)).iterator();
+    MongoCursor<Document> cursor = cursor(operations);
+    when(cursor.hasNext()).thenAnswer(invocation -> documents.hasNext());
+    when(cursor.next()).thenAnswer(invocation -> {
+      Document next = documents.next();
+      if ("B".equals(next.get("_id"))) {
+        // Saved by a request after A was read
+        index.put("A", 5);
+        index.put("C", 3);
+      }
+      return next;
+    });
+
+    index.rebuild();
+
+    assertEquals(Arrays.asList("B", "C", "A"), ids(index.top(10)));
+  }
+
+  /**
+   * @return RankIndex - An index read from the given documents.
+   */
+  static RankIndex read(final Document... documents) {
+    MongoOperations operations = mock(MongoOperations.class);
+    RankIndex index = new RankIndex(operations, 0, new SimpleMeterRegistry());
+    stored(operations, documents);
+    index.rebuild();
+    return index;
+  }
+
+  static List<String> ids(final List<Content> contents) {
+    return contents.stream().map(Content::getId).collect(Collectors.toList());
+  }
+
+  private static void stored(final MongoOperations operations, final Document... documents) {
+    Iterator<Document> iterator = Arrays.asList(documents).iterator();
+    MongoCursor<Document> cursor = cursor(operations);
+    when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+    when(cursor.next()).thenAnswer(invocation -> iterator.next());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MongoCursor<Document> cursor(final MongoOperations operations) {
+    MongoCollection<Document> collection = mock(MongoCollection.class, RETURNS_DEEP_STUBS);
+    MongoCursor<Document> cursor = mock(MongoCursor.class);
+    when(operations.getCollectionName(Content.class)).thenReturn("Content");
+    when(operations.getCollection("Content")).thenReturn(collection);
+    when(collection.find(any(Bson.class)).projection(any()).batchSize(anyInt()).iterator())
+        .thenReturn(cursor);
+    return cursor;
+  }
+}
@@ -0,0 +1,149 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.DbCallback;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+public class SlowCommandsTest {
+  private static final ConnectionDescription CONNECTION =
+      new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final MongoOperations operations = mock(MongoOperations.class);
+  private SlowCommands slowCommands;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void init() {
+    ObjectProvider<MongoOperations> provider = mock(ObjectProvider.class);
+    when(provider.getObject()).thenReturn(operations);
+    Document winningPlan = new Document("stage", "FETCH")
+        .append("filter", new Document("categoryId", new Document("$in", Arrays.asList("a", "b"))))
+        .append("inputStage", new Document("stage", "IXSCAN")
+            .append("keyPattern", new Document("rank", 1))
+            .append("indexBounds", new Document("rank", Arrays.asList("(5, inf.0]"))));
+    when(operations.execute(anyCallback()))
+        .thenReturn(new Document("queryPlanner", new Document("winningPlan", winningPlan)));
+    slowCommands = new SlowCommands(provider, 100, 2, meterRegistry);
+  }
+
+  @Test
+  void commandSucceeded_whenSlowAgain_shouldKeepItsShapeAndExplainIt() throws Exception {
+    send(1, find(3, "z"), 150);
+    send(2, find(5, "a", "b"), 150);
+    send(3, find(7, "c"), 150);
+
+    verify(operations, timeout(5000)).execute(anyCallback());
+    List<Map<String, Object>> commands = waitForPlans();
+    assertEquals(2, commands.size());
+    Map<String, Object> slow = commands.get(0);
+    assertEquals("find", slow.get("command"));
+    assertEquals("Content", slow.get("collection"));
+    assertEquals(150L, slow.get("millis"));
+    assertEquals("{\"find\": \"Content\", \"filter\": {\"rank\": {\"$gt\": \"?\"}, "
+        + "\"categoryId\": {\"$in\": \"?\"}}, \"sort\": {\"rank\": 1}}", slow.get("shape"));
+    // Without the values of the command explained
+    assertEquals("{\"stage\":\"FETCH\",\"filter\":{\"categoryId\":{\"$in\":\"?\"}},"
+        + "\"inputStage\":{\"stage\":\"IXSCAN\",\"keyPattern\":{\"rank\":1},"
+        + "\"indexBounds\":{\"rank\":\"?\"}}}", slow.get("plan").toString());
+    // Both have the same shape, which is explained once
+    verify(operations, times(1)).execute(anyCallback());
+    assertEquals(3, meterRegistry.get("mongodb.driver.commands.slow").counter().count());
+  }
+
+  @Test
+  void commandSucceeded_whenFirstSlow_shouldKeepItWithoutShape() {
+    send(1, find(5, "a"), 99);
+    send(2, find(5, "a"), 150);
+
+    List<Map<String, Object>> commands = slowCommands.commands();
+    assertEquals(1, commands.size());
+    assertEquals("find", commands.get(0).get("command"));
+    assertNull(commands.get(0).get("shape"));
+  }
+
+  @Test
+  void commandSucceeded_whenFast_shouldKeepNothing() {
+    send(1, find(5, "a"), 99);
+
+    assertTrue(slowCommands.commands().isEmpty());
+  }
+
+  @Test
+  void commandSucceeded_whenMoreThanCapacity_shouldDropOldest() {
+    for (int i = 1; i <= 3; i++) {
+      send(i, new BsonDocument("insert", new BsonString("Content")), 100 + i);
+    }
+
+    List<Map<String, Object>> commands = slowCommands.commands();
+    assertEquals(2, commands.size());
+    assertEquals(103L, commands.get(0).get("millis"));
+    assertEquals(102L, commands.get(1).get("millis"));
+    assertNull(commands.get(0).get("shape"));
+  }
+
+  private static DbCallback<Document> anyCallback() {
+    return any();
+  }
+
+  private void send(final int requestId, final BsonDocument command, final long millis) {
+    String name = command.getFirstKey();
+    slowCommands.commandStarted(new CommandStartedEvent(requestId, CONNECTION, "db", name,
+        command));
+    slowCommands.commandSucceeded(new CommandSucceededEvent(requestId, CONNECTION, name,
+        new BsonDocument(), TimeUnit.MILLISECONDS.toNanos(millis)));
+  }
+
+  private List<Map<String, Object>> waitForPlans() throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      List<Map<String, Object>> commands = slowCommands.commands();
+      if (commands.stream().allMatch(command -> command.get("plan") != null
+          && !((JsonNode) command.get("plan")).isNull())) {
+        return commands;
+      }
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+    return slowCommands.commands();
+  }
+
+  private static BsonDocument find(final int rank, final String... categoryIds) {
+    BsonArray in = new BsonArray();
+    for (String categoryId : categoryIds) {
+      in.add(new BsonString(categoryId));
+    }
+    return new BsonDocument("find", new BsonString("Content"))
+        .append("filter", new BsonDocument("rank", new BsonDocument("$gt", new BsonInt32(rank)))
+            .append("categoryId", new BsonDocument("$in", in)))
+        .append("sort", new BsonDocument("rank", new BsonInt32(1)))
+        .append("$db", new BsonString("contentually"));
+  }
+}
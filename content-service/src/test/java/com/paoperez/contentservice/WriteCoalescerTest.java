@@ -0,0 +1,239 @@
+package com.paoperez.contentservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+
+public class WriteCoalescerTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final List<Object> events = new CopyOnWriteArrayList<>();
+  private final List<List<WriteModel<Document>>> bulkWrites = new CopyOnWriteArrayList<>();
+  private final ExecutorService callers = Executors.newCachedThreadPool();
+  private MongoCollection<Document> collection;
+  private MongoOperations operations;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void init() {
+    MappingMongoConverter converter =
+        new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+    converter.afterPropertiesSet();
+    collection = mock(MongoCollection.class);
+    when(collection.bulkWrite(anyList(), any())).thenAnswer(invocation -> {
+      bulkWrites.add(new ArrayList<>(invocation.getArgument(0)));
+      return BulkWriteResult.unacknowledged();
+    });
+    operations = mock(MongoOperations.class);
+    when(operations.getConverter()).thenReturn(converter);
+    when(operations.getCollectionName(Content.class)).thenReturn("Content");
+    when(operations.getCollection("Content")).thenReturn(collection);
+  }
+
+  @AfterEach
+  void shutdown() {
+    callers.shutdownNow();
+  }
+
+  @Test
+  void save_whenConcurrent_shouldWriteOneBatch() throws Exception {
+    WriteCoalescer coalescer = coalescer(60000, 3);
+    String updatedId = new ObjectId().toHexString();
+
+    List<Future<Content>> saved = saveAll(coalescer, content(null, 1), content(null, 2),
+        content(updatedId, 3));
+
+    assertEquals(1, bulkWrites.size());
+    assertEquals(3, bulkWrites.get(0).size());
+    assertEquals(2, bulkWrites.get(0).stream().filter(InsertOneModel.class::isInstance).count());
+    assertEquals(1, bulkWrites.get(0).stream().filter(ReplaceOneModel.class::isInstance).count());
+    for (Future<Content> content : saved) {
+      assertNotNull(content.get().getId());
+    }
+    assertEquals(updatedId, saved.get(2).get().getId());
+    assertEquals(3, events.stream().filter(BeforeSaveEvent.class::isInstance).count());
+    assertEquals(3, events.stream().filter(AfterSaveEvent.class::isInstance).count());
+    assertEquals(3, meterRegistry.get("content.write.coalescing.batch").summary().totalAmount());
+  }
+
+  @Test
+  void save_whenOneWriteFails_shouldFailItOnly() throws Exception {
+    when(collection.bulkWrite(anyList(), any())).thenAnswer(invocation -> {
+      List<WriteModel<Document>> models = invocation.getArgument(0);
+      for (int i = 0; i < models.size(); i++) {
+        if (((InsertOneModel<Document>) models.get(i)).getDocument().getInteger("rank") == 2) {
+          throw new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+              Collections.singletonList(new BulkWriteError(11000, "E11000 duplicate key",
+                  new BsonDocument(), i)), null, new ServerAddress());
+        }
+      }
+      return BulkWriteResult.unacknowledged();
+    });
+    WriteCoalescer coalescer = coalescer(60000, 2);
+
+    List<Future<Content>> saved = saveAll(coalescer, content(null, 1), content(null, 2));
+
+    assertNotNull(saved.get(0).get().getId());
+    ExecutionException e = assertThrows(ExecutionException.class, () -> saved.get(1).get());
+    assertTrue(e.getCause() instanceof DuplicateKeyException);
+    assertEquals(1, events.stream().filter(AfterSaveEvent.class::isInstance).count());
+  }
+
+  @Test
+  void save_whenSameContentTwice_shouldWriteThemInSeparateBatches() throws Exception {
+    WriteCoalescer coalescer = coalescer(100, 10);
+    String id = new ObjectId().toHexString();
+
+    saveAll(coalescer, content(id, 1), content(id, 2));
+
+    assertEquals(2, bulkWrites.size());
+  }
+
+  @Test
+  void save_whenQueueFull_shouldWriteItOnItsOwn() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    blockFirstBulkWrite(writing, released);
+    WriteCoalescer coalescer = coalescer(0, 1, 1, 5000);
+
+    Future<Content> first = callers.submit(() -> coalescer.save(content(null, 1)));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    Future<Content> queued = callers.submit(() -> coalescer.save(content(null, 2)));
+    while (meterRegistry.get("content.write.coalescing.queued").gauge().value() < 1) {
+      Thread.sleep(10);
+    }
+    Content unbatched = coalescer.save(content(null, 3));
+    released.countDown();
+
+    assertNotNull(unbatched.getId());
+    assertEquals(1, meterRegistry.get("content.write.coalescing.unbatched").counter().count());
+    assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+    assertNotNull(queued.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(3, bulkWrites.size());
+  }
+
+  @Test
+  void save_whenNotInABatchInTime_shouldFailWithoutWritingIt() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    blockFirstBulkWrite(writing, released);
+    WriteCoalescer coalescer = coalescer(0, 1, 10, 100);
+
+    Future<Content> first = callers.submit(() -> coalescer.save(content(null, 1)));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    try {
+      assertThrows(QueryTimeoutException.class, () -> coalescer.save(content(null, 2)));
+    } finally {
+      released.countDown();
+    }
+
+    assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(0, meterRegistry.get("content.write.coalescing.queued").gauge().value());
+    assertEquals(1, bulkWrites.size());
+    assertEquals(1, events.stream().filter(AfterSaveEvent.class::isInstance).count());
+  }
+
+  @Test
+  void save_whenBatchWrittenPastTimeout_shouldWaitForIt() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    blockFirstBulkWrite(writing, released);
+    WriteCoalescer coalescer = coalescer(0, 1, 10, 100);
+
+    Future<Content> saved = callers.submit(() -> coalescer.save(content(null, 1)));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    Thread.sleep(300);
+    released.countDown();
+
+    assertNotNull(saved.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(1, bulkWrites.size());
+    assertEquals(1, events.stream().filter(AfterSaveEvent.class::isInstance).count());
+  }
+
+  private void blockFirstBulkWrite(final CountDownLatch writing, final CountDownLatch released) {
+    AtomicInteger calls = new AtomicInteger();
+    doAnswer(invocation -> {
+      if (calls.getAndIncrement() == 0) {
+        writing.countDown();
+        released.await();
+      }
+      bulkWrites.add(new ArrayList<>(invocation.getArgument(0)));
+      return BulkWriteResult.unacknowledged();
+    }).when(collection).bulkWrite(anyList(), any());
+  }
+
+  private WriteCoalescer coalescer(final long windowMillis, final int maxBatchSize) {
+    return coalescer(windowMillis, maxBatchSize, 1000, 5000);
+  }
+
+  private WriteCoalescer coalescer(final long windowMillis, final int maxBatchSize,
+      final int queueSize, final long timeoutMillis) {
+    return new WriteCoalescer(operations, events::add, windowMillis, maxBatchSize, queueSize,
+        timeoutMillis, meterRegistry);
+  }
+
+  private List<Future<Content>> saveAll(final WriteCoalescer coalescer,
+      final Content... contents) {
+    List<Future<Content>> saved = new ArrayList<>();
+    for (Content content : contents) {
+      saved.add(CompletableFuture.supplyAsync(() -> coalescer.save(content), callers));
+    }
+    for (Future<Content> content : saved) {
+      try {
+        content.get();
+      } catch (InterruptedException | ExecutionException e) {
+        // Checked by the test
+      }
+    }
+    return saved;
+  }
+
+  private static Content content(final String id, final int rank) {
+    Content content = new Content();
+    content.setId(id);
+    content.setTitle("Blog " + rank);
+    content.setRank(rank);
+    return content;
+  }
+}
@@ -0,0 +1,25 @@
+package com.paoperez.discoveryservice;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import java.nio.file.Paths;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+class DiscoveryConfig {
+  @Bean
+  RegistrySnapshot registrySnapshot(final PeerAwareInstanceRegistry registry,
+      @Value("${discovery.registry-snapshot:/var/lib/eureka/discovery-registry.json}")
+      final String path,
+      @Value("${discovery.registry-snapshot-interval:5000}") final long intervalMillis) {
+    return new RegistrySnapshot(registry, Paths.get(path), intervalMillis);
+  }
+
+  @Bean
+  AsyncLogMetrics asyncLogMetrics() {
+    return new AsyncLogMetrics((LoggerContext) LoggerFactory.getILoggerFactory());
+  }
+}
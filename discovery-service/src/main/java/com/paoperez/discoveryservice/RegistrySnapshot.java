@@ -0,0 +1,123 @@
+package com.paoperez.discoveryservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.jackson.EurekaJsonJacksonCodec;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cloud.netflix.eureka.server.event.EurekaRegistryAvailableEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Keeps the registry in a file so that a restarted server answers with the last known instances
+ * instead of an empty registry until every client has renewed. Restored instances that do not
+ * renew get evicted once their lease expires. They are restored before the server opens for
+ * traffic, which sets the renewals it expects from the instances it synced from peers, so that
+ * stale ones, e.g. of containers recreated under a new hostname, do not raise the
+ * self-preservation threshold and hold off their own eviction.
+ */
+class RegistrySnapshot implements SmartInitializingSingleton {
+  private static final Logger logger = LoggerFactory.getLogger(RegistrySnapshot.class);
+
+  private final ObjectMapper objectMapper =
+      new EurekaJsonJacksonCodec().getObjectMapper(Applications.class);
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+      runnable -> {
+        Thread thread = new Thread(runnable, "registry-snapshot");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private final PeerAwareInstanceRegistry registry;
+  private final Path path;
+  private final long intervalMillis;
+  private String saved = "";
+
+  RegistrySnapshot(final PeerAwareInstanceRegistry registry, final Path path,
+      final long intervalMillis) {
+    this.registry = registry;
+    this.path = path;
+    this.intervalMillis = intervalMillis;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    restore();
+  }
+
+  @EventListener(EurekaRegistryAvailableEvent.class)
+  void start() {
+    executor.scheduleWithFixedDelay(this::save, intervalMillis, intervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Registers every persisted instance that is not in the registry yet, e.g. from a peer.
+   */
+  void restore() {
+    if (!Files.exists(path)) {
+      return;
+    }
+
+    Applications applications;
+    try {
+      applications = objectMapper.readValue(path.toFile(), Applications.class);
+    } catch (IOException e) {
+      logger.warn("Ignoring unreadable registry snapshot {}", path, e);
+      return;
+    }
+
+    int restored = 0;
+    for (Application application : applications.getRegisteredApplications()) {
+      for (InstanceInfo instance : application.getInstances()) {
+        if (registry.getInstanceByAppAndId(instance.getAppName(), instance.getId()) == null) {
+          registry.register(instance, true);
+          restored++;
+        }
+      }
+    }
+    logger.info("Restored {} instances from {}", restored, path);
+  }
+
+  /**
+   * Writes the registry to the file if an instance was added, removed or changed status since the
+   * last save. Lease renewals alone do not count as a change.
+   */
+  synchronized void save() {
+    Applications applications = registry.getApplications();
+    String current = applications.getRegisteredApplications().stream()
+        .flatMap(application -> application.getInstances().stream())
+        .map(instance -> instance.getId() + "=" + instance.getStatus())
+        .sorted()
+        .collect(Collectors.joining(","));
+    if (current.equals(saved)) {
+      return;
+    }
+
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "registry", ".tmp");
+      objectMapper.writeValue(temp.toFile(), applications);
+      try {
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+      saved = current;
+    } catch (IOException e) {
+      logger.warn("Could not write registry snapshot {}", path, e);
+    }
+  }
+}
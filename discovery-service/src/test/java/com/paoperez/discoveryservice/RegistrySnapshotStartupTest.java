@@ -0,0 +1,58 @@
+package com.paoperez.discoveryservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.discovery.converters.jackson.EurekaJsonJacksonCodec;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest
+public class RegistrySnapshotStartupTest {
+  private static final String GHOST_ID = "old-container:content-service:8081";
+
+  @Autowired private PeerAwareInstanceRegistry registry;
+  @Autowired private EurekaServerConfig serverConfig;
+
+  @DynamicPropertySource
+  static void snapshot(final DynamicPropertyRegistry properties) throws IOException {
+    Path path = Files.createTempDirectory("registry").resolve("registry.json");
+    // An instance of a container since recreated under another hostname, that never renews
+    InstanceInfo ghost = InstanceInfo.Builder.newBuilder()
+        .setAppName("CONTENT-SERVICE")
+        .setInstanceId(GHOST_ID)
+        .setHostName("old-container")
+        .setIPAddr("10.0.0.9")
+        .setPort(8081)
+        .setStatus(InstanceInfo.InstanceStatus.UP)
+        .setLeaseInfo(LeaseInfo.Builder.newBuilder().setRenewalIntervalInSecs(5)
+            .setDurationInSecs(15).build())
+        .build();
+    new EurekaJsonJacksonCodec().getObjectMapper(Applications.class).writeValue(path.toFile(),
+        new Applications(null, 1L, Collections.singletonList(
+            new Application("CONTENT-SERVICE", Collections.singletonList(ghost)))));
+    properties.add("discovery.registry-snapshot", path::toString);
+  }
+
+  @Test
+  void restore_whenInstancesNeverRenew_shouldNotRaiseRenewalThreshold() {
+    assertNotNull(registry.getInstanceByAppAndId("CONTENT-SERVICE", GHOST_ID));
+    // As for a server that opened with no instance: one expected client, none restored
+    int threshold = (int) (60.0 / serverConfig.getExpectedClientRenewalIntervalSeconds()
+        * serverConfig.getRenewalPercentThreshold());
+    assertEquals(threshold, registry.getNumOfRenewsPerMinThreshold());
+  }
+}
@@ -0,0 +1,67 @@
+package com.paoperez.discoveryservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+public class RegistrySnapshotTest {
+  @TempDir
+  Path directory;
+
+  private final InstanceInfo instance = InstanceInfo.Builder.newBuilder()
+      .setAppName("CONTENT-SERVICE")
+      .setInstanceId("10.0.0.1:content-service:8081")
+      .setHostName("10.0.0.1")
+      .setIPAddr("10.0.0.1")
+      .setPort(8081)
+      .setStatus(InstanceInfo.InstanceStatus.UP)
+      .build();
+  private Path path;
+
+  @BeforeEach
+  void init() {
+    path = directory.resolve("registry.json");
+    PeerAwareInstanceRegistry registry = mock(PeerAwareInstanceRegistry.class);
+    when(registry.getApplications()).thenReturn(new Applications(null, 1L,
+        Collections.singletonList(new Application("CONTENT-SERVICE",
+            Collections.singletonList(instance)))));
+    new RegistrySnapshot(registry, path, 5000).save();
+  }
+
+  @Test
+  void restore_whenRegistryIsEmpty_shouldRegisterLastKnownInstances() {
+    PeerAwareInstanceRegistry registry = mock(PeerAwareInstanceRegistry.class);
+    new RegistrySnapshot(registry, path, 5000).restore();
+
+    ArgumentCaptor<InstanceInfo> restored = ArgumentCaptor.forClass(InstanceInfo.class);
+    verify(registry).register(restored.capture(), eq(true));
+    assertEquals("10.0.0.1:content-service:8081", restored.getValue().getId());
+    assertEquals(8081, restored.getValue().getPort());
+  }
+
+  @Test
+  void restore_whenInstanceAlreadyRegistered_shouldKeepIt() {
+    PeerAwareInstanceRegistry registry = mock(PeerAwareInstanceRegistry.class);
+    when(registry.getInstanceByAppAndId("CONTENT-SERVICE", "10.0.0.1:content-service:8081"))
+        .thenReturn(instance);
+    new RegistrySnapshot(registry, path, 5000).restore();
+
+    verify(registry, never()).register(any(), anyBoolean());
+  }
+}
@@ -0,0 +1,60 @@
+package com.paoperez.graphqlservice;
+
+import graphql.ExecutionResult;
+import graphql.spring.web.servlet.GraphQLInvocation;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Answers queries from the {@link ResultCache} and caches the results of queries it executes
+ * along with the entities they include. A request with {@code Cache-Control: no-cache} is always
+ * executed and refreshes the cached result. Results with errors are never cached.
+ */
+final class CachingGraphQLInvocation implements GraphQLInvocation {
+  private final GraphQLInvocation delegate;
+  private final QueryDocuments documents;
+  private final ResultCache cache;
+
+  CachingGraphQLInvocation(final GraphQLInvocation delegate, final QueryDocuments documents,
+      final ResultCache cache) {
+    this.delegate = delegate;
+    this.documents = documents;
+    this.cache = cache;
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> invoke(final GraphQLInvocationData invocationData,
+      final WebRequest webRequest) {
+    QueryKey key = QueryKey.of(invocationData, documents);
+    if (key == null) {
+      return delegate.invoke(invocationData, webRequest)
+          .thenApply(EntityTagInstrumentation::withoutTags);
+    }
+
+    if (!isNoCache(webRequest)) {
+      ExecutionResult cached = cache.get(key);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
+
+    long generation = cache.generation();
+    return delegate.invoke(invocationData, webRequest).thenApply(executionResult -> {
+      ExecutionResult result = EntityTagInstrumentation.withoutTags(executionResult);
+      Set<String> tags = EntityTagInstrumentation.tagsOf(executionResult);
+      if (tags != null && result.getErrors().isEmpty()) {
+        cache.put(key, result, tags, generation);
+      }
+      return result;
+    });
+  }
+
+  private static boolean isNoCache(final WebRequest webRequest) {
+    String cacheControl =
+        webRequest == null ? null : webRequest.getHeader(HttpHeaders.CACHE_CONTROL);
+    return cacheControl != null && cacheControl.toLowerCase().contains("no-cache");
+  }
+}
@@ -0,0 +1,107 @@
+package com.paoperez.graphqlservice;
+
+import graphql.ExecutionResult;
+import graphql.spring.web.servlet.GraphQLInvocation;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Lets identical queries share a single execution: a request whose normalised query, variables
+ * and operation name match an execution that is still in flight, or that completed less than the
+ * coalescing window ago, gets the result of that execution instead of running its own. Mutations
+ * and documents that do not parse are always executed.
+ */
+final class CoalescingGraphQLInvocation implements GraphQLInvocation {
+  private final GraphQLInvocation delegate;
+  private final QueryDocuments documents;
+  private final long windowNanos;
+  private final ConcurrentMap<QueryKey, Execution> executions = new ConcurrentHashMap<>();
+  private final Counter executed;
+  private final Counter coalesced;
+
+  CoalescingGraphQLInvocation(final GraphQLInvocation delegate, final QueryDocuments documents,
+      final long windowMillis, final MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.documents = documents;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.executed = Counter.builder("graphql.coalescing.requests").tag("outcome", "executed")
+        .register(meterRegistry);
+    this.coalesced = Counter.builder("graphql.coalescing.requests").tag("outcome", "coalesced")
+        .register(meterRegistry);
+    Gauge.builder("graphql.coalescing.executions", executions, Map::size).register(meterRegistry);
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> invoke(final GraphQLInvocationData invocationData,
+      final WebRequest webRequest) {
+    QueryKey key = QueryKey.of(invocationData, documents);
+    if (key == null) {
+      return delegate.invoke(invocationData, webRequest);
+    }
+
+    while (true) {
+      long now = System.nanoTime();
+      Execution current = executions.get(key);
+      if (current != null && !current.isExpired(now)) {
+        coalesced.increment();
+        return current.result;
+      }
+
+      Execution execution = new Execution();
+      boolean leader = current == null ? executions.putIfAbsent(key, execution) == null
+          : executions.replace(key, current, execution);
+      if (leader) {
+        executed.increment();
+        execute(key, execution, invocationData, webRequest);
+        return execution.result;
+      }
+    }
+  }
+
+  private void execute(final QueryKey key, final Execution execution,
+      final GraphQLInvocationData invocationData, final WebRequest webRequest) {
+    if (windowNanos > 0) {
+      long now = System.nanoTime();
+      executions.values().removeIf(other -> other.isExpired(now));
+    }
+
+    CompletableFuture<ExecutionResult> result;
+    try {
+      result = delegate.invoke(invocationData, webRequest);
+    } catch (RuntimeException e) {
+      executions.remove(key, execution);
+      execution.result.completeExceptionally(e);
+      return;
+    }
+
+    result.whenComplete((executionResult, error) -> {
+      execution.completed = System.nanoTime();
+      if (error != null || windowNanos == 0 || !executionResult.getErrors().isEmpty()) {
+        executions.remove(key, execution);
+      }
+      if (error != null) {
+        execution.result.completeExceptionally(error);
+      } else {
+        execution.result.complete(executionResult);
+      }
+    });
+  }
+
+  private final class Execution {
+    private final CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+    private volatile long completed;
+
+    boolean isExpired(final long now) {
+      long completedAt = completed;
+      return result.isDone() && now - completedAt >= windowNanos;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.paoperez.graphqlservice;
+
+import com.paoperez.graphqlservice.avatar.Avatar;
+import com.paoperez.graphqlservice.category.Category;
+import com.paoperez.graphqlservice.content.Content;
+import com.paoperez.graphqlservice.content.ContentPage;
+import com.paoperez.graphqlservice.content.Contents;
+import com.paoperez.graphqlservice.image.Image;
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.execution.FetchedValue;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldCompleteParameters;
+import graphql.language.OperationDefinition;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a tag for every entity a query fetched, such as {@code Content:5f4e...} or
+ * {@code Image:5f4f...}, plus {@code Contents} for lists of contents, and hands them over
+ * in an extension of the result for {@link CachingGraphQLInvocation} to take out again.
+ */
+final class EntityTagInstrumentation extends SimpleInstrumentation {
+  static final String CONTENTS_TAG = "Contents";
+  private static final String EXTENSION = EntityTagInstrumentation.class.getName();
+
+  @Override
+  public InstrumentationState createState() {
+    return new Tags();
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginFieldComplete(
+      final InstrumentationFieldCompleteParameters parameters) {
+    record(parameters);
+    return super.beginFieldComplete(parameters);
+  }
+
+  @Override
+  public InstrumentationContext<ExecutionResult> beginFieldListComplete(
+      final InstrumentationFieldCompleteParameters parameters) {
+    record(parameters);
+    return super.beginFieldListComplete(parameters);
+  }
+
+  @Override
+  public CompletableFuture<ExecutionResult> instrumentExecutionResult(
+      final ExecutionResult executionResult, final InstrumentationExecutionParameters parameters) {
+    Tags tags = parameters.getInstrumentationState();
+    Map<Object, Object> extensions = executionResult.getExtensions() == null
+        ? new LinkedHashMap<>() : new LinkedHashMap<>(executionResult.getExtensions());
+    extensions.put(EXTENSION, Collections.unmodifiableSet(tags.tags));
+    return CompletableFuture.completedFuture(new ExecutionResultImpl(executionResult.getData(),
+        executionResult.getErrors(), extensions));
+  }
+
+  /**
+   * @return Set - The tags of the entities the query fetched, or {@code null} if the result was
+   *         not instrumented.
+   */
+  @SuppressWarnings("unchecked")
+  static Set<String> tagsOf(final ExecutionResult executionResult) {
+    Map<Object, Object> extensions = executionResult.getExtensions();
+    return extensions == null ? null : (Set<String>) extensions.get(EXTENSION);
+  }
+
+  static ExecutionResult withoutTags(final ExecutionResult executionResult) {
+    Map<Object, Object> extensions = executionResult.getExtensions();
+    if (extensions == null || !extensions.containsKey(EXTENSION)) {
+      return executionResult;
+    }
+
+    Map<Object, Object> remaining = new LinkedHashMap<>(extensions);
+    remaining.remove(EXTENSION);
+    return new ExecutionResultImpl(executionResult.getData(), executionResult.getErrors(),
+        remaining.isEmpty() ? null : remaining);
+  }
+
+  static String tag(final String type, final String id) {
+    return type + ":" + id;
+  }
+
+  private static void record(final InstrumentationFieldCompleteParameters parameters) {
+    // Subscription results are not cached, and their tags would pile up change after change
+    if (parameters.getExecutionContext().getOperationDefinition().getOperation()
+        == OperationDefinition.Operation.SUBSCRIPTION) {
+      return;
+    }
+    Tags tags = parameters.getInstrumentationState();
+    Object value = parameters.getFetchedValue();
+    if (value instanceof FetchedValue) {
+      value = ((FetchedValue) value).getFetchedValue();
+    }
+    if (value instanceof Iterable) {
+      for (Object item : (Iterable<?>) value) {
+        tags.add(item);
+      }
+    } else {
+      tags.add(value);
+    }
+  }
+
+  private static final class Tags implements InstrumentationState {
+    private final Set<String> tags = ConcurrentHashMap.newKeySet();
+
+    void add(final Object entity) {
+      if (entity instanceof Contents || entity instanceof ContentPage) {
+        tags.add(CONTENTS_TAG);
+      } else if (entity instanceof Content) {
+        tags.add(tag("Content", ((Content) entity).getId()));
+      } else if (entity instanceof Image) {
+        tags.add(tag("Image", ((Image) entity).getId()));
+      } else if (entity instanceof Avatar) {
+        tags.add(tag("Avatar", ((Avatar) entity).getId()));
+      } else if (entity instanceof Category) {
+        tags.add(tag("Category", ((Category) entity).getId()));
+      }
+    }
+  }
+}
@@ -1,27 +1,44 @@
 package com.paoperez.graphqlservice;
 
+import brave.Tracer;
+import ch.qos.logback.classic.LoggerContext;
 import com.google.common.io.Resources;
 import graphql.GraphQL;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.execution.SubscriptionExecutionStrategy;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.Instrumentation;
 import graphql.schema.GraphQLSchema;
 import graphql.schema.idl.RuntimeWiring;
 import graphql.schema.idl.SchemaGenerator;
 import graphql.schema.idl.SchemaParser;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.TypeRuntimeWiring;
+import graphql.spring.web.servlet.ExecutionInputCustomizer;
+import graphql.spring.web.servlet.GraphQLInvocation;
+import graphql.spring.web.servlet.components.DefaultGraphQLInvocation;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
 class GraphQLConfig {
   private static final Logger logger = LoggerFactory.getLogger(GraphQLConfig.class);
 
@@ -38,13 +55,68 @@ class GraphQLConfig {
 
   @LoadBalanced
   @Bean
-  RestTemplate restTemplate() {
-    return new RestTemplate();
+  RestTemplate restTemplate(final ClientHttpRequestFactory requestFactory) {
+    return new RestTemplate(requestFactory);
   }
 
   @Bean
-  GraphQL graphql(final GraphQLSchema schema) {
-    return GraphQL.newGraphQL(schema).build();
+  GraphQL graphql(final GraphQLSchema schema, final QueryDocuments queryDocuments,
+      final ObjectProvider<ResultCache> resultCache, final ObjectProvider<Tracer> tracer) {
+    List<Instrumentation> instrumentations = new ArrayList<>();
+    tracer.ifAvailable(available -> instrumentations.add(new TracingInstrumentation(available)));
+    if (resultCache.getIfAvailable() != null) {
+      instrumentations.add(new EntityTagInstrumentation());
+    }
+    return GraphQL.newGraphQL(schema)
+        .queryExecutionStrategy(new AsyncExecutionStrategy(new GraphQLExceptionHandler()))
+        .subscriptionExecutionStrategy(
+            new SubscriptionExecutionStrategy(new GraphQLExceptionHandler()))
+        .instrumentation(new ChainedInstrumentation(instrumentations))
+        .preparsedDocumentProvider(queryDocuments)
+        .build();
+  }
+
+  @Bean
+  QueryDocuments queryDocuments(final MeterRegistry meterRegistry,
+      @Value("${graphql.documents.max-entries:1000}") final long maxEntries) {
+    return new QueryDocuments(maxEntries, meterRegistry);
+  }
+
+  @Primary
+  @Bean
+  GraphQLInvocation graphQLInvocation(final DefaultGraphQLInvocation invocation,
+      final QueryDocuments queryDocuments, final MeterRegistry meterRegistry,
+      final ObjectProvider<ResultCache> resultCache,
+      @Value("${graphql.coalescing.window:0}") final long windowMillis) {
+    GraphQLInvocation coalescing = new CoalescingGraphQLInvocation(invocation, queryDocuments,
+        windowMillis, meterRegistry);
+    ResultCache cache = resultCache.getIfAvailable();
+    return cache == null ? coalescing
+        : new CachingGraphQLInvocation(coalescing, queryDocuments, cache);
+  }
+
+  /**
+   * Gives every query loaders of its own, so that what they load is not shared between queries.
+   */
+  @Primary
+  @Bean
+  ExecutionInputCustomizer executionInputCustomizer(final GraphQLDataFetchers dataFetchers) {
+    return (executionInput, webRequest) -> CompletableFuture.completedFuture(executionInput
+        .transform(builder -> builder.dataLoaderRegistry(dataFetchers.newDataLoaderRegistry())));
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql.cache.enabled")
+  ResultCache resultCache(final MeterRegistry meterRegistry,
+      @Value("${graphql.cache.max-entries:1000}") final long maxEntries,
+      @Value("${graphql.cache.ttl:60000}") final long ttlMillis) {
+    return new ResultCache(maxEntries, ttlMillis, meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql.cache.enabled")
+  ResultCacheEndpoint resultCacheEndpoint(final ResultCache resultCache) {
+    return new ResultCacheEndpoint(resultCache);
   }
 
   @Bean
@@ -63,12 +135,21 @@ class GraphQLConfig {
             dataFetchers.getContentsDataFetcher()))
         .type(TypeRuntimeWiring.newTypeWiring("Query").dataFetcher("content",
             dataFetchers.getContentDataFetcher()))
+        .type(TypeRuntimeWiring.newTypeWiring("Subscription").dataFetcher("contentChanged",
+            dataFetchers.getContentChangedDataFetcher()))
+        .type(TypeRuntimeWiring.newTypeWiring("ContentChange").dataFetcher("content",
+            dataFetchers.getContentChangeContentDataFetcher()))
         .type(TypeRuntimeWiring.newTypeWiring("Content")
             .dataFetcher("image", dataFetchers.getContentImageDataFetcher())
             .dataFetcher("category", dataFetchers.getCategoryDataFetcher())
             .dataFetcher("avatar", dataFetchers.getAvatarDataFetcher()))
-        .type(TypeRuntimeWiring.newTypeWiring("Avatar").dataFetcher("image",
-            dataFetchers.getAvatarImageDataFetcher()))
+        .type(TypeRuntimeWiring.newTypeWiring("Category").dataFetcher("contents",
+            dataFetchers.getCategoryContentsDataFetcher()))
+        .type(TypeRuntimeWiring.newTypeWiring("Avatar")
+            .dataFetcher("image", dataFetchers.getAvatarImageDataFetcher())
+            .dataFetcher("contents", dataFetchers.getAvatarContentsDataFetcher()))
+        .type(TypeRuntimeWiring.newTypeWiring("Image").dataFetcher("url",
+            dataFetchers.getImageUrlDataFetcher()))
         .build();
   }
 
@@ -81,4 +162,9 @@ class GraphQLConfig {
   SchemaGenerator schemaGenerator() {
     return new SchemaGenerator();
   }
+
+  @Bean
+  AsyncLogMetrics asyncLogMetrics() {
+    return new AsyncLogMetrics((LoggerContext) LoggerFactory.getILoggerFactory());
+  }
 }
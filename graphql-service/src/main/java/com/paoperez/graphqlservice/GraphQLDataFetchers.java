@@ -1,43 +1,209 @@
 package com.paoperez.graphqlservice;
 
+import com.google.common.collect.ImmutableMap;
 import com.paoperez.graphqlservice.avatar.Avatar;
 import com.paoperez.graphqlservice.avatar.AvatarService;
 import com.paoperez.graphqlservice.category.Category;
 import com.paoperez.graphqlservice.category.CategoryService;
 import com.paoperez.graphqlservice.content.Content;
+import com.paoperez.graphqlservice.content.ContentChange;
+import com.paoperez.graphqlservice.content.ContentPage;
+import com.paoperez.graphqlservice.content.ContentParent;
 import com.paoperez.graphqlservice.content.ContentService;
 import com.paoperez.graphqlservice.content.Contents;
 import com.paoperez.graphqlservice.image.Image;
 import com.paoperez.graphqlservice.image.ImageService;
-import org.springframework.stereotype.Component;
+import com.paoperez.graphqlservice.subscription.ContentChanges;
+import graphql.language.OperationDefinition;
 import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @Component
 class GraphQLDataFetchers {
+  private static final Map<String, String> RELATION_FIELDS =
+      ImmutableMap.of("image", "imageId", "category", "categoryId", "avatar", "avatarId");
+  private static final String IMAGE_FILES_PATH = "/images/files/";
+  private static final String CONTENT_PAGES = "contentPages";
+  // Same as the default of the argument first in the schema
+  private static final int DEFAULT_PAGE_SIZE = 10;
+  private static final int MAX_PAGE_SIZE = 100;
+
   private final ContentService contentService;
   private final ImageService imageService;
   private final CategoryService categoryService;
   private final AvatarService avatarService;
+  private final ContentChanges contentChanges;
 
   GraphQLDataFetchers(final ContentService contentService, final ImageService imageService,
-      final CategoryService categoryService, final AvatarService avatarService) {
+      final CategoryService categoryService, final AvatarService avatarService,
+      final ContentChanges contentChanges) {
     this.contentService = contentService;
     this.imageService = imageService;
     this.categoryService = categoryService;
     this.avatarService = avatarService;
+    this.contentChanges = contentChanges;
   }
 
   DataFetcher<Contents> getContentsDataFetcher() {
-    return dataFetchingEnvironment -> this.contentService.getContents();
+    return dataFetchingEnvironment -> {
+      Integer top = dataFetchingEnvironment.getArgument("top");
+      Set<String> fields = contentFields(dataFetchingEnvironment.getSelectionSet(), "data/*");
+      return top == null ? this.contentService.getContents(fields)
+          : this.contentService.getContents(fields, top);
+    };
   }
 
   DataFetcher<Content> getContentDataFetcher() {
     return dataFetchingEnvironment -> {
       String id = dataFetchingEnvironment.getArgument("id");
-      return this.contentService.getContent(id);
+      return this.contentService.getContent(id,
+          contentFields(dataFetchingEnvironment.getSelectionSet(), "*"));
+    };
+  }
+
+  DataFetcher<Publisher<ContentChange>> getContentChangedDataFetcher() {
+    return dataFetchingEnvironment -> {
+      String id = dataFetchingEnvironment.getArgument("id");
+      return this.contentChanges.publisher(id);
+    };
+  }
+
+  /**
+   * @return DataFetcher<Content> - The content of a change, read once for all the subscriptions
+   *         with the same query, or null when it was deleted.
+   */
+  DataFetcher<Content> getContentChangeContentDataFetcher() {
+    return dataFetchingEnvironment -> {
+      ContentChange change = dataFetchingEnvironment.getSource();
+      if (change.getType() == ContentChange.Type.DELETED) {
+        return null;
+      }
+      return this.contentService.getContent(change.getId(),
+          contentFields(dataFetchingEnvironment.getSelectionSet(), "*"));
+    };
+  }
+
+  /**
+   * @return DataLoaderRegistry - The loaders of a query, which batch the loads of its fields, e.g.
+   *         the contents of every category in the query in one call to content-service.
+   */
+  DataLoaderRegistry newDataLoaderRegistry() {
+    return new DataLoaderRegistry().register(CONTENT_PAGES,
+        DataLoader.newMappedDataLoader(this::loadContentPages));
+  }
+
+  DataFetcher<CompletableFuture<ContentPage>> getCategoryContentsDataFetcher() {
+    return dataFetchingEnvironment -> {
+      Category category = dataFetchingEnvironment.getSource();
+      return contentPage(dataFetchingEnvironment, ContentParent.CATEGORY, category.getId());
+    };
+  }
+
+  DataFetcher<CompletableFuture<ContentPage>> getAvatarContentsDataFetcher() {
+    return dataFetchingEnvironment -> {
+      Avatar avatar = dataFetchingEnvironment.getSource();
+      return contentPage(dataFetchingEnvironment, ContentParent.AVATAR, avatar.getId());
     };
   }
 
+  private CompletableFuture<ContentPage> contentPage(
+      final DataFetchingEnvironment dataFetchingEnvironment, final ContentParent parent,
+      final String parentId) {
+    // Null when the query passes null explicitly rather than leaving the default
+    Integer firstArgument = dataFetchingEnvironment.getArgument("first");
+    int first = firstArgument == null ? DEFAULT_PAGE_SIZE : firstArgument;
+    if (first < 1 || first > MAX_PAGE_SIZE) {
+      throw new InvalidArgumentException("first",
+          "first must be between 1 and " + MAX_PAGE_SIZE + ".");
+    }
+    String after = dataFetchingEnvironment.getArgument("after");
+    Set<String> fields = contentFields(dataFetchingEnvironment.getSelectionSet(), "data/*");
+    // Needed to group the contents by parent and to make the cursor
+    fields.add(parent.field());
+    fields.add("rank");
+    PageKey key =
+        new PageKey(parent, parentId, first, after == null ? null : rankOf(after), fields);
+    // Loaders are not dispatched in subscriptions, and would keep pages from one change to the next
+    if (dataFetchingEnvironment.getOperationDefinition().getOperation()
+        == OperationDefinition.Operation.SUBSCRIPTION) {
+      return loadContentPages(Collections.singleton(key)).thenApply(pages -> pages.get(key));
+    }
+    DataLoader<PageKey, ContentPage> loader =
+        dataFetchingEnvironment.getDataLoader(CONTENT_PAGES);
+    return loader.load(key);
+  }
+
+  // Cursors are the rank of the last content of a page
+  private static int rankOf(final String cursor) {
+    try {
+      return Integer.parseInt(cursor);
+    } catch (NumberFormatException e) {
+      throw new InvalidArgumentException("after", "after is not a valid cursor.");
+    }
+  }
+
+  /**
+   * Pages of contents are loaded with a call for all the parents of the same kind asking for the
+   * same page, one more content than asked for each to tell whether there is a next page.
+   */
+  private CompletableFuture<Map<PageKey, ContentPage>> loadContentPages(final Set<PageKey> keys) {
+    Map<PageKey, List<String>> parentIds = new HashMap<>();
+    for (PageKey key : keys) {
+      parentIds.computeIfAbsent(key.withoutParentId(), k -> new ArrayList<>()).add(key.parentId);
+    }
+
+    Map<PageKey, ContentPage> pages = new HashMap<>();
+    parentIds.forEach((request, ids) -> {
+      Map<String, List<Content>> contents = contentService
+          .getContents(request.parent, ids, request.first + 1, request.after, request.fields)
+          .getData().stream()
+          .collect(Collectors.groupingBy(request.parent::idOf, Collectors.toList()));
+      for (String id : ids) {
+        List<Content> page = contents.getOrDefault(id, Collections.emptyList());
+        List<Content> data = page.subList(0, Math.min(request.first, page.size()));
+        String endCursor = data.isEmpty() ? null
+            : String.valueOf(data.get(data.size() - 1).getRank());
+        pages.put(new PageKey(request.parent, id, request.first, request.after, request.fields),
+            new ContentPage(data, endCursor, page.size() > request.first));
+      }
+    });
+    return CompletableFuture.completedFuture(pages);
+  }
+
+  /**
+   * @param selectionSet - The selection set of the field returning contents.
+   * @param glob         - The pattern matching the fields of a content in the selection set.
+   * @return Set<String> - The fields of content-service the selected fields are read from, and the
+   *         id that the entity tags of results need.
+   */
+  static Set<String> contentFields(final DataFetchingFieldSelectionSet selectionSet,
+      final String glob) {
+    Set<String> fields = new TreeSet<>();
+    fields.add("id");
+    for (SelectedField field : selectionSet.getFields(glob)) {
+      String name = field.getName();
+      fields.add(RELATION_FIELDS.getOrDefault(name, name));
+    }
+    return fields;
+  }
+
   DataFetcher<Image> getContentImageDataFetcher() {
     return dataFetchingEnvironment -> {
       Content content = dataFetchingEnvironment.getSource();
@@ -46,6 +212,22 @@ class GraphQLDataFetchers {
     };
   }
 
+  /**
+   * @return DataFetcher<String> - The url of an image, or of a variant of about the width asked for
+   *         when the image was uploaded to image-service, which makes those.
+   */
+  DataFetcher<String> getImageUrlDataFetcher() {
+    return dataFetchingEnvironment -> {
+      Image image = dataFetchingEnvironment.getSource();
+      Integer width = dataFetchingEnvironment.getArgument("width");
+      String url = image.getUrl();
+      if (width == null || url == null || !url.contains(IMAGE_FILES_PATH)) {
+        return url;
+      }
+      return UriComponentsBuilder.fromUriString(url).replaceQueryParam("w", width).toUriString();
+    };
+  }
+
   DataFetcher<Category> getCategoryDataFetcher() {
     return dataFetchingEnvironment -> {
       Content content = dataFetchingEnvironment.getSource();
@@ -69,4 +251,41 @@ class GraphQLDataFetchers {
       return this.imageService.getImage(id);
     };
   }
+
+  private static final class PageKey {
+    private final ContentParent parent;
+    private final String parentId;
+    private final int first;
+    private final Integer after;
+    private final Set<String> fields;
+
+    PageKey(final ContentParent parent, final String parentId, final int first,
+        final Integer after, final Set<String> fields) {
+      this.parent = parent;
+      this.parentId = parentId;
+      this.first = first;
+      this.after = after;
+      this.fields = fields;
+    }
+
+    PageKey withoutParentId() {
+      return new PageKey(parent, null, first, after, fields);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof PageKey)) {
+        return false;
+      }
+      PageKey other = (PageKey) o;
+      return parent == other.parent && Objects.equals(parentId, other.parentId)
+          && first == other.first && Objects.equals(after, other.after)
+          && fields.equals(other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(parent, parentId, first, after, fields);
+    }
+  }
 }
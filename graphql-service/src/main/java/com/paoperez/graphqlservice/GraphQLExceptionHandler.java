@@ -0,0 +1,58 @@
+package com.paoperez.graphqlservice;
+
+import com.google.common.collect.ImmutableMap;
+import com.paoperez.graphqlservice.downstream.DownstreamException;
+import graphql.ErrorType;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.DataFetcherExceptionHandler;
+import graphql.execution.DataFetcherExceptionHandlerParameters;
+import graphql.execution.DataFetcherExceptionHandlerResult;
+import graphql.execution.SimpleDataFetcherExceptionHandler;
+import java.util.concurrent.CompletionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves a field whose downstream call failed to null plus an error naming the service and the
+ * reason, and one given an invalid argument to null plus an error naming the argument, leaving
+ * the rest of the result intact.
+ */
+final class GraphQLExceptionHandler implements DataFetcherExceptionHandler {
+  private static final Logger logger = LoggerFactory.getLogger(GraphQLExceptionHandler.class);
+
+  private final DataFetcherExceptionHandler fallback = new SimpleDataFetcherExceptionHandler();
+
+  @Override
+  public DataFetcherExceptionHandlerResult onException(
+      final DataFetcherExceptionHandlerParameters handlerParameters) {
+    Throwable exception = handlerParameters.getException();
+    if (exception instanceof CompletionException && exception.getCause() != null) {
+      exception = exception.getCause();
+    }
+    if (exception instanceof InvalidArgumentException) {
+      InvalidArgumentException invalidArgumentException = (InvalidArgumentException) exception;
+      GraphQLError error = GraphqlErrorBuilder.newError()
+          .message(invalidArgumentException.getMessage()).path(handlerParameters.getPath())
+          .location(handlerParameters.getSourceLocation()).errorType(ErrorType.ValidationError)
+          .extensions(ImmutableMap.of("argument", invalidArgumentException.getArgument()))
+          .build();
+      return DataFetcherExceptionHandlerResult.newResult().error(error).build();
+    }
+    if (!(exception instanceof DownstreamException)) {
+      return fallback.onException(handlerParameters);
+    }
+
+    DownstreamException downstreamException = (DownstreamException) exception;
+    logger.warn("Resolving {} to null: {}", handlerParameters.getPath(),
+        downstreamException.getMessage());
+    GraphQLError error = GraphqlErrorBuilder.newError()
+        .message(downstreamException.getMessage()).path(handlerParameters.getPath())
+        .location(handlerParameters.getSourceLocation())
+        .extensions(ImmutableMap.of("service", downstreamException.getServiceId(), "reason",
+            downstreamException.getReason().name()))
+        .build();
+
+    return DataFetcherExceptionHandlerResult.newResult().error(error).build();
+  }
+}
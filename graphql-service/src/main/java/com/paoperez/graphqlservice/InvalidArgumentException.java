@@ -0,0 +1,20 @@
+package com.paoperez.graphqlservice;
+
+/**
+ * Thrown when an argument of a field has a value the field cannot take, so that the field is
+ * resolved to null with an error naming the argument rather than an internal one.
+ */
+final class InvalidArgumentException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  private final String argument;
+
+  InvalidArgumentException(final String argument, final String message) {
+    super(message);
+    this.argument = argument;
+  }
+
+  String getArgument() {
+    return argument;
+  }
+}
@@ -0,0 +1,85 @@
+package com.paoperez.graphqlservice;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.parser.Parser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of the documents of recent queries by their text, so that a query seen before is
+ * not parsed again: neither to build its {@link QueryKey} in each invocation nor, handed to
+ * {@code GraphQL} as its {@link PreparsedDocumentProvider}, to be validated and executed.
+ */
+final class QueryDocuments implements PreparsedDocumentProvider {
+  private static final Logger logger = LoggerFactory.getLogger(QueryDocuments.class);
+
+  private final LoadingCache<String, Parsed> documents;
+
+  QueryDocuments(final long maxEntries, final MeterRegistry meterRegistry) {
+    this.documents = CacheBuilder.newBuilder().maximumSize(maxEntries).recordStats()
+        .build(CacheLoader.from(Parsed::new));
+    GuavaCacheMetrics.monitor(meterRegistry, documents, "graphql.documents");
+  }
+
+  /**
+   * @return Parsed - The query parsed, whose document is null if it does not parse.
+   */
+  Parsed parsed(final String query) {
+    return query == null ? new Parsed(null) : documents.getUnchecked(query);
+  }
+
+  @Override
+  public PreparsedDocumentEntry getDocument(final ExecutionInput executionInput,
+      final Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+    Parsed parsed = parsed(executionInput.getQuery());
+    PreparsedDocumentEntry validated = parsed.validated;
+    if (validated == null) {
+      // Validated against the one schema, so the same for any request of the query
+      validated = parseAndValidate.apply(executionInput);
+      parsed.validated = validated;
+    }
+    return validated;
+  }
+
+  static final class Parsed {
+    private final Document document;
+    private final String normalised;
+    private volatile PreparsedDocumentEntry validated;
+
+    private Parsed(final String query) {
+      Document parsed = null;
+      try {
+        parsed = query == null ? null : Parser.parse(query);
+      } catch (RuntimeException e) {
+        logger.trace("Query does not parse", e);
+      }
+      this.document = parsed;
+      this.normalised = parsed == null ? null : AstPrinter.printAstCompact(parsed);
+    }
+
+    /**
+     * @return Document - The document of the query, or null if it does not parse.
+     */
+    Document document() {
+      return document;
+    }
+
+    /**
+     * @return String - The query printed compactly, the same for queries alike but for their
+     *         layout, or null if it does not parse.
+     */
+    String normalised() {
+      return normalised;
+    }
+  }
+}
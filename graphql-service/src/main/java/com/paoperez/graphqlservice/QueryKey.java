@@ -0,0 +1,73 @@
+package com.paoperez.graphqlservice;
+
+import graphql.language.OperationDefinition;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Normalised query, operation name and variables of a request: requests with equal keys get the
+ * same result. Only requests for a single query operation have a key, mutations and documents
+ * that do not parse have none.
+ */
+final class QueryKey {
+  private final String query;
+  private final String operationName;
+  private final Map<String, Object> variables;
+  private final int hashCode;
+
+  private QueryKey(final String query, final String operationName,
+      final Map<String, Object> variables) {
+    this.query = query;
+    this.operationName = operationName;
+    this.variables = variables;
+    this.hashCode = Objects.hash(query, operationName, variables);
+  }
+
+  /**
+   * @param documents - The documents of recent queries, to parse the query only if it is new.
+   * @return QueryKey - The key of the query, or {@code null} if it is not a single query.
+   */
+  static QueryKey of(final GraphQLInvocationData invocationData,
+      final QueryDocuments documents) {
+    QueryDocuments.Parsed parsed = documents.parsed(invocationData.getQuery());
+    if (parsed.document() == null) {
+      return null;
+    }
+
+    String operationName = invocationData.getOperationName();
+    List<OperationDefinition> operations = parsed.document()
+        .getDefinitionsOfType(OperationDefinition.class).stream()
+        .filter(operation -> operationName == null || operationName.equals(operation.getName()))
+        .collect(Collectors.toList());
+    if (operations.size() != 1
+        || operations.get(0).getOperation() != OperationDefinition.Operation.QUERY) {
+      return null;
+    }
+
+    Map<String, Object> variables = invocationData.getVariables();
+    return new QueryKey(parsed.normalised(), operationName,
+        variables == null ? Collections.emptyMap() : variables);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof QueryKey)) {
+      return false;
+    }
+    QueryKey other = (QueryKey) o;
+    return query.equals(other.query) && Objects.equals(operationName, other.operationName)
+        && variables.equals(other.variables);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
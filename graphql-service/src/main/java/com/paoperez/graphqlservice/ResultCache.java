@@ -0,0 +1,127 @@
+package com.paoperez.graphqlservice;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import graphql.ExecutionResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of query results that expire after a time to live, indexed by the tags of the
+ * entities each result includes so that a change to an entity drops exactly the results showing
+ * it. Lookups do not lock; writes and invalidations are serialised so that the tag index always
+ * covers every cached result.
+ */
+final class ResultCache {
+  private final Cache<QueryKey, Entry> entries;
+  private final Map<String, Set<QueryKey>> keysByTag = new HashMap<>();
+  private long generation;
+
+  ResultCache(final long maxEntries, final long ttlMillis, final MeterRegistry meterRegistry) {
+    this.entries = CacheBuilder.newBuilder().maximumSize(maxEntries)
+        .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).recordStats()
+        .removalListener(this::unindex).build();
+    GuavaCacheMetrics.monitor(meterRegistry, entries, "graphql.results");
+  }
+
+  ExecutionResult get(final QueryKey key) {
+    Entry entry = entries.getIfPresent(key);
+    return entry == null ? null : entry.result;
+  }
+
+  /**
+   * @return long - Token to pass to {@link #put} for a result whose execution starts now.
+   */
+  synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Caches a result unless tags were invalidated since its execution started, since it may show
+   * an entity from before the change.
+   */
+  synchronized void put(final QueryKey key, final ExecutionResult result, final Set<String> tags,
+      final long generationAtStart) {
+    if (generation != generationAtStart) {
+      return;
+    }
+
+    for (String tag : tags) {
+      keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+    }
+    entries.put(key, new Entry(result, tags));
+  }
+
+  /**
+   * @return long - The number of results dropped.
+   */
+  synchronized long invalidate(final Collection<String> tags) {
+    generation++;
+    Set<QueryKey> keys = new HashSet<>();
+    for (String tag : tags) {
+      Set<QueryKey> tagged = keysByTag.remove(tag);
+      if (tagged != null) {
+        keys.addAll(tagged);
+      }
+    }
+
+    long before = entries.size();
+    entries.invalidateAll(keys);
+    return before - entries.size();
+  }
+
+  synchronized long invalidateAll() {
+    generation++;
+    long before = entries.size();
+    entries.invalidateAll();
+    keysByTag.clear();
+    return before;
+  }
+
+  long size() {
+    return entries.size();
+  }
+
+  CacheStats stats() {
+    return entries.stats();
+  }
+
+  private synchronized void unindex(final RemovalNotification<QueryKey, Entry> notification) {
+    // The new entry is indexed already and a stale key in the index only costs a lookup
+    if (notification.getCause() == RemovalCause.REPLACED) {
+      return;
+    }
+
+    // Putting over an expired entry reports it after the new entry was indexed
+    QueryKey key = notification.getKey();
+    Entry current = entries.asMap().get(key);
+    for (String tag : notification.getValue().tags) {
+      if (current != null && current.tags.contains(tag)) {
+        continue;
+      }
+      Set<QueryKey> tagged = keysByTag.get(tag);
+      if (tagged != null && tagged.remove(key) && tagged.isEmpty()) {
+        keysByTag.remove(tag);
+      }
+    }
+  }
+
+  private static final class Entry {
+    private final ExecutionResult result;
+    private final Set<String> tags;
+
+    Entry(final ExecutionResult result, final Set<String> tags) {
+      this.result = result;
+      this.tags = tags;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.paoperez.graphqlservice;
+
+import com.google.common.cache.CacheStats;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Size and hit rate of the {@link ResultCache} at {@code GET /actuator/graphqlcache}, and purging
+ * of the results including given entities at {@code DELETE /actuator/graphqlcache?tag=Content:id},
+ * or of all results without a tag. Served on the internal management port only.
+ */
+@Endpoint(id = "graphqlcache")
+final class ResultCacheEndpoint {
+  private final ResultCache cache;
+
+  ResultCacheEndpoint(final ResultCache cache) {
+    this.cache = cache;
+  }
+
+  @ReadOperation
+  public Map<String, Object> stats() {
+    CacheStats cacheStats = cache.stats();
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("size", cache.size());
+    stats.put("hits", cacheStats.hitCount());
+    stats.put("misses", cacheStats.missCount());
+    stats.put("hitRate", cacheStats.hitRate());
+    return stats;
+  }
+
+  @DeleteOperation
+  public Map<String, Object> purge(@Nullable final List<String> tag) {
+    long purged = tag == null || tag.isEmpty() ? cache.invalidateAll() : cache.invalidate(tag);
+    return Collections.singletonMap("purged", purged);
+  }
+}
@@ -0,0 +1,56 @@
+package com.paoperez.graphqlservice;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracer.SpanInScope;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Traces every data fetcher of a query other than plain property reads as a span named after its
+ * field, such as {@code Content.image}, in the trace of the request. Calls a fetcher makes while it
+ * runs are children of its span; calls data loaders batch are made once the loaders are
+ * dispatched, as children of the request span. Fetches outside of a sampled request, such as those
+ * of subscriptions, are not traced.
+ */
+final class TracingInstrumentation extends SimpleInstrumentation {
+  private final Tracer tracer;
+
+  TracingInstrumentation(final Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public InstrumentationContext<Object> beginFieldFetch(
+      final InstrumentationFieldFetchParameters parameters) {
+    Span parent = tracer.currentSpan();
+    if (parameters.isTrivialDataFetcher() || parent == null || parent.isNoop()) {
+      return super.beginFieldFetch(parameters);
+    }
+
+    ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+    Span span = tracer.newChild(parent.context())
+        .name(stepInfo.getFieldContainer().getName() + "." + parameters.getField().getName())
+        .tag("graphql.path", stepInfo.getPath().toString())
+        .start();
+    // The fetcher runs on this thread until it hands back its result
+    SpanInScope scope = tracer.withSpanInScope(span);
+    return new InstrumentationContext<Object>() {
+      @Override
+      public void onDispatched(final CompletableFuture<Object> result) {
+        scope.close();
+      }
+
+      @Override
+      public void onCompleted(final Object result, final Throwable t) {
+        if (t != null) {
+          span.error(t);
+        }
+        span.finish();
+      }
+    };
+  }
+}
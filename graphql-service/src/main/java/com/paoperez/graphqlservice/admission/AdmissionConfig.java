@@ -0,0 +1,34 @@
+package com.paoperez.graphqlservice.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AdmissionProperties.class)
+class AdmissionConfig {
+  @Bean
+  AdmissionInterceptor admissionInterceptor(final AdmissionProperties properties,
+      final MeterRegistry meterRegistry) {
+    AdmissionProperties.Client client = properties.getClient();
+    AdmissionProperties.Concurrency concurrency = properties.getConcurrency();
+    return new AdmissionInterceptor(
+        new ClientRateLimiter(client.getRate(), client.getBurst(), client.getMaxClients()),
+        new GradientConcurrencyLimit(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+            concurrency.getMaxLimit(), concurrency.getTolerance(), concurrency.getSmoothing()),
+        client.getHeader(), concurrency.getRetryAfter(), meterRegistry);
+  }
+
+  @Bean
+  WebMvcConfigurer admissionConfigurer(final AdmissionInterceptor interceptor) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/graphql");
+      }
+    };
+  }
+}
@@ -0,0 +1,110 @@
+package com.paoperez.graphqlservice.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Admission control in front of query execution. A request is first charged to the token bucket
+ * of its client and turned away with 429 once the bucket is empty, so one client cannot take all
+ * the capacity. It must then fit under the concurrency limit, and is turned away with 503
+ * otherwise, so a spike is shed here instead of queueing up in every service behind. Both tell the
+ * client when to retry.
+ *
+ * <p>Runs after the CORS interceptor, so browsers can read the rejections. Queries complete
+ * asynchronously: the permit is kept in a request attribute across the async dispatch and
+ * released when the request completes.
+ */
+final class AdmissionInterceptor implements AsyncHandlerInterceptor {
+  private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".ADMITTED_AT";
+
+  private final ClientRateLimiter rateLimiter;
+  private final GradientConcurrencyLimit concurrencyLimit;
+  private final String clientHeader;
+  private final int retryAfterSeconds;
+  private final Counter admitted;
+  private final Counter rateLimited;
+  private final Counter overloaded;
+
+  AdmissionInterceptor(final ClientRateLimiter rateLimiter,
+      final GradientConcurrencyLimit concurrencyLimit, final String clientHeader,
+      final int retryAfterSeconds, final MeterRegistry meterRegistry) {
+    this.rateLimiter = rateLimiter;
+    this.concurrencyLimit = concurrencyLimit;
+    this.clientHeader = clientHeader;
+    this.retryAfterSeconds = retryAfterSeconds;
+    this.admitted = Counter.builder("graphql.admission.requests").tag("outcome", "admitted")
+        .register(meterRegistry);
+    this.rateLimited = Counter.builder("graphql.admission.requests")
+        .tag("outcome", "rate-limited").register(meterRegistry);
+    this.overloaded = Counter.builder("graphql.admission.requests").tag("outcome", "overloaded")
+        .register(meterRegistry);
+    Gauge.builder("graphql.admission.limit", concurrencyLimit, GradientConcurrencyLimit::limit)
+        .register(meterRegistry);
+    Gauge.builder("graphql.admission.inflight", concurrencyLimit,
+        GradientConcurrencyLimit::inflight).register(meterRegistry);
+    Gauge.builder("graphql.admission.clients", rateLimiter, ClientRateLimiter::clients)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response,
+      final Object handler) throws IOException {
+    if (request.getAttribute(ADMITTED_AT) != null || CorsUtils.isPreFlightRequest(request)) {
+      return true;
+    }
+
+    long waitNanos = rateLimiter.tryAcquire(clientOf(request));
+    if (waitNanos > 0) {
+      rateLimited.increment();
+      reject(response, HttpStatus.TOO_MANY_REQUESTS,
+          (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)),
+          "Too many requests");
+      return false;
+    }
+    if (!concurrencyLimit.tryAcquire()) {
+      overloaded.increment();
+      reject(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, "Service overloaded");
+      return false;
+    }
+
+    admitted.increment();
+    request.setAttribute(ADMITTED_AT, System.nanoTime());
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(final HttpServletRequest request,
+      final HttpServletResponse response, final Object handler, final Exception ex) {
+    Object admittedAt = request.getAttribute(ADMITTED_AT);
+    if (admittedAt != null) {
+      request.removeAttribute(ADMITTED_AT);
+      concurrencyLimit.release(System.nanoTime() - (Long) admittedAt);
+    }
+  }
+
+  private String clientOf(final HttpServletRequest request) {
+    String client = StringUtils.hasText(clientHeader) ? request.getHeader(clientHeader) : null;
+    return StringUtils.hasText(client) ? client : request.getRemoteAddr();
+  }
+
+  private static void reject(final HttpServletResponse response, final HttpStatus status,
+      final int retryAfterSeconds, final String message) throws IOException {
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.getWriter().write("{\"errors\":[{\"message\":\"" + message + "\"}]}");
+  }
+}
@@ -0,0 +1,45 @@
+package com.paoperez.graphqlservice.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("admission")
+class AdmissionProperties {
+  private Client client = new Client();
+  private Concurrency concurrency = new Concurrency();
+
+  /**
+   * Token bucket of each client.
+   */
+  @Data
+  static class Client {
+    /** Request header identifying the client, or empty to use the remote address. */
+    private String header = "";
+    /** Requests per second each client may make on average. */
+    private double rate = 50;
+    /** Requests a client may make at once on top of its rate. */
+    private int burst = 100;
+    /** Maximum number of clients whose buckets are kept. */
+    private int maxClients = 10000;
+  }
+
+  /**
+   * Limit on the queries executing at once, adapted to the latency observed.
+   */
+  @Data
+  static class Concurrency {
+    /** Limit before any latency has been observed. */
+    private int initialLimit = 20;
+    /** Lowest the limit goes however slow queries get. */
+    private int minLimit = 4;
+    /** Highest the limit goes however fast queries are. */
+    private int maxLimit = 200;
+    /** Ratio of recent to long-term latency tolerated before the limit shrinks. */
+    private double tolerance = 1.5;
+    /** Weight of each new estimate in the smoothed limit. */
+    private double smoothing = 0.2;
+    /** Seconds a rejected client is told to wait before retrying. */
+    private int retryAfter = 1;
+  }
+}
@@ -0,0 +1,57 @@
+package com.paoperez.graphqlservice.admission;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket per client. Buckets of clients that have not made a request for as long as a
+ * bucket takes to fill up are dropped, which loses nothing since they would be full again.
+ */
+final class ClientRateLimiter {
+  private final double rate;
+  private final int burst;
+  private final Cache<String, TokenBucket> buckets;
+
+  ClientRateLimiter(final double rate, final int burst, final int maxClients) {
+    this.rate = rate;
+    this.burst = burst;
+    this.buckets = CacheBuilder.newBuilder().maximumSize(maxClients)
+        .expireAfterAccess((long) Math.ceil(burst / rate) + 1, TimeUnit.SECONDS).build();
+  }
+
+  /**
+   * @param client - Identifier of the client making a request.
+   * @return long - 0 if the request may go ahead, otherwise the nanoseconds until it would.
+   */
+  long tryAcquire(final String client) {
+    try {
+      return buckets.get(client, TokenBucket::new).tryAcquire();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  long clients() {
+    return buckets.size();
+  }
+
+  private final class TokenBucket {
+    private double balance = burst;
+    private long lastRefill = System.nanoTime();
+
+    synchronized long tryAcquire() {
+      long now = System.nanoTime();
+      double seconds = (double) (now - lastRefill) / TimeUnit.SECONDS.toNanos(1);
+      balance = Math.min(balance + seconds * rate, burst);
+      lastRefill = now;
+      if (balance < 1) {
+        return (long) Math.ceil((1 - balance) / rate * TimeUnit.SECONDS.toNanos(1));
+      }
+
+      balance--;
+      return 0;
+    }
+  }
+}
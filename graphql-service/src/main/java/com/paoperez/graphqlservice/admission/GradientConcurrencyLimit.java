@@ -0,0 +1,81 @@
+package com.paoperez.graphqlservice.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on concurrent requests that follows the gradient between the long-term and the recent
+ * latency. While latency holds steady the limit grows by about its square root with every sample,
+ * leaving room to queue; once recent latency exceeds the long-term latency by more than the
+ * tolerance, the limit shrinks in proportion, down to half per sample. Samples taken while fewer
+ * than half the limit are in flight leave it alone, since latency says nothing about the limit
+ * then.
+ */
+final class GradientConcurrencyLimit {
+  private static final int SHORT_WINDOW = 10;
+  private static final int LONG_WINDOW = 600;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double smoothing;
+  private final AtomicInteger inflight = new AtomicInteger();
+  private volatile double limit;
+  private double shortRtt;
+  private double longRtt;
+  private long samples;
+
+  GradientConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit,
+      final double tolerance, final double smoothing) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.smoothing = smoothing;
+    this.limit = initialLimit;
+  }
+
+  boolean tryAcquire() {
+    while (true) {
+      int current = inflight.get();
+      if (current >= (int) limit) {
+        return false;
+      }
+      if (inflight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @param rttNanos - Time the request took from being admitted until it completed.
+   */
+  void release(final long rttNanos) {
+    update(rttNanos, inflight.getAndDecrement());
+  }
+
+  int limit() {
+    return (int) limit;
+  }
+
+  int inflight() {
+    return inflight.get();
+  }
+
+  private synchronized void update(final long rttNanos, final int inflightAtRelease) {
+    samples++;
+    shortRtt += (rttNanos - shortRtt) / Math.min(samples, SHORT_WINDOW);
+    longRtt += (rttNanos - longRtt) / Math.min(samples, LONG_WINDOW);
+
+    // Let the long-term latency catch up quickly once an overload is over
+    if (longRtt > 2 * shortRtt) {
+      longRtt *= 0.95;
+    }
+    if (inflightAtRelease < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+    double estimate = limit * gradient + Math.sqrt(limit);
+    limit = Math.max(minLimit,
+        Math.min(maxLimit, limit * (1 - smoothing) + estimate * smoothing));
+  }
+}
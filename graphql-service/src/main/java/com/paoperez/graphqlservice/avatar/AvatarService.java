@@ -1,20 +1,21 @@
 package com.paoperez.graphqlservice.avatar;
 
+import com.paoperez.graphqlservice.downstream.DownstreamClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class AvatarService {
   @Value("${api.avatar.url}")
   private String avatarUrl;
-  private final RestTemplate restTemplate;
+  private final DownstreamClient downstreamClient;
 
-  public AvatarService(final RestTemplate restTemplate) {
-    this.restTemplate = restTemplate;
+  public AvatarService(final DownstreamClient downstreamClient) {
+    this.downstreamClient = downstreamClient;
   }
 
   public Avatar getAvatar(String id) {
-    return this.restTemplate.getForObject(String.format("%s/%s", avatarUrl, id), Avatar.class);
+    return this.downstreamClient.getForObject(String.format("%s/%s", avatarUrl, id),
+        Avatar.class);
   }
 }
@@ -1,20 +1,21 @@
 package com.paoperez.graphqlservice.category;
 
+import com.paoperez.graphqlservice.downstream.DownstreamClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class CategoryService {
   @Value("${api.category.url}")
   private String categoryUrl;
-  private final RestTemplate restTemplate;
+  private final DownstreamClient downstreamClient;
 
-  public CategoryService(final RestTemplate restTemplate) {
-    this.restTemplate = restTemplate;
+  public CategoryService(final DownstreamClient downstreamClient) {
+    this.downstreamClient = downstreamClient;
   }
 
   public Category getCategory(String id) {
-    return this.restTemplate.getForObject(String.format("%s/%s", categoryUrl, id), Category.class);
+    return this.downstreamClient.getForObject(String.format("%s/%s", categoryUrl, id),
+        Category.class);
   }
 }
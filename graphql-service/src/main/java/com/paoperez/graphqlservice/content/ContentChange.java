@@ -0,0 +1,17 @@
+package com.paoperez.graphqlservice.content;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentChange {
+  private String id;
+  private Type type;
+
+  public enum Type {
+    SAVED, DELETED
+  }
+}
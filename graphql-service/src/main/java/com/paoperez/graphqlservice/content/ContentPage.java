@@ -0,0 +1,15 @@
+package com.paoperez.graphqlservice.content;
+
+import java.util.Collection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentPage {
+  private Collection<Content> data;
+  private String endCursor;
+  private boolean hasNextPage;
+}
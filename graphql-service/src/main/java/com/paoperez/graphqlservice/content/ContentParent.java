@@ -0,0 +1,33 @@
+package com.paoperez.graphqlservice.content;
+
+import java.util.function.Function;
+
+/**
+ * What contents are found by, e.g. the contents of a category.
+ */
+public enum ContentParent {
+  CATEGORY("categoryId", Content::getCategoryId),
+  AVATAR("avatarId", Content::getAvatarId);
+
+  private final String field;
+  private final Function<Content, String> idOf;
+
+  ContentParent(final String field, final Function<Content, String> idOf) {
+    this.field = field;
+    this.idOf = idOf;
+  }
+
+  /**
+   * @return String - The field of content-service holding the id of the parent.
+   */
+  public String field() {
+    return field;
+  }
+
+  /**
+   * @return String - The id of the parent of the content.
+   */
+  public String idOf(final Content content) {
+    return idOf.apply(content);
+  }
+}
@@ -1,24 +1,70 @@
 package com.paoperez.graphqlservice.content;
 
+import com.paoperez.graphqlservice.downstream.DownstreamClient;
+import java.util.Collection;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @Service
 public class ContentService {
   @Value("${api.content.url}")
   private String contentUrl;
-  private final RestTemplate restTemplate;
+  private final DownstreamClient downstreamClient;
 
-  public ContentService(final RestTemplate restTemplate) {
-    this.restTemplate = restTemplate;
+  public ContentService(final DownstreamClient downstreamClient) {
+    this.downstreamClient = downstreamClient;
   }
 
-  public Content getContent(String id) {
-    return this.restTemplate.getForObject(String.format("%s/%s", contentUrl, id), Content.class);
+  /**
+   * @param id     - The id of the content.
+   * @param fields - The names of the fields of content-service to read, the others are null.
+   * @return Content - The content.
+   */
+  public Content getContent(String id, Collection<String> fields) {
+    return this.downstreamClient.getForObject(
+        withFields(String.format("%s/%s", contentUrl, id), fields), Content.class);
   }
 
-  public Contents getContents() {
-    return this.restTemplate.getForObject(contentUrl, Contents.class);
+  /**
+   * @param fields - The names of the fields of content-service to read, the others are null.
+   * @return Contents - All contents.
+   */
+  public Contents getContents(Collection<String> fields) {
+    return this.downstreamClient.getForObject(withFields(contentUrl, fields), Contents.class);
+  }
+
+  /**
+   * @param fields - The names of the fields of content-service to read, the others are null.
+   * @param top    - The number of contents.
+   * @return Contents - The ranked contents with the lowest ranks, in order.
+   */
+  public Contents getContents(Collection<String> fields, int top) {
+    return this.downstreamClient.getForObject(UriComponentsBuilder
+        .fromHttpUrl(withFields(contentUrl, fields)).queryParam("top", top).toUriString(),
+        Contents.class);
+  }
+
+  /**
+   * @param parent    - What the contents are found by.
+   * @param parentIds - The ids of the parents.
+   * @param count     - The number of contents for each parent.
+   * @param after     - The rank the contents come after, or null for the first ones.
+   * @param fields    - The names of the fields of content-service to read, the others are null.
+   * @return Contents - The ranked contents of each parent, in order of rank.
+   */
+  public Contents getContents(ContentParent parent, Collection<String> parentIds, int count,
+      Integer after, Collection<String> fields) {
+    UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(withFields(contentUrl, fields))
+        .queryParam(parent.field() + "s", String.join(",", parentIds)).queryParam("first", count);
+    if (after != null) {
+      uri.queryParam("after", after);
+    }
+    return this.downstreamClient.getForObject(uri.toUriString(), Contents.class);
+  }
+
+  private static String withFields(final String url, final Collection<String> fields) {
+    return UriComponentsBuilder.fromHttpUrl(url)
+        .queryParam("fields", String.join(",", fields)).toUriString();
   }
 }
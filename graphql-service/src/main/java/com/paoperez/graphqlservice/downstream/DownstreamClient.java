@@ -0,0 +1,291 @@
+package com.paoperez.graphqlservice.downstream;
+
+import com.paoperez.graphqlservice.downstream.DownstreamException.Reason;
+import com.paoperez.graphqlservice.downstream.DownstreamProperties.Settings;
+import com.paoperez.graphqlservice.loadbalancer.CallContext;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Issues idempotent GETs to downstream services through the load-balanced {@link RestTemplate}.
+ * Every service, identified by the host of the URL, gets its own timeouts, bulkhead, circuit
+ * breaker and retry budget; retries go to an instance that has not been tried yet. Services that
+ * opt in to hedging get a second request, on another instance, once the first one has been
+ * outstanding for longer than a recent percentile of response times; the first response wins.
+ */
+public class DownstreamClient {
+  private static final Logger logger = LoggerFactory.getLogger(DownstreamClient.class);
+
+  private final RestTemplate restTemplate;
+  private final DownstreamProperties properties;
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final BulkheadRegistry bulkheads;
+  private final MeterRegistry meterRegistry;
+  private final Executor hedgeExecutor;
+  private final RetryBudget hedgeBudget;
+  private final ConcurrentMap<String, Downstream> downstreams = new ConcurrentHashMap<>();
+
+  DownstreamClient(final RestTemplate restTemplate, final DownstreamProperties properties,
+      final CircuitBreakerRegistry circuitBreakers, final BulkheadRegistry bulkheads,
+      final MeterRegistry meterRegistry, final Executor hedgeExecutor) {
+    this.restTemplate = restTemplate;
+    this.properties = properties;
+    this.circuitBreakers = circuitBreakers;
+    this.bulkheads = bulkheads;
+    this.meterRegistry = meterRegistry;
+    this.hedgeExecutor = hedgeExecutor;
+    this.hedgeBudget = new RetryBudget(properties.getHedging().getRatio(),
+        properties.getHedging().getMinPerSecond());
+  }
+
+  /**
+   * @param url          - The URL to get, whose host is the id of the downstream service.
+   * @param responseType - The type of the response body.
+   * @return T - The response body.
+   * @throws DownstreamException - Thrown when no response could be obtained.
+   */
+  public <T> T getForObject(final String url, final Class<T> responseType) {
+    String serviceId = URI.create(url).getHost();
+    return downstreams.computeIfAbsent(serviceId, Downstream::new).get(url, responseType);
+  }
+
+  private final class Downstream {
+    private final String serviceId;
+    private final Settings settings;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final RetryBudget retryBudget;
+    private final Counter retried;
+    private final Counter retryBudgetExhausted;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    private final LatencyWindow latencies;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesDenied;
+
+    Downstream(final String serviceId) {
+      this.serviceId = serviceId;
+      this.settings = properties.settingsFor(serviceId);
+      this.circuitBreaker = circuitBreakers.circuitBreaker(serviceId,
+          CircuitBreakerConfig.custom()
+              .failureRateThreshold(settings.getFailureRateThreshold())
+              .slidingWindowSize(settings.getSlidingWindowSize())
+              .minimumNumberOfCalls(settings.getSlidingWindowSize())
+              .waitDurationInOpenState(Duration.ofMillis(settings.getWaitDurationInOpenState()))
+              .ignoreExceptions(HttpClientErrorException.class).build());
+      this.circuitBreaker.getEventPublisher().onStateTransition(event -> logger
+          .warn("Circuit breaker of {} is now {}", serviceId, event.getStateTransition()));
+      this.bulkhead = bulkheads.bulkhead(serviceId,
+          BulkheadConfig.custom().maxConcurrentCalls(settings.getMaxConcurrentCalls())
+              .maxWaitDuration(Duration.ZERO).build());
+      this.retryBudget =
+          new RetryBudget(settings.getRetryRatio(), settings.getMinRetriesPerSecond());
+      this.retried = Counter.builder("downstream.retries").tag("service", serviceId)
+          .tag("outcome", "retried").register(meterRegistry);
+      this.retryBudgetExhausted = Counter.builder("downstream.retries").tag("service", serviceId)
+          .tag("outcome", "budget_exhausted").register(meterRegistry);
+      this.circuitOpenRejections = Counter.builder("downstream.rejections")
+          .tag("service", serviceId).tag("reason", "circuit_open").register(meterRegistry);
+      this.bulkheadRejections = Counter.builder("downstream.rejections")
+          .tag("service", serviceId).tag("reason", "bulkhead_full").register(meterRegistry);
+      this.latencies = new LatencyWindow(settings.getHedgePercentile());
+      this.hedgesSent = Counter.builder("downstream.hedges").tag("service", serviceId)
+          .tag("outcome", "sent").register(meterRegistry);
+      this.hedgesWon = Counter.builder("downstream.hedges").tag("service", serviceId)
+          .tag("outcome", "won").register(meterRegistry);
+      this.hedgesDenied = Counter.builder("downstream.hedges").tag("service", serviceId)
+          .tag("outcome", "budget_exhausted").register(meterRegistry);
+      Gauge.builder("downstream.hedges.delay", latencies, LatencyWindow::percentileNanos)
+          .baseUnit("nanoseconds").tag("service", serviceId).register(meterRegistry);
+    }
+
+    <T> T get(final String url, final Class<T> responseType) {
+      retryBudget.deposit();
+      if (settings.getHedged()) {
+        hedgeBudget.deposit();
+      }
+
+      Set<String> triedInstances = new HashSet<>();
+      int retries = 0;
+      while (true) {
+        try {
+          return retries == 0 && settings.getHedged()
+              ? hedgedAttempt(url, responseType, triedInstances)
+              : attempt(url, responseType, triedInstances);
+        } catch (DownstreamException e) {
+          if (!isRetryable(e) || retries >= settings.getMaxRetries()) {
+            throw e;
+          }
+          if (!retryBudget.tryWithdraw()) {
+            retryBudgetExhausted.increment();
+            throw e;
+          }
+
+          retried.increment();
+          retries++;
+          logger.debug("Retrying {} on an instance other than {}", url, triedInstances);
+        }
+      }
+    }
+
+    private <T> T attempt(final String url, final Class<T> responseType,
+        final Set<String> triedInstances) {
+      CallContext context = context(triedInstances);
+      try {
+        return attempt(url, responseType, context);
+      } finally {
+        addInstance(triedInstances, context);
+      }
+    }
+
+    private <T> T hedgedAttempt(final String url, final Class<T> responseType,
+        final Set<String> triedInstances) {
+      long delay = latencies.percentileNanos();
+      if (delay <= 0) {
+        return attempt(url, responseType, triedInstances);
+      }
+
+      CallContext primaryContext = context(triedInstances);
+      CompletableFuture<T> primary;
+      try {
+        primary = CompletableFuture
+            .supplyAsync(() -> attempt(url, responseType, primaryContext), hedgeExecutor);
+      } catch (RejectedExecutionException e) {
+        return attempt(url, responseType, triedInstances);
+      }
+
+      try {
+        return primary.get(delay, TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        logger.trace("{} outstanding for longer than {}ns", url, delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new DownstreamException(serviceId, Reason.ERROR, e);
+      } catch (ExecutionException e) {
+        addInstance(triedInstances, primaryContext);
+        throw unwrap(e.getCause());
+      }
+
+      if (!hedgeBudget.tryWithdraw()) {
+        hedgesDenied.increment();
+        return await(primary, triedInstances, primaryContext);
+      }
+
+      Set<String> hedgeExcluded = new HashSet<>(triedInstances);
+      addInstance(hedgeExcluded, primaryContext);
+      CallContext hedgeContext = context(hedgeExcluded);
+      CompletableFuture<T> hedge;
+      try {
+        hedge = CompletableFuture
+            .supplyAsync(() -> attempt(url, responseType, hedgeContext), hedgeExecutor);
+      } catch (RejectedExecutionException e) {
+        return await(primary, triedInstances, primaryContext);
+      }
+      hedgesSent.increment();
+
+      CompletableFuture<T> first = new CompletableFuture<>();
+      AtomicInteger failures = new AtomicInteger();
+      primary.whenComplete((result, error) -> complete(first, result, error, failures, false));
+      hedge.whenComplete((result, error) -> complete(first, result, error, failures, true));
+
+      return await(first, triedInstances, primaryContext, hedgeContext);
+    }
+
+    private <T> void complete(final CompletableFuture<T> first, final T result,
+        final Throwable error, final AtomicInteger failures, final boolean hedge) {
+      if (error == null) {
+        if (first.complete(result) && hedge) {
+          hedgesWon.increment();
+        }
+      } else if (failures.incrementAndGet() == 2) {
+        first.completeExceptionally(error);
+      }
+    }
+
+    private <T> T await(final CompletableFuture<T> future, final Set<String> triedInstances,
+        final CallContext... contexts) {
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        for (CallContext context : contexts) {
+          addInstance(triedInstances, context);
+        }
+        throw unwrap(e.getCause());
+      }
+    }
+
+    private <T> T attempt(final String url, final Class<T> responseType,
+        final CallContext context) {
+      long start = System.nanoTime();
+      try (CallContext bound = context.bind()) {
+        T result = bulkhead.executeCallable(() -> circuitBreaker
+            .executeCallable(() -> restTemplate.getForObject(url, responseType)));
+        latencies.record(System.nanoTime() - start);
+        return result;
+      } catch (BulkheadFullException e) {
+        bulkheadRejections.increment();
+        throw new DownstreamException(serviceId, Reason.BULKHEAD_FULL, e);
+      } catch (CallNotPermittedException e) {
+        circuitOpenRejections.increment();
+        throw new DownstreamException(serviceId, Reason.CIRCUIT_OPEN, e);
+      } catch (HttpClientErrorException.NotFound e) {
+        throw new DownstreamException(serviceId, Reason.NOT_FOUND, e);
+      } catch (ResourceAccessException e) {
+        throw new DownstreamException(serviceId, Reason.UNAVAILABLE, e);
+      } catch (Exception e) {
+        throw new DownstreamException(serviceId, Reason.ERROR, e);
+      }
+    }
+
+    private CallContext context(final Set<String> excludedInstances) {
+      return CallContext.of(new HashSet<>(excludedInstances), settings.getConnectTimeout(),
+          settings.getReadTimeout());
+    }
+
+    private void addInstance(final Set<String> instances, final CallContext context) {
+      if (context.getInstance() != null) {
+        instances.add(context.getInstance());
+      }
+    }
+
+    private DownstreamException unwrap(final Throwable error) {
+      return error instanceof DownstreamException ? (DownstreamException) error
+          : new DownstreamException(serviceId, Reason.ERROR, error);
+    }
+
+    private boolean isRetryable(final DownstreamException e) {
+      return e.getCause() instanceof ResourceAccessException
+          || e.getCause() instanceof HttpServerErrorException;
+    }
+  }
+}
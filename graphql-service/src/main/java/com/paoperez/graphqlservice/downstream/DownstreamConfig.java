@@ -0,0 +1,54 @@
+package com.paoperez.graphqlservice.downstream;
+
+import brave.propagation.CurrentTraceContext;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DownstreamProperties.class)
+class DownstreamConfig {
+  @Bean
+  CircuitBreakerRegistry circuitBreakerRegistry(final MeterRegistry meterRegistry) {
+    CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+    return registry;
+  }
+
+  @Bean
+  BulkheadRegistry bulkheadRegistry(final MeterRegistry meterRegistry) {
+    BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+    TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+    return registry;
+  }
+
+  @Bean
+  DownstreamClient downstreamClient(final RestTemplate restTemplate,
+      final DownstreamProperties properties, final CircuitBreakerRegistry circuitBreakerRegistry,
+      final BulkheadRegistry bulkheadRegistry, final MeterRegistry meterRegistry,
+      final ObjectProvider<CurrentTraceContext> currentTraceContext) {
+    // Not a bean, so that it does not replace the application task executor. Idle threads die
+    // off and a saturated pool makes hedged calls fall back to plain ones.
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("downstream-");
+    threadFactory.setDaemon(true);
+    ThreadPoolExecutor hedgeExecutor = new ThreadPoolExecutor(0,
+        properties.getHedging().getMaxThreads(), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        threadFactory);
+    // Hedged calls carry on the trace of the request that made them
+    CurrentTraceContext traceContext = currentTraceContext.getIfAvailable();
+    return new DownstreamClient(restTemplate, properties, circuitBreakerRegistry,
+        bulkheadRegistry, meterRegistry,
+        traceContext != null ? traceContext.executor(hedgeExecutor) : hedgeExecutor);
+  }
+}
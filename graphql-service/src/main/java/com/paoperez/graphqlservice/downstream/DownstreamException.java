@@ -0,0 +1,30 @@
+package com.paoperez.graphqlservice.downstream;
+
+/**
+ * Thrown when a downstream service could not produce a response, so that the affected field can be
+ * resolved to null with an error instead of failing the whole GraphQL request.
+ */
+public class DownstreamException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public enum Reason {
+    CIRCUIT_OPEN, BULKHEAD_FULL, UNAVAILABLE, NOT_FOUND, ERROR
+  }
+
+  private final String serviceId;
+  private final Reason reason;
+
+  DownstreamException(final String serviceId, final Reason reason, final Throwable cause) {
+    super(String.format("Call to %s failed: %s.", serviceId, reason), cause);
+    this.serviceId = serviceId;
+    this.reason = reason;
+  }
+
+  public String getServiceId() {
+    return serviceId;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+}
@@ -0,0 +1,96 @@
+package com.paoperez.graphqlservice.downstream;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("downstream")
+class DownstreamProperties {
+  private Settings defaults = builtInDefaults();
+  private Map<String, Settings> services = new HashMap<>();
+  private Hedging hedging = new Hedging();
+
+  private static Settings builtInDefaults() {
+    Settings settings = new Settings();
+    settings.setConnectTimeout(1000);
+    settings.setReadTimeout(2000);
+    settings.setMaxConcurrentCalls(25);
+    settings.setFailureRateThreshold(50f);
+    settings.setSlidingWindowSize(20);
+    settings.setWaitDurationInOpenState(10000L);
+    settings.setMaxRetries(1);
+    settings.setRetryRatio(0.1);
+    settings.setMinRetriesPerSecond(5);
+    settings.setHedged(false);
+    settings.setHedgePercentile(95d);
+    return settings;
+  }
+
+  Settings settingsFor(final String serviceId) {
+    Settings settings = services.get(serviceId);
+    return settings == null ? defaults : settings.withDefaults(defaults);
+  }
+
+  @Data
+  static class Settings {
+    /** Connect timeout in milliseconds. */
+    private Integer connectTimeout;
+    /** Read timeout in milliseconds. */
+    private Integer readTimeout;
+    /** Maximum number of concurrent calls before new calls are rejected. */
+    private Integer maxConcurrentCalls;
+    /** Failure rate in percent above which the circuit breaker opens. */
+    private Float failureRateThreshold;
+    /** Number of calls over which the failure rate is computed. */
+    private Integer slidingWindowSize;
+    /** Milliseconds an open circuit breaker waits before letting trial calls through. */
+    private Long waitDurationInOpenState;
+    /** Maximum number of retries of a single call on another instance. */
+    private Integer maxRetries;
+    /** Retries allowed per call made, on top of the minimum below. */
+    private Double retryRatio;
+    /** Retries always allowed per second regardless of the ratio. */
+    private Integer minRetriesPerSecond;
+    /** Whether a GET slower than the hedge percentile is duplicated to another instance. */
+    private Boolean hedged;
+    /** Percentile of recent response times after which a hedge is sent. */
+    private Double hedgePercentile;
+
+    Settings withDefaults(final Settings defaults) {
+      Settings merged = new Settings();
+      merged.connectTimeout = connectTimeout != null ? connectTimeout : defaults.connectTimeout;
+      merged.readTimeout = readTimeout != null ? readTimeout : defaults.readTimeout;
+      merged.maxConcurrentCalls =
+          maxConcurrentCalls != null ? maxConcurrentCalls : defaults.maxConcurrentCalls;
+      merged.failureRateThreshold =
+          failureRateThreshold != null ? failureRateThreshold : defaults.failureRateThreshold;
+      merged.slidingWindowSize =
+          slidingWindowSize != null ? slidingWindowSize : defaults.slidingWindowSize;
+      merged.waitDurationInOpenState = waitDurationInOpenState != null ? waitDurationInOpenState
+          : defaults.waitDurationInOpenState;
+      merged.maxRetries = maxRetries != null ? maxRetries : defaults.maxRetries;
+      merged.retryRatio = retryRatio != null ? retryRatio : defaults.retryRatio;
+      merged.minRetriesPerSecond =
+          minRetriesPerSecond != null ? minRetriesPerSecond : defaults.minRetriesPerSecond;
+      merged.hedged = hedged != null ? hedged : defaults.hedged;
+      merged.hedgePercentile =
+          hedgePercentile != null ? hedgePercentile : defaults.hedgePercentile;
+      return merged;
+    }
+  }
+
+  /**
+   * Settings shared by all hedged services.
+   */
+  @Data
+  static class Hedging {
+    /** Hedges allowed per call made across all services, on top of the minimum below. */
+    private double ratio = 0.05;
+    /** Hedges always allowed per second regardless of the ratio. */
+    private int minPerSecond = 2;
+    /** Maximum number of threads executing hedged calls. */
+    private int maxThreads = 64;
+  }
+}
@@ -0,0 +1,43 @@
+package com.paoperez.graphqlservice.downstream;
+
+import java.util.Arrays;
+
+/**
+ * Ring buffer of the most recent response times of a downstream service, from which a percentile
+ * is recomputed every {@value #RECOMPUTE_EVERY} samples.
+ */
+final class LatencyWindow {
+  static final int SIZE = 1024;
+  static final int MIN_SAMPLES = 100;
+  static final int RECOMPUTE_EVERY = 64;
+
+  private final long[] samples = new long[SIZE];
+  private final double percentile;
+  private long count;
+  private volatile long percentileNanos;
+
+  /**
+   * @param percentile - The percentile to track, between 0 and 100.
+   */
+  LatencyWindow(final double percentile) {
+    this.percentile = percentile;
+  }
+
+  synchronized void record(final long nanos) {
+    samples[(int) (count % SIZE)] = nanos;
+    count++;
+    if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+      long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SIZE));
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(sorted.length * percentile / 100) - 1;
+      percentileNanos = sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+  }
+
+  /**
+   * @return long - The tracked percentile in nanoseconds, or 0 until enough samples were recorded.
+   */
+  long percentileNanos() {
+    return percentileNanos;
+  }
+}
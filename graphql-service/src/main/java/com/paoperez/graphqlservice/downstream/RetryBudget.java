@@ -0,0 +1,45 @@
+package com.paoperez.graphqlservice.downstream;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket bounding retries to a ratio of the calls made plus a small constant rate, so that
+ * retries cannot multiply the load on a downstream service that is already struggling.
+ */
+final class RetryBudget {
+  private final double ratio;
+  private final int minPerSecond;
+  private final double capacity;
+  private double balance;
+  private long lastRefill;
+
+  RetryBudget(final double ratio, final int minPerSecond) {
+    this.ratio = ratio;
+    this.minPerSecond = minPerSecond;
+    this.capacity = Math.max(minPerSecond, 1) * 10d;
+    this.balance = minPerSecond;
+    this.lastRefill = System.nanoTime();
+  }
+
+  synchronized void deposit() {
+    refill();
+    balance = Math.min(balance + ratio, capacity);
+  }
+
+  synchronized boolean tryWithdraw() {
+    refill();
+    if (balance < 1) {
+      return false;
+    }
+
+    balance--;
+    return true;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    double seconds = (double) (now - lastRefill) / TimeUnit.SECONDS.toNanos(1);
+    balance = Math.min(balance + seconds * minPerSecond, capacity);
+    lastRefill = now;
+  }
+}
@@ -1,20 +1,21 @@
 package com.paoperez.graphqlservice.image;
 
+import com.paoperez.graphqlservice.downstream.DownstreamClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class ImageService {
   @Value("${api.image.url}")
   private String imageUrl;
-  private final RestTemplate restTemplate;
+  private final DownstreamClient downstreamClient;
 
-  public ImageService(final RestTemplate restTemplate) {
-    this.restTemplate = restTemplate;
+  public ImageService(final DownstreamClient downstreamClient) {
+    this.downstreamClient = downstreamClient;
   }
 
   public Image getImage(String id) {
-    return this.restTemplate.getForObject(String.format("%s/%s", imageUrl, id), Image.class);
+    return this.downstreamClient.getForObject(String.format("%s/%s", imageUrl, id),
+        Image.class);
   }
 }
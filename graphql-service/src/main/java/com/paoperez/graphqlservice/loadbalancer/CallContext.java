@@ -0,0 +1,79 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import java.util.Set;
+
+/**
+ * Per-attempt settings of a downstream call, bound to the calling thread while the load-balanced
+ * {@code RestTemplate} executes. It tells the rule which instances to avoid, tells the request
+ * factory how long to wait, and records the instance that served the attempt.
+ */
+public final class CallContext implements AutoCloseable {
+  private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+  private final Set<String> excludedInstances;
+  private final int connectTimeout;
+  private final int readTimeout;
+  private volatile String instance;
+
+  private CallContext(final Set<String> excludedInstances, final int connectTimeout,
+      final int readTimeout) {
+    this.excludedInstances = excludedInstances;
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * @param excludedInstances - The {@code host:port} of instances that should not be chosen unless
+   *                          there is no other instance left.
+   * @param connectTimeout    - The connect timeout in milliseconds.
+   * @param readTimeout       - The read timeout in milliseconds.
+   * @return CallContext - The context, not yet bound to any thread.
+   */
+  public static CallContext of(final Set<String> excludedInstances, final int connectTimeout,
+      final int readTimeout) {
+    return new CallContext(excludedInstances, connectTimeout, readTimeout);
+  }
+
+  /**
+   * Binds the context to the current thread, which may differ from the one that created it.
+   *
+   * @return CallContext - This context, to be closed once the attempt is over.
+   */
+  public CallContext bind() {
+    CURRENT.set(this);
+    return this;
+  }
+
+  static CallContext current() {
+    return CURRENT.get();
+  }
+
+  Set<String> getExcludedInstances() {
+    return excludedInstances;
+  }
+
+  int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  int getReadTimeout() {
+    return readTimeout;
+  }
+
+  void setInstance(final String instance) {
+    this.instance = instance;
+  }
+
+  /**
+   * @return String - The {@code host:port} of the instance the attempt was sent to, or null if it
+   *         never reached the request factory.
+   */
+  public String getInstance() {
+    return instance;
+  }
+
+  @Override
+  public void close() {
+    CURRENT.remove();
+  }
+}
@@ -0,0 +1,22 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+/**
+ * Applies the timeouts of the current {@link CallContext}, falling back to the configured defaults
+ * for calls made outside of one.
+ */
+public final class CallContextRequestFactory extends SimpleClientHttpRequestFactory {
+  @Override
+  protected void prepareConnection(final HttpURLConnection connection, final String httpMethod)
+      throws IOException {
+    super.prepareConnection(connection, httpMethod);
+    CallContext context = CallContext.current();
+    if (context != null) {
+      connection.setConnectTimeout(context.getConnectTimeout());
+      connection.setReadTimeout(context.getReadTimeout());
+    }
+  }
+}
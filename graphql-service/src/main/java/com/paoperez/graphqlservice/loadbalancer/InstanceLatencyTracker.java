@@ -0,0 +1,143 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a peak-sensitive, time-decayed EWMA of response times and the number of outstanding
+ * requests for every downstream instance, keyed by its {@code host:port}. An instance that cannot
+ * be connected to a number of times in a row is ejected for a while, so that a dead instance stops
+ * getting traffic long before the registry and the server lists catch up.
+ */
+class InstanceLatencyTracker {
+  static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ConcurrentMap<String, InstanceStats> instances = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final long decayNanos;
+  private final int ejectAfterFailures;
+  private final long ejectionNanos;
+
+  InstanceLatencyTracker(final MeterRegistry meterRegistry, final long decayMillis,
+      final int ejectAfterFailures, final long ejectionMillis) {
+    this.meterRegistry = meterRegistry;
+    this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+    this.ejectAfterFailures = ejectAfterFailures;
+    this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+  }
+
+  /**
+   * Starts tracking an instance of the given service. Calls to untracked instances are ignored.
+   */
+  InstanceStats register(final String serviceId, final String instance) {
+    return instances.computeIfAbsent(instance, key -> {
+      Counter ejections = Counter.builder("graphql.loadbalancer.instance.ejections")
+          .tag("service", serviceId).tag("instance", key).register(meterRegistry);
+      InstanceStats stats =
+          new InstanceStats(decayNanos, ejectAfterFailures, ejectionNanos, ejections);
+      Gauge.builder("graphql.loadbalancer.instance.latency", stats, s -> s.cost(System.nanoTime()))
+          .baseUnit("milliseconds").tag("service", serviceId).tag("instance", key)
+          .register(meterRegistry);
+      Gauge.builder("graphql.loadbalancer.instance.outstanding", stats, InstanceStats::outstanding)
+          .tag("service", serviceId).tag("instance", key).register(meterRegistry);
+      Gauge.builder("graphql.loadbalancer.instance.score", stats, s -> s.score(System.nanoTime()))
+          .tag("service", serviceId).tag("instance", key).register(meterRegistry);
+      return stats;
+    });
+  }
+
+  InstanceStats find(final String instance) {
+    return instances.get(instance);
+  }
+
+  static final class InstanceStats {
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger connectFailures = new AtomicInteger();
+    private final long decayNanos;
+    private final int ejectAfterFailures;
+    private final long ejectionNanos;
+    private final Counter ejections;
+    private double costNanos;
+    private long lastUpdate = System.nanoTime();
+    private volatile long ejectedUntil = System.nanoTime();
+
+    InstanceStats(final long decayNanos, final int ejectAfterFailures, final long ejectionNanos,
+        final Counter ejections) {
+      this.decayNanos = decayNanos;
+      this.ejectAfterFailures = ejectAfterFailures;
+      this.ejectionNanos = ejectionNanos;
+      this.ejections = ejections;
+    }
+
+    void start() {
+      outstanding.incrementAndGet();
+    }
+
+    void complete(final long elapsedNanos, final boolean failed) {
+      outstanding.decrementAndGet();
+      observe(failed ? Math.max(elapsedNanos, FAILURE_PENALTY_NANOS) : elapsedNanos,
+          System.nanoTime());
+    }
+
+    /**
+     * Any response, even an error, proves the instance is reachable.
+     */
+    void connected() {
+      connectFailures.set(0);
+    }
+
+    /**
+     * Ejects the instance once it could not be connected to often enough in a row. While the
+     * failures keep coming, every further one renews the ejection.
+     */
+    void connectFailed(final long now) {
+      if (connectFailures.incrementAndGet() >= ejectAfterFailures) {
+        ejectedUntil = now + ejectionNanos;
+        ejections.increment();
+      }
+    }
+
+    boolean isEjected(final long now) {
+      return now - ejectedUntil < 0;
+    }
+
+    int outstanding() {
+      return outstanding.get();
+    }
+
+    /**
+     * A slow response raises the cost immediately, faster responses pull it down gradually.
+     */
+    synchronized void observe(final long rttNanos, final long now) {
+      double decayed = decayed(now);
+      if (rttNanos > decayed) {
+        costNanos = rttNanos;
+      } else {
+        double weight = Math.exp(-(double) Math.max(now - lastUpdate, 0) / decayNanos);
+        costNanos = decayed * weight + rttNanos * (1 - weight);
+      }
+      lastUpdate = now;
+    }
+
+    /**
+     * @return double - the latency estimate in milliseconds, decayed towards zero while the
+     *         instance receives no traffic so that a recovered instance gets probed again.
+     */
+    synchronized double cost(final long now) {
+      return decayed(now) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    double score(final long now) {
+      return cost(now) * (outstanding() + 1);
+    }
+
+    private double decayed(final long now) {
+      return costNanos * Math.exp(-(double) Math.max(now - lastUpdate, 0) / decayNanos);
+    }
+  }
+}
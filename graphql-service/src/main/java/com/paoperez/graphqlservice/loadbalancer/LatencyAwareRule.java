@@ -0,0 +1,94 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.Server;
+import com.paoperez.graphqlservice.loadbalancer.InstanceLatencyTracker.InstanceStats;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Power-of-two-choices over the reachable servers: two distinct servers are sampled at random and
+ * the one with the lower score wins. Instances excluded by the current {@link CallContext} and
+ * instances ejected by the {@link InstanceLatencyTracker} are skipped while any other instance is
+ * available.
+ */
+final class LatencyAwareRule extends AbstractLoadBalancerRule {
+  enum Strategy {
+    /** Score is the number of outstanding requests. */
+    LEAST_OUTSTANDING,
+    /** Score is the decayed latency EWMA weighted by the number of outstanding requests. */
+    PEAK_EWMA
+  }
+
+  private final InstanceLatencyTracker tracker;
+  private final Strategy strategy;
+  private String serviceId;
+
+  LatencyAwareRule(final InstanceLatencyTracker tracker, final Strategy strategy) {
+    this.tracker = tracker;
+    this.strategy = strategy;
+  }
+
+  @Override
+  public void initWithNiwsConfig(final IClientConfig clientConfig) {
+    this.serviceId = clientConfig.getClientName();
+  }
+
+  @Override
+  public Server choose(final Object key) {
+    ILoadBalancer loadBalancer = getLoadBalancer();
+    if (loadBalancer == null) {
+      return null;
+    }
+
+    List<Server> servers = candidates(loadBalancer.getReachableServers());
+    int size = servers.size();
+    if (size == 0) {
+      return null;
+    }
+    if (size == 1) {
+      // Registered all the same, so that its calls are tracked and its failures can eject it
+      Server server = servers.get(0);
+      tracker.register(serviceId, server.getHostPort());
+      return server;
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+
+    Server a = servers.get(first);
+    Server b = servers.get(second);
+    return score(a) <= score(b) ? a : b;
+  }
+
+  private List<Server> candidates(final List<Server> servers) {
+    CallContext context = CallContext.current();
+    Set<String> excluded =
+        context == null ? Collections.emptySet() : context.getExcludedInstances();
+    long now = System.nanoTime();
+
+    List<Server> remaining = servers.stream()
+        .filter(server -> !excluded.contains(server.getHostPort()) && !isEjected(server, now))
+        .collect(Collectors.toList());
+    return remaining.isEmpty() ? servers : remaining;
+  }
+
+  private boolean isEjected(final Server server, final long now) {
+    InstanceStats stats = tracker.find(server.getHostPort());
+    return stats != null && stats.isEjected(now);
+  }
+
+  private double score(final Server server) {
+    InstanceStats stats = tracker.register(serviceId, server.getHostPort());
+    return strategy == Strategy.PEAK_EWMA ? stats.score(System.nanoTime()) : stats.outstanding();
+  }
+}
@@ -0,0 +1,59 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.IRule;
+import com.netflix.loadbalancer.ServerList;
+import com.netflix.loadbalancer.ZoneAvoidanceRule;
+import com.paoperez.graphqlservice.loadbalancer.LatencyAwareRule.Strategy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Default configuration of every Ribbon client context. Deliberately not annotated with
+ * {@code @Configuration} so that component scanning does not pick it up in the main context.
+ */
+class LatencyAwareRuleConfiguration {
+  @Bean
+  IRule ribbonRule(final IClientConfig config, final InstanceLatencyTracker tracker,
+      @Value("${loadbalancer.rule:peak-ewma}") final String rule) {
+    AbstractLoadBalancerRule ribbonRule;
+    switch (rule) {
+      case "least-outstanding":
+        ribbonRule = new LatencyAwareRule(tracker, Strategy.LEAST_OUTSTANDING);
+        break;
+      case "peak-ewma":
+        ribbonRule = new LatencyAwareRule(tracker, Strategy.PEAK_EWMA);
+        break;
+      case "zone-avoidance":
+        ribbonRule = new ZoneAvoidanceRule();
+        break;
+      default:
+        throw new IllegalArgumentException(String.format("Unknown load balancer rule %s.", rule));
+    }
+    ribbonRule.initWithNiwsConfig(config);
+
+    return ribbonRule;
+  }
+
+  /**
+   * Backs the Eureka server list of the client with the registry snapshot. Static, since it is a
+   * post processor; the snapshot is resolved lazily from the main context.
+   */
+  @Bean
+  static BeanPostProcessor snapshotServerListPostProcessor(
+      final ObjectProvider<RegistrySnapshot> snapshot,
+      @Value("${ribbon.client.name}") final String serviceId) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof ServerList && !(bean instanceof SnapshotServerList)) {
+          return new SnapshotServerList((ServerList<?>) bean, snapshot.getObject(), serviceId);
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,40 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Paths;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.ribbon.RibbonClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+@Configuration(proxyBeanMethods = false)
+@RibbonClients(defaultConfiguration = LatencyAwareRuleConfiguration.class)
+class LoadBalancerConfig {
+  @Bean
+  InstanceLatencyTracker instanceLatencyTracker(final MeterRegistry meterRegistry,
+      @Value("${loadbalancer.decay:10000}") final long decayMillis,
+      @Value("${loadbalancer.ejection.consecutive-failures:2}") final int ejectAfterFailures,
+      @Value("${loadbalancer.ejection.duration:30000}") final long ejectionMillis) {
+    return new InstanceLatencyTracker(meterRegistry, decayMillis, ejectAfterFailures,
+        ejectionMillis);
+  }
+
+  @Bean
+  ClientHttpRequestFactory clientHttpRequestFactory(final InstanceLatencyTracker tracker,
+      @Value("${loadbalancer.connect-timeout:1000}") final int connectTimeout,
+      @Value("${loadbalancer.read-timeout:5000}") final int readTimeout) {
+    CallContextRequestFactory requestFactory = new CallContextRequestFactory();
+    requestFactory.setConnectTimeout(connectTimeout);
+    requestFactory.setReadTimeout(readTimeout);
+
+    return new TrackingClientHttpRequestFactory(requestFactory, tracker);
+  }
+
+  @Bean
+  RegistrySnapshot registrySnapshot(
+      @Value("${loadbalancer.registry-snapshot:/var/lib/eureka/graphql-registry.json}")
+      final String path) {
+    return new RegistrySnapshot(Paths.get(path));
+  }
+}
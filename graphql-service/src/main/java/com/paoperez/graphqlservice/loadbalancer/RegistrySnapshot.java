@@ -0,0 +1,76 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The last known {@code host:port} of every instance of every downstream service, kept in a file
+ * so that calls can be routed right after a restart, before the first registry fetch succeeds.
+ */
+class RegistrySnapshot {
+  private static final Logger logger = LoggerFactory.getLogger(RegistrySnapshot.class);
+  private static final TypeReference<Map<String, List<String>>> TYPE =
+      new TypeReference<Map<String, List<String>>>() {};
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ConcurrentMap<String, List<String>> instances = new ConcurrentHashMap<>();
+  private final Path path;
+
+  RegistrySnapshot(final Path path) {
+    this.path = path;
+    if (Files.exists(path)) {
+      try {
+        instances.putAll(objectMapper.readValue(path.toFile(), TYPE));
+        logger.info("Loaded last known instances of {} from {}", instances.keySet(), path);
+      } catch (IOException e) {
+        logger.warn("Ignoring unreadable registry snapshot {}", path, e);
+      }
+    }
+  }
+
+  List<String> instances(final String serviceId) {
+    return instances.getOrDefault(serviceId, Collections.emptyList());
+  }
+
+  /**
+   * Records the current instances of a service, writing the file only when they changed.
+   */
+  void update(final String serviceId, final List<String> current) {
+    List<String> sorted = new ArrayList<>(current);
+    Collections.sort(sorted);
+    if (sorted.isEmpty() || sorted.equals(instances.put(serviceId, sorted))) {
+      return;
+    }
+
+    save();
+  }
+
+  private synchronized void save() {
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "registry", ".tmp");
+      objectMapper.writeValue(temp.toFile(), new TreeMap<>(instances));
+      try {
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not write registry snapshot {}", path, e);
+    }
+  }
+}
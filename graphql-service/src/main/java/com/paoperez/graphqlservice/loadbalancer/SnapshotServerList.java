@@ -0,0 +1,54 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records every non-empty server list of a service in the {@link RegistrySnapshot} and falls back
+ * to the last known instances while the registry has none, e.g. before the first fetch after a
+ * restart. Last known instances that are gone get ejected after their first connection failures.
+ */
+final class SnapshotServerList implements ServerList<Server> {
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotServerList.class);
+
+  private final ServerList<?> delegate;
+  private final RegistrySnapshot snapshot;
+  private final String serviceId;
+
+  SnapshotServerList(final ServerList<?> delegate, final RegistrySnapshot snapshot,
+      final String serviceId) {
+    this.delegate = delegate;
+    this.snapshot = snapshot;
+    this.serviceId = serviceId;
+  }
+
+  @Override
+  public List<Server> getInitialListOfServers() {
+    return withSnapshot(delegate.getInitialListOfServers());
+  }
+
+  @Override
+  public List<Server> getUpdatedListOfServers() {
+    return withSnapshot(delegate.getUpdatedListOfServers());
+  }
+
+  private List<Server> withSnapshot(final List<?> current) {
+    List<Server> servers =
+        current.stream().map(Server.class::cast).collect(Collectors.toList());
+    if (!servers.isEmpty()) {
+      snapshot.update(serviceId,
+          servers.stream().map(Server::getHostPort).collect(Collectors.toList()));
+      return servers;
+    }
+
+    List<String> known = snapshot.instances(serviceId);
+    if (!known.isEmpty()) {
+      logger.debug("No instances of {} in the registry, using last known {}", serviceId, known);
+    }
+    return known.stream().map(Server::new).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,97 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import com.paoperez.graphqlservice.loadbalancer.InstanceLatencyTracker.InstanceStats;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Sits below the load balancer interceptor, so it sees the URI of the chosen instance, and feeds
+ * the response time of every call into the {@link InstanceLatencyTracker}.
+ */
+final class TrackingClientHttpRequestFactory implements ClientHttpRequestFactory {
+  private final ClientHttpRequestFactory delegate;
+  private final InstanceLatencyTracker tracker;
+
+  TrackingClientHttpRequestFactory(final ClientHttpRequestFactory delegate,
+      final InstanceLatencyTracker tracker) {
+    this.delegate = delegate;
+    this.tracker = tracker;
+  }
+
+  @Override
+  public ClientHttpRequest createRequest(final URI uri, final HttpMethod httpMethod)
+      throws IOException {
+    ClientHttpRequest request = delegate.createRequest(uri, httpMethod);
+    String instance = instanceOf(uri);
+    CallContext context = CallContext.current();
+    if (context != null) {
+      context.setInstance(instance);
+    }
+    InstanceStats stats = tracker.find(instance);
+    return stats == null ? request : new TrackingClientHttpRequest(request, stats);
+  }
+
+  static String instanceOf(final URI uri) {
+    int port = uri.getPort();
+    if (port == -1) {
+      port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+    return uri.getHost() + ":" + port;
+  }
+
+  private static final class TrackingClientHttpRequest implements ClientHttpRequest {
+    private final ClientHttpRequest delegate;
+    private final InstanceStats stats;
+
+    TrackingClientHttpRequest(final ClientHttpRequest delegate, final InstanceStats stats) {
+      this.delegate = delegate;
+      this.stats = stats;
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+      long start = System.nanoTime();
+      stats.start();
+      boolean failed = true;
+      try {
+        ClientHttpResponse response = delegate.execute();
+        stats.connected();
+        failed = response.getStatusCode().is5xxServerError();
+        return response;
+      } catch (ConnectException | NoRouteToHostException e) {
+        stats.connectFailed(System.nanoTime());
+        throw e;
+      } finally {
+        stats.complete(System.nanoTime() - start, failed);
+      }
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+      return delegate.getBody();
+    }
+
+    @Override
+    public String getMethodValue() {
+      return delegate.getMethodValue();
+    }
+
+    @Override
+    public URI getURI() {
+      return delegate.getURI();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * The results of one execution of a subscription, sent to every client operation with the same
+ * {@link OperationKey}. Each result is written as JSON once, and each message made from it once
+ * per operation id rather than once per client, since clients mostly number their operations
+ * alike.
+ */
+final class Broadcast implements Subscriber<ExecutionResult> {
+  private static final Logger logger = LoggerFactory.getLogger(Broadcast.class);
+
+  private final ObjectMapper objectMapper;
+  private final Timer fanOuts;
+  private final Consumer<Broadcast> onEnd;
+  private final Set<Target> targets = ConcurrentHashMap.newKeySet();
+  private volatile Subscription subscription;
+  private volatile boolean cancelled;
+
+  /**
+   * @param objectMapper - The mapper writing the results.
+   * @param fanOuts      - The timer of writing and buffering a result for every target.
+   * @param onEnd        - Run when the execution ends with an error or no more results.
+   */
+  Broadcast(final ObjectMapper objectMapper, final Timer fanOuts,
+      final Consumer<Broadcast> onEnd) {
+    this.objectMapper = objectMapper;
+    this.fanOuts = fanOuts;
+    this.onEnd = onEnd;
+  }
+
+  void add(final Connection connection, final String operationId) {
+    targets.add(new Target(connection, operationId));
+  }
+
+  /**
+   * @return boolean - Whether no operation is left, in which case the execution is cancelled.
+   */
+  boolean remove(final Connection connection, final String operationId) {
+    targets.remove(new Target(connection, operationId));
+    if (targets.isEmpty()) {
+      // Cancelled once subscribed, if the execution is still starting
+      cancelled = true;
+      Subscription current = subscription;
+      if (current != null) {
+        current.cancel();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  int size() {
+    return targets.size();
+  }
+
+  /**
+   * @param errors - The errors of the execution, which did not start, sent to every operation.
+   */
+  void fail(final List<GraphQLError> errors) {
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(
+          errors.stream().map(GraphQLError::toSpecification).collect(Collectors.toList()));
+    } catch (JsonProcessingException e) {
+      payload = null;
+    }
+    end(Messages.ERROR, payload);
+  }
+
+  @Override
+  public void onSubscribe(final Subscription subscription) {
+    this.subscription = subscription;
+    if (cancelled) {
+      subscription.cancel();
+      return;
+    }
+    subscription.request(Long.MAX_VALUE);
+  }
+
+  @Override
+  public void onNext(final ExecutionResult result) {
+    fanOuts.record(() -> {
+      String payload;
+      try {
+        payload = objectMapper.writeValueAsString(result.toSpecification());
+      } catch (JsonProcessingException e) {
+        logger.warn("Could not write a subscription result", e);
+        return;
+      }
+      send(Messages.DATA, payload);
+    });
+  }
+
+  @Override
+  public void onError(final Throwable throwable) {
+    logger.warn("Subscription failed", throwable);
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(
+          Collections.singletonMap("message", "Subscription failed."));
+    } catch (JsonProcessingException e) {
+      payload = null;
+    }
+    end(Messages.ERROR, payload);
+  }
+
+  @Override
+  public void onComplete() {
+    end(Messages.COMPLETE, null);
+  }
+
+  private void end(final String type, final String payload) {
+    onEnd.accept(this);
+    send(type, payload);
+    for (Target target : targets) {
+      target.connection.operations().remove(target.operationId);
+    }
+  }
+
+  private void send(final String type, final String payload) {
+    Map<String, TextMessage> messages = new HashMap<>();
+    for (Target target : targets) {
+      target.connection.send(messages.computeIfAbsent(target.operationId,
+          id -> Messages.message(objectMapper, type, id, payload)));
+    }
+  }
+
+  private static final class Target {
+    private final Connection connection;
+    private final String operationId;
+
+    Target(final Connection connection, final String operationId) {
+      this.connection = connection;
+      this.operationId = operationId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Target)) {
+        return false;
+      }
+      Target other = (Target) o;
+      return connection == other.connection && operationId.equals(other.operationId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(connection, operationId);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.paoperez.graphqlservice.subscription;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * A WebSocket connection of a client, whose messages wait in a buffer of their own to be sent by
+ * a pool shared with the other connections, one message at a time. A client reading too slowly
+ * to keep its buffer from filling up is disconnected, rather than holding messages for it or
+ * holding up the others.
+ */
+final class Connection {
+  private static final Logger logger = LoggerFactory.getLogger(Connection.class);
+
+  private final WebSocketSession session;
+  private final BlockingQueue<TextMessage> buffer;
+  private final Executor senders;
+  private final Runnable onEvicted;
+  private final AtomicBoolean sending = new AtomicBoolean();
+  private final AtomicBoolean evicted = new AtomicBoolean();
+  // The keys of the operations the client started, by their id
+  private final Map<String, OperationKey> operations = new ConcurrentHashMap<>();
+
+  /**
+   * @param session    - The session of the connection.
+   * @param bufferSize - The number of messages waiting to be sent, beyond which it is evicted.
+   * @param senders    - The pool sending the messages.
+   * @param onEvicted  - Run when it is evicted.
+   */
+  Connection(final WebSocketSession session, final int bufferSize, final Executor senders,
+      final Runnable onEvicted) {
+    this.session = session;
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    this.senders = senders;
+    this.onEvicted = onEvicted;
+  }
+
+  String id() {
+    return session.getId();
+  }
+
+  Map<String, OperationKey> operations() {
+    return operations;
+  }
+
+  /**
+   * @param message - A message to send once those before it are sent.
+   */
+  void send(final TextMessage message) {
+    if (evicted.get()) {
+      return;
+    }
+    if (!buffer.offer(message)) {
+      evict();
+      return;
+    }
+    schedule();
+  }
+
+  private void evict() {
+    if (evicted.compareAndSet(false, true)) {
+      buffer.clear();
+      onEvicted.run();
+      // Closed by the sender, which may be still blocked on the message before
+      schedule();
+    }
+  }
+
+  private void schedule() {
+    if (sending.compareAndSet(false, true)) {
+      senders.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      if (evicted.get()) {
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+        return;
+      }
+      try {
+        for (TextMessage message = buffer.poll(); message != null; message = buffer.poll()) {
+          session.sendMessage(message);
+        }
+      } catch (IOException | RuntimeException e) {
+        logger.debug("Could not send to {}, closing it", session.getId(), e);
+        buffer.clear();
+        close(CloseStatus.SERVER_ERROR);
+        return;
+      }
+      sending.set(false);
+      // Messages buffered or an eviction after the last poll but before the flag was cleared
+    } while ((!buffer.isEmpty() || evicted.get()) && sending.compareAndSet(false, true));
+  }
+
+  private void close(final CloseStatus status) {
+    try {
+      session.close(status);
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Could not close {}", session.getId(), e);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.paoperez.graphqlservice.content.ContentChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * The changes to contents content-service reports, handed to the subscriptions to them in order
+ * on a single thread. Subscriptions to one content are found by its id rather than by checking
+ * every subscription, so that changes cost the same however many subscriptions are for other
+ * contents. Changes reported faster than they are handed out are dropped once a queue is full.
+ */
+public final class ContentChanges {
+  private final Set<ChangeSubscription> all = ConcurrentHashMap.newKeySet();
+  private final ConcurrentMap<String, Set<ChangeSubscription>> byId = new ConcurrentHashMap<>();
+  private final ThreadPoolExecutor executor;
+  private final Counter published;
+  private final Counter dropped;
+
+  /**
+   * @param queueSize     - The number of changes waiting to be handed out, beyond which new ones
+   *                      are dropped.
+   * @param meterRegistry - The registry of the changes published and dropped.
+   */
+  public ContentChanges(final int queueSize, final MeterRegistry meterRegistry) {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("content-changes-");
+    threadFactory.setDaemon(true);
+    this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), threadFactory);
+    this.published = changes("published", meterRegistry);
+    this.dropped = changes("dropped", meterRegistry);
+    Gauge.builder("graphql.subscriptions.changes.subscribers", this, ContentChanges::subscribers)
+        .description("Subscriptions to content changes").register(meterRegistry);
+  }
+
+  /**
+   * @param change - A change to hand to the subscriptions to its content and to all contents.
+   */
+  public void publish(final ContentChange change) {
+    try {
+      executor.execute(() -> deliver(change));
+      published.increment();
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * @param id - The id of the content to subscribe to, or null for all contents.
+   * @return Publisher<ContentChange> - The changes from when it is subscribed to.
+   */
+  public Publisher<ContentChange> publisher(@Nullable final String id) {
+    return subscriber -> {
+      ChangeSubscription subscription = new ChangeSubscription(id, subscriber);
+      subscriber.onSubscribe(subscription);
+      if (subscription.cancelled) {
+        return;
+      }
+      if (id == null) {
+        all.add(subscription);
+      } else {
+        // Added within compute so that a cancel emptying the set cannot remove it meanwhile
+        byId.compute(id, (k, subscriptions) -> {
+          Set<ChangeSubscription> added =
+              subscriptions == null ? ConcurrentHashMap.newKeySet() : subscriptions;
+          added.add(subscription);
+          return added;
+        });
+      }
+    };
+  }
+
+  int subscribers() {
+    return all.size() + byId.values().stream().mapToInt(Set::size).sum();
+  }
+
+  private void deliver(final ContentChange change) {
+    for (ChangeSubscription subscription : all) {
+      subscription.offer(change);
+    }
+    for (ChangeSubscription subscription : byId.getOrDefault(change.getId(),
+        Collections.emptySet())) {
+      subscription.offer(change);
+    }
+  }
+
+  private static Counter changes(final String result, final MeterRegistry meterRegistry) {
+    return Counter.builder("graphql.subscriptions.changes").tag("result", result)
+        .description("Content changes reported by whether they were handed out")
+        .register(meterRegistry);
+  }
+
+  private final class ChangeSubscription implements Subscription {
+    private final String id;
+    private final Subscriber<? super ContentChange> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private volatile boolean cancelled;
+
+    ChangeSubscription(final String id, final Subscriber<? super ContentChange> subscriber) {
+      this.id = id;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        cancel();
+        subscriber.onError(new IllegalArgumentException("Requested " + n + " changes."));
+        return;
+      }
+      demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE
+          : current + added);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      if (id == null) {
+        all.remove(this);
+      } else {
+        byId.computeIfPresent(id, (k, subscriptions) -> {
+          subscriptions.remove(this);
+          return subscriptions.isEmpty() ? null : subscriptions;
+        });
+      }
+    }
+
+    // Changes are not buffered for subscribers that have not asked for more
+    void offer(final ContentChange change) {
+      if (!cancelled && demand.getAndUpdate(n -> n == Long.MAX_VALUE || n == 0 ? n : n - 1) > 0) {
+        subscriber.onNext(change);
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.paoperez.graphqlservice.content.ContentChange;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Takes the changes to contents content-service reports at
+ * {@code POST /actuator/contentchanges {"id": "...", "type": "SAVED"}}; posting them by hand
+ * stands in for content-service locally. Off unless enabled, and served on the internal management
+ * port only.
+ */
+@Endpoint(id = "contentchanges")
+final class ContentChangesEndpoint {
+  private final ContentChanges changes;
+
+  ContentChangesEndpoint(final ContentChanges changes) {
+    this.changes = changes;
+  }
+
+  @WriteOperation
+  public void publish(final String id, final ContentChange.Type type) {
+    changes.publish(new ContentChange(id, type));
+  }
+}
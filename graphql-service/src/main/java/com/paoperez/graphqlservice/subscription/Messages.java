@@ -0,0 +1,49 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * Messages of the graphql-ws protocol of subscriptions-transport-ws, which Apollo and GraphiQL
+ * clients speak.
+ */
+final class Messages {
+  static final String PROTOCOL = "graphql-ws";
+  static final String CONNECTION_INIT = "connection_init";
+  static final String CONNECTION_ACK = "connection_ack";
+  static final String CONNECTION_ERROR = "connection_error";
+  static final String CONNECTION_TERMINATE = "connection_terminate";
+  static final String START = "start";
+  static final String STOP = "stop";
+  static final String DATA = "data";
+  static final String ERROR = "error";
+  static final String COMPLETE = "complete";
+
+  private Messages() {}
+
+  /**
+   * @param objectMapper - The mapper escaping the id.
+   * @param type         - The type of message.
+   * @param id           - The id of the operation it is about, or null.
+   * @param payload      - The payload already written as JSON, or null.
+   * @return TextMessage - The message, made around the payload rather than by writing it again.
+   */
+  static TextMessage message(final ObjectMapper objectMapper, final String type,
+      @Nullable final String id, @Nullable final String payload) {
+    StringBuilder message = new StringBuilder(64 + (payload == null ? 0 : payload.length()))
+        .append("{\"type\":\"").append(type).append('"');
+    try {
+      if (id != null) {
+        message.append(",\"id\":").append(objectMapper.writeValueAsString(id));
+      }
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(e);
+    }
+    if (payload != null) {
+      message.append(",\"payload\":").append(payload);
+    }
+    return new TextMessage(message.append('}'));
+  }
+}
@@ -0,0 +1,70 @@
+package com.paoperez.graphqlservice.subscription;
+
+import graphql.ExecutionInput;
+import graphql.language.OperationDefinition;
+import graphql.parser.InvalidSyntaxException;
+import graphql.parser.Parser;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.lang.Nullable;
+
+/**
+ * Query, operation name and variables of a subscription: subscriptions with equal keys receive
+ * the same results, so they are executed once and the results sent to them all.
+ */
+final class OperationKey {
+  private final String query;
+  private final String operationName;
+  private final Map<String, Object> variables;
+  private final int hashCode;
+
+  OperationKey(final String query, final String operationName,
+      final Map<String, Object> variables) {
+    this.query = query;
+    this.operationName = operationName;
+    this.variables = variables == null ? Collections.emptyMap() : variables;
+    this.hashCode = Objects.hash(query, operationName, this.variables);
+  }
+
+  /**
+   * @return OperationDefinition.Operation - The type of the operation to execute, or null when the
+   *         query is invalid or has no such operation, which its execution then reports.
+   */
+  @Nullable
+  OperationDefinition.Operation operation() {
+    List<OperationDefinition> definitions;
+    try {
+      definitions = new Parser().parseDocument(query)
+          .getDefinitionsOfType(OperationDefinition.class);
+    } catch (InvalidSyntaxException e) {
+      return null;
+    }
+    if (operationName == null) {
+      return definitions.size() == 1 ? definitions.get(0).getOperation() : null;
+    }
+    return definitions.stream().filter(definition -> operationName.equals(definition.getName()))
+        .map(OperationDefinition::getOperation).findFirst().orElse(null);
+  }
+
+  ExecutionInput toExecutionInput() {
+    return ExecutionInput.newExecutionInput(query).operationName(operationName)
+        .variables(variables).build();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (!(o instanceof OperationKey)) {
+      return false;
+    }
+    OperationKey other = (OperationKey) o;
+    return query.equals(other.query) && Objects.equals(operationName, other.operationName)
+        && variables.equals(other.variables);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
@@ -0,0 +1,70 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.GraphQL;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.websocket.server.ServerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.ServletContextAware;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@EnableWebSocket
+class SubscriptionConfig {
+  @Bean
+  ContentChanges contentChanges(final MeterRegistry meterRegistry,
+      @Value("${subscriptions.changes.queue-size:1000}") final int queueSize) {
+    return new ContentChanges(queueSize, meterRegistry);
+  }
+
+  @Bean
+  ContentChangesEndpoint contentChangesEndpoint(final ContentChanges contentChanges) {
+    return new ContentChangesEndpoint(contentChanges);
+  }
+
+  @Bean
+  SubscriptionHandler subscriptionHandler(final GraphQL graphql, final ObjectMapper objectMapper,
+      final MeterRegistry meterRegistry,
+      @Value("${subscriptions.senders:8}") final int senders,
+      @Value("${subscriptions.buffer-size:64}") final int bufferSize,
+      @Value("${subscriptions.max-operations:10}") final int maxOperations,
+      @Value("${subscriptions.send-timeout:10000}") final long sendTimeoutMillis) {
+    CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("subscription-sender-");
+    threadFactory.setDaemon(true);
+    // Unbounded, but a connection has one task at most queued
+    ExecutorService executor = Executors.newFixedThreadPool(senders, threadFactory);
+    return new SubscriptionHandler(graphql, objectMapper, executor, bufferSize, maxOperations,
+        sendTimeoutMillis, meterRegistry);
+  }
+
+  @Bean
+  WebSocketConfigurer subscriptionConfigurer(final SubscriptionHandler subscriptionHandler,
+      @Value("${client.web.address}") final String clientWebAddress) {
+    return registry -> registry.addHandler(subscriptionHandler, "/subscriptions")
+        .setAllowedOrigins(clientWebAddress);
+  }
+
+  /**
+   * Tomcat allocates the buffers of incoming messages for every connection up front, so they are
+   * kept to the size of a subscription. There is no container without a server, as in tests.
+   */
+  @Bean
+  ServletContextAware webSocketContainerCustomizer(
+      @Value("${subscriptions.max-message-size:4096}") final int maxMessageSize) {
+    return servletContext -> {
+      ServerContainer container =
+          (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+      if (container != null) {
+        container.setDefaultMaxTextMessageBufferSize(maxMessageSize);
+        container.setDefaultMaxBinaryMessageBufferSize(maxMessageSize);
+      }
+    };
+  }
+}
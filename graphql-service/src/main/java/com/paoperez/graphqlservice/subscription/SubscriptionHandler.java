@@ -0,0 +1,220 @@
+package com.paoperez.graphqlservice.subscription;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.language.OperationDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import javax.websocket.Session;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Subscriptions over WebSocket with the graphql-ws protocol. Operations with the same query and
+ * variables share one execution, whose results are sent to every connection through its own
+ * bounded buffer; see {@link Broadcast} and {@link Connection}. Queries and mutations are refused,
+ * they go to {@code /graphql} with its admission limits, data loaders and result cache.
+ */
+final class SubscriptionHandler extends TextWebSocketHandler implements SubProtocolCapable {
+  private static final Logger logger = LoggerFactory.getLogger(SubscriptionHandler.class);
+  // Tomcat's timeout of a blocking send, after which the connection is closed
+  private static final String BLOCKING_SEND_TIMEOUT =
+      "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+  private static final TypeReference<Map<String, Object>> VARIABLES =
+      new TypeReference<Map<String, Object>>() {};
+
+  private final GraphQL graphql;
+  private final ObjectMapper objectMapper;
+  private final Executor senders;
+  private final int bufferSize;
+  private final int maxOperations;
+  private final long sendTimeoutMillis;
+  private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+  private final ConcurrentMap<OperationKey, Broadcast> broadcasts = new ConcurrentHashMap<>();
+  private final Counter evictions;
+  private final Timer fanOuts;
+
+  /**
+   * @param graphql           - The GraphQL executing the subscriptions.
+   * @param objectMapper      - The mapper reading and writing messages.
+   * @param senders           - The pool sending the messages of all connections.
+   * @param bufferSize        - The number of messages waiting to be sent to a connection, beyond
+   *                          which it is closed.
+   * @param maxOperations     - The number of operations a connection may have started at once.
+   * @param sendTimeoutMillis - How long a message may take to send before the connection is
+   *                          closed.
+   * @param meterRegistry     - The registry of the connections, evictions and fan-out times.
+   */
+  SubscriptionHandler(final GraphQL graphql, final ObjectMapper objectMapper,
+      final Executor senders, final int bufferSize, final int maxOperations,
+      final long sendTimeoutMillis, final MeterRegistry meterRegistry) {
+    this.graphql = graphql;
+    this.objectMapper = objectMapper;
+    this.senders = senders;
+    this.bufferSize = bufferSize;
+    this.maxOperations = maxOperations;
+    this.sendTimeoutMillis = sendTimeoutMillis;
+    this.evictions = Counter.builder("graphql.subscriptions.evictions")
+        .description("Connections closed for reading too slowly").register(meterRegistry);
+    this.fanOuts = Timer.builder("graphql.subscriptions.fanout")
+        .description("Time to write a result and buffer it for its subscribers")
+        .register(meterRegistry);
+    Gauge.builder("graphql.subscriptions.connections", connections, Map::size)
+        .description("Open WebSocket connections").register(meterRegistry);
+    Gauge.builder("graphql.subscriptions.executions", broadcasts, Map::size)
+        .description("Subscriptions executed, each for all operations alike")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public List<String> getSubProtocols() {
+    return Collections.singletonList(Messages.PROTOCOL);
+  }
+
+  @Override
+  public void afterConnectionEstablished(final WebSocketSession session) {
+    Session nativeSession = session instanceof NativeWebSocketSession
+        ? ((NativeWebSocketSession) session).getNativeSession(Session.class) : null;
+    if (nativeSession != null) {
+      nativeSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeoutMillis);
+    }
+    connections.put(session.getId(),
+        new Connection(session, bufferSize, senders, evictions::increment));
+  }
+
+  @Override
+  protected void handleTextMessage(final WebSocketSession session, final TextMessage message)
+      throws IOException {
+    Connection connection = connections.get(session.getId());
+    if (connection == null) {
+      return;
+    }
+
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(message.getPayload());
+    } catch (JsonProcessingException e) {
+      connection.send(error(null, "Message is not JSON."));
+      return;
+    }
+    String id = node.path("id").isTextual() ? node.get("id").asText() : null;
+    switch (node.path("type").asText()) {
+      case Messages.CONNECTION_INIT:
+        connection.send(Messages.message(objectMapper, Messages.CONNECTION_ACK, null, null));
+        break;
+      case Messages.START:
+        start(connection, id, node.path("payload"));
+        break;
+      case Messages.STOP:
+        if (id != null) {
+          stop(connection, id);
+          connection.send(Messages.message(objectMapper, Messages.COMPLETE, id, null));
+        }
+        break;
+      case Messages.CONNECTION_TERMINATE:
+        session.close(CloseStatus.NORMAL);
+        break;
+      default:
+        connection.send(error(id, "Unknown message type."));
+    }
+  }
+
+  @Override
+  public void afterConnectionClosed(final WebSocketSession session, final CloseStatus status) {
+    Connection connection = connections.remove(session.getId());
+    if (connection != null) {
+      for (String id : connection.operations().keySet()) {
+        stop(connection, id);
+      }
+    }
+  }
+
+  private void start(final Connection connection, final String id, final JsonNode payload) {
+    if (id == null || !payload.path("query").isTextual()) {
+      connection.send(error(id, "Start needs an id and a query."));
+      return;
+    }
+    if (connection.operations().size() >= maxOperations) {
+      connection.send(error(id, "Too many operations."));
+      return;
+    }
+
+    OperationKey key = new OperationKey(payload.get("query").asText(),
+        payload.path("operationName").isTextual() ? payload.get("operationName").asText() : null,
+        payload.path("variables").isObject()
+            ? objectMapper.convertValue(payload.get("variables"), VARIABLES) : null);
+    OperationDefinition.Operation operation = key.operation();
+    if (operation != null && operation != OperationDefinition.Operation.SUBSCRIPTION) {
+      connection.send(error(id, "Only subscriptions are taken here, send queries to /graphql."));
+      return;
+    }
+    if (connection.operations().putIfAbsent(id, key) != null) {
+      connection.send(error(id, "Operation already started."));
+      return;
+    }
+
+    Broadcast created =
+        new Broadcast(objectMapper, fanOuts, ended -> broadcasts.remove(key, ended));
+    Broadcast broadcast = broadcasts.compute(key, (k, current) -> {
+      Broadcast joined = current == null ? created : current;
+      joined.add(connection, id);
+      return joined;
+    });
+    if (broadcast != created) {
+      return;
+    }
+
+    // Executed outside the map, whose lock would hold up the operations sharing its bin meanwhile
+    ExecutionResult result = graphql.execute(key.toExecutionInput());
+    if (result.getData() instanceof Publisher) {
+      @SuppressWarnings("unchecked")
+      Publisher<ExecutionResult> results = (Publisher<ExecutionResult>) result.getData();
+      results.subscribe(broadcast);
+    } else {
+      // An invalid query, or a subscription that failed to start
+      broadcast.fail(result.getErrors());
+    }
+  }
+
+  private void stop(final Connection connection, final String id) {
+    OperationKey key = connection.operations().remove(id);
+    if (key != null) {
+      broadcasts.computeIfPresent(key,
+          (k, broadcast) -> broadcast.remove(connection, id) ? null : broadcast);
+    }
+  }
+
+  private TextMessage error(final String id, final String message) {
+    return Messages.message(objectMapper, id == null ? Messages.CONNECTION_ERROR : Messages.ERROR,
+        id, write(Collections.singletonMap("message", message)));
+  }
+
+  private String write(final Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      logger.warn("Could not write a message payload", e);
+      return null;
+    }
+  }
+}
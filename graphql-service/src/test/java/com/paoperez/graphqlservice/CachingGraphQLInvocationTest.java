@@ -0,0 +1,162 @@
+package com.paoperez.graphqlservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.google.common.io.Resources;
+import com.paoperez.graphqlservice.content.Content;
+import com.paoperez.graphqlservice.content.Contents;
+import com.paoperez.graphqlservice.image.Image;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeRuntimeWiring;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public class CachingGraphQLInvocationTest {
+  private static final String CONTENTS = "{ contents { data { id title } } }";
+  private static final String CONTENT =
+      "query Content($id: ID) { content(id: $id) { title image { url } } }";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger executions = new AtomicInteger();
+  private ResultCache cache;
+  private CachingGraphQLInvocation invocation;
+  private GraphQL graphql;
+  private CompletableFuture<Void> gate = CompletableFuture.completedFuture(null);
+
+  @BeforeEach
+  void init() throws IOException {
+    String sdl = Resources.toString(Resources.getResource("schema.graphqls"),
+        StandardCharsets.UTF_8);
+    RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+        .type(TypeRuntimeWiring.newTypeWiring("Query")
+            .dataFetcher("contents", environment -> contents())
+            .dataFetcher("content", environment -> gate.thenApply(
+                ignored -> content(environment.getArgument("id"), "I"))))
+        .type(TypeRuntimeWiring.newTypeWiring("Content").dataFetcher("image",
+            environment -> image(((Content) environment.getSource()).getImageId())))
+        .build();
+    QueryDocuments documents = new QueryDocuments(100, meterRegistry);
+    graphql = GraphQL.newGraphQL(new SchemaGenerator()
+        .makeExecutableSchema(new SchemaParser().parse(sdl), wiring))
+        .instrumentation(new EntityTagInstrumentation()).preparsedDocumentProvider(documents)
+        .build();
+    cache = new ResultCache(100, 60_000, meterRegistry);
+    invocation = new CachingGraphQLInvocation((data, webRequest) -> {
+      executions.incrementAndGet();
+      return graphql.executeAsync(ExecutionInput.newExecutionInput(data.getQuery())
+          .operationName(data.getOperationName())
+          .variables(data.getVariables() == null ? Collections.emptyMap() : data.getVariables())
+          .build());
+    }, documents, cache);
+  }
+
+  @Test
+  void invoke_whenQueryRepeated_shouldAnswerFromCacheWithoutTags() {
+    ExecutionResult first = invoke(CONTENTS, null);
+    ExecutionResult second = invoke(CONTENTS, null);
+
+    assertEquals(1, executions.get());
+    assertEquals(first.toSpecification(), second.toSpecification());
+    assertFalse(first.toSpecification().containsKey("extensions"));
+    assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "graphql.results")
+        .tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  void invalidate_whenTagOfIncludedEntity_shouldDropOnlyResultsShowingIt() {
+    invoke(CONTENTS, null);
+    invoke(CONTENT, "B");
+
+    assertEquals(0, cache.invalidate(Collections.singleton("Content:C")));
+    assertEquals(1, cache.invalidate(Collections.singleton("Image:I")));
+    invoke(CONTENTS, null);
+    invoke(CONTENT, "B");
+
+    assertEquals(3, executions.get());
+  }
+
+  @Test
+  void invalidate_whenListTag_shouldDropListOfContents() {
+    invoke(CONTENTS, null);
+    invoke(CONTENT, "A");
+
+    assertEquals(1, cache.invalidate(
+        Collections.singleton(EntityTagInstrumentation.CONTENTS_TAG)));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void invoke_whenNoCacheRequested_shouldExecuteAndRefresh() {
+    invoke(CONTENTS, null);
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Cache-Control", "no-cache");
+    invocation.invoke(new GraphQLInvocationData(CONTENTS, null, null),
+        new ServletWebRequest(request)).join();
+    invoke(CONTENTS, null);
+
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void invoke_whenResultHasErrors_shouldNotCache() {
+    invoke("{ contents { data { id missing } } }", null);
+    invoke("{ contents { data { id missing } } }", null);
+
+    assertEquals(2, executions.get());
+  }
+
+  @Test
+  void invoke_whenInvalidatedDuringExecution_shouldNotCacheStaleResult() {
+    gate = new CompletableFuture<>();
+    CompletableFuture<ExecutionResult> stale = invocation.invoke(
+        new GraphQLInvocationData(CONTENT, null, Collections.singletonMap("id", "A")), null);
+    cache.invalidate(Collections.singleton("Content:A"));
+    gate.complete(null);
+    stale.join();
+
+    assertEquals(0, cache.size());
+  }
+
+  private ExecutionResult invoke(final String query, final String id) {
+    Map<String, Object> variables = id == null ? null : Collections.singletonMap("id", id);
+    return invocation.invoke(new GraphQLInvocationData(query, null, variables), null).join();
+  }
+
+  private static Contents contents() {
+    Contents contents = new Contents();
+    contents.setData(Arrays.asList(content("A", "I"), content("B", "J")));
+    return contents;
+  }
+
+  private static Content content(final String id, final String imageId) {
+    Content content = new Content();
+    content.setId(id);
+    content.setTitle("Title " + id);
+    content.setImageId(imageId);
+    return content;
+  }
+
+  private static Image image(final String id) {
+    Image image = new Image();
+    image.setId(id);
+    image.setUrl("https://images.test/" + id);
+    return image;
+  }
+}
@@ -0,0 +1,93 @@
+package com.paoperez.graphqlservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CoalescingGraphQLInvocationTest {
+  private static final String QUERY = "{ contents { data { id title } } }";
+
+  private final List<CompletableFuture<ExecutionResult>> executions = new ArrayList<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CoalescingGraphQLInvocation invocation;
+
+  @BeforeEach
+  void init() {
+    invocation = invocation(0);
+  }
+
+  private CoalescingGraphQLInvocation invocation(final long windowMillis) {
+    return new CoalescingGraphQLInvocation((data, webRequest) -> {
+      CompletableFuture<ExecutionResult> execution = new CompletableFuture<>();
+      executions.add(execution);
+      return execution;
+    }, new QueryDocuments(100, meterRegistry), windowMillis, meterRegistry);
+  }
+
+  @Test
+  void invoke_whenIdenticalQueryInFlight_shouldShareResult() {
+    CompletableFuture<ExecutionResult> leader = invocation.invoke(data(QUERY), null);
+    CompletableFuture<ExecutionResult> follower =
+        invocation.invoke(data("query {\n  contents {\n    data { id, title }\n  }\n}"), null);
+    ExecutionResult result = new ExecutionResultImpl(Collections.emptyMap(), null);
+    executions.get(0).complete(result);
+
+    assertEquals(1, executions.size());
+    assertSame(result, leader.join());
+    assertSame(result, follower.join());
+    assertEquals(1, meterRegistry.get("graphql.coalescing.requests").tag("outcome", "coalesced")
+        .counter().count());
+  }
+
+  @Test
+  void invoke_whenVariablesDiffer_shouldExecuteBoth() {
+    String query = "query Content($id: ID) { content(id: $id) { title } }";
+    invocation.invoke(new GraphQLInvocationData(query, null, Collections.singletonMap("id", "A")),
+        null);
+    invocation.invoke(new GraphQLInvocationData(query, null, Collections.singletonMap("id", "B")),
+        null);
+
+    assertEquals(2, executions.size());
+  }
+
+  @Test
+  void invoke_whenMutation_shouldNotCoalesce() {
+    invocation.invoke(data("mutation { contents { data { id } } }"), null);
+    invocation.invoke(data("mutation { contents { data { id } } }"), null);
+
+    assertEquals(2, executions.size());
+  }
+
+  @Test
+  void invoke_whenPreviousExecutionCompleted_shouldExecuteAgain() {
+    invocation.invoke(data(QUERY), null);
+    executions.get(0).complete(new ExecutionResultImpl(Collections.emptyMap(), null));
+    invocation.invoke(data(QUERY), null);
+
+    assertEquals(2, executions.size());
+  }
+
+  @Test
+  void invoke_whenWithinWindow_shouldShareCompletedResult() {
+    invocation = invocation(60_000);
+    invocation.invoke(data(QUERY), null);
+    executions.get(0).complete(new ExecutionResultImpl(Collections.emptyMap(), null));
+    invocation.invoke(data(QUERY), null);
+
+    assertEquals(1, executions.size());
+  }
+
+  private static GraphQLInvocationData data(final String query) {
+    return new GraphQLInvocationData(query, null, null);
+  }
+}
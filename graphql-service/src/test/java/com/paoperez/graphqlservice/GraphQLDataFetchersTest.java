@@ -0,0 +1,244 @@
+package com.paoperez.graphqlservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.paoperez.graphqlservice.avatar.AvatarService;
+import com.paoperez.graphqlservice.category.Category;
+import com.paoperez.graphqlservice.category.CategoryService;
+import com.paoperez.graphqlservice.content.Content;
+import com.paoperez.graphqlservice.content.ContentChange;
+import com.paoperez.graphqlservice.content.ContentParent;
+import com.paoperez.graphqlservice.content.ContentService;
+import com.paoperez.graphqlservice.content.Contents;
+import com.paoperez.graphqlservice.image.Image;
+import com.paoperez.graphqlservice.image.ImageService;
+import com.paoperez.graphqlservice.subscription.ContentChanges;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.execution.AsyncExecutionStrategy;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.mockito.ArgumentCaptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class GraphQLDataFetchersTest {
+  private final ContentService contentService = mock(ContentService.class);
+  private final ImageService imageService = mock(ImageService.class);
+  private final CategoryService categoryService = mock(CategoryService.class);
+  private final ContentChanges contentChanges = new ContentChanges(10, new SimpleMeterRegistry());
+  private GraphQLDataFetchers dataFetchers;
+  private GraphQL graphql;
+
+  @BeforeEach
+  void init() throws IOException {
+    dataFetchers = new GraphQLDataFetchers(contentService, imageService, categoryService,
+        mock(AvatarService.class), contentChanges);
+    String sdl = Resources.toString(Resources.getResource("schema.graphqls"),
+        StandardCharsets.UTF_8);
+    graphql = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(
+        new SchemaParser().parse(sdl), new GraphQLConfig().runtimeWiring(dataFetchers)))
+        .queryExecutionStrategy(new AsyncExecutionStrategy(new GraphQLExceptionHandler()))
+        .build();
+  }
+
+  @Test
+  void getContentsDataFetcher_shouldReadOnlySelectedFieldsAndId() {
+    execute("{ contents { data { title rank image { url } } } }");
+
+    verify(contentService).getContents(ImmutableSet.of("id", "imageId", "rank", "title"));
+  }
+
+  @Test
+  void getContentsDataFetcher_whenTop_shouldReadTopContents() {
+    execute("{ contents(top: 5) { data { title } } }");
+
+    verify(contentService).getContents(ImmutableSet.of("id", "title"), 5);
+  }
+
+  @Test
+  void getContentDataFetcher_shouldReadOnlySelectedFieldsAndId() {
+    execute("{ content(id: \"A\") { heading: title body avatar { userName } } }");
+
+    verify(contentService).getContent("A", ImmutableSet.of("avatarId", "body", "id", "title"));
+  }
+
+  @Test
+  void getImageUrlDataFetcher_whenWidth_shouldReturnUrlOfVariant() {
+    Content content = new Content();
+    content.setImageId("I");
+    Image image = new Image();
+    image.setUrl("http://images/images/files/abc.png");
+    when(contentService.getContent(any(), any())).thenReturn(content);
+    when(imageService.getImage("I")).thenReturn(image);
+
+    Map<String, Map<String, Map<String, String>>> data =
+        execute("{ content(id: \"A\") { image { url small: url(width: 320) } } }").getData();
+
+    assertEquals("http://images/images/files/abc.png", data.get("content").get("image").get("url"));
+    assertEquals("http://images/images/files/abc.png?w=320",
+        data.get("content").get("image").get("small"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void getCategoryContentsDataFetcher_shouldLoadPagesOfAllCategoriesAtOnce() {
+    when(contentService.getContents(any())).thenReturn(contents(content("A", "X", 1),
+        content("B", "Y", 2)));
+    when(categoryService.getCategory(anyString())).thenAnswer(invocation -> {
+      Category category = new Category();
+      category.setId(invocation.getArgument(0));
+      return category;
+    });
+    when(contentService.getContents(eq(ContentParent.CATEGORY), any(), eq(3), isNull(), any()))
+        .thenReturn(contents(content("A", "X", 1), content("C", "X", 3), content("D", "X", 4),
+            content("B", "Y", 2)));
+
+    Map<String, Map<String, List<Map<String, Map<String, Map<String, Object>>>>>> data =
+        execute("{ contents { data { category { contents(first: 2) "
+            + "{ data { title } endCursor hasNextPage } } } } }").getData();
+
+    ArgumentCaptor<Collection<String>> categoryIds = ArgumentCaptor.forClass(Collection.class);
+    verify(contentService, times(1)).getContents(eq(ContentParent.CATEGORY),
+        categoryIds.capture(), eq(3), isNull(),
+        eq(ImmutableSet.of("categoryId", "id", "rank", "title")));
+    assertEquals(ImmutableSet.of("X", "Y"), ImmutableSet.copyOf(categoryIds.getValue()));
+    List<Map<String, Map<String, Map<String, Object>>>> contents =
+        data.get("contents").get("data");
+    Map<String, Object> pageOfX = contents.get(0).get("category").get("contents");
+    assertEquals(2, ((List<?>) pageOfX.get("data")).size());
+    assertEquals("3", pageOfX.get("endCursor"));
+    assertEquals(true, pageOfX.get("hasNextPage"));
+    Map<String, Object> pageOfY = contents.get(1).get("category").get("contents");
+    assertEquals("2", pageOfY.get("endCursor"));
+    assertEquals(false, pageOfY.get("hasNextPage"));
+  }
+
+  @Test
+  void getCategoryContentsDataFetcher_whenFirstNull_shouldLoadDefaultPageSize() {
+    Category category = new Category();
+    category.setId("X");
+    when(contentService.getContents(any())).thenReturn(contents(content("A", "X", 1)));
+    when(categoryService.getCategory("X")).thenReturn(category);
+    when(contentService.getContents(eq(ContentParent.CATEGORY), any(), eq(11), isNull(), any()))
+        .thenReturn(contents());
+
+    ExecutionResult result =
+        execute("{ contents { data { category { contents(first: null) { endCursor } } } } }");
+
+    assertTrue(result.getErrors().isEmpty());
+    verify(contentService).getContents(eq(ContentParent.CATEGORY), any(), eq(11), isNull(),
+        any());
+  }
+
+  @Test
+  void getCategoryContentsDataFetcher_whenCursorInvalid_shouldReturnError() {
+    Category category = new Category();
+    category.setId("X");
+    when(contentService.getContents(any())).thenReturn(contents(content("A", "X", 1)));
+    when(categoryService.getCategory("X")).thenReturn(category);
+
+    ExecutionResult result =
+        execute("{ contents { data { category { contents(after: \"x\") { endCursor } } } } }");
+
+    GraphQLError error = result.getErrors().get(0);
+    assertEquals(1, result.getErrors().size());
+    assertEquals("after is not a valid cursor.", error.getMessage());
+    assertEquals(Collections.singletonMap("argument", "after"), error.getExtensions());
+    verify(contentService, never()).getContents(eq(ContentParent.CATEGORY), any(), anyInt(),
+        any(), any());
+  }
+
+  @Test
+  void getContentChangedDataFetcher_shouldSendChangesOfContentWithSelectedFields()
+      throws Exception {
+    Content content = content("A", "X", 1);
+    when(contentService.getContent("A", ImmutableSet.of("id", "title"))).thenReturn(content);
+    Publisher<ExecutionResult> results = execute(
+        "subscription { contentChanged(id: \"A\") { id type content { title } } }").getData();
+    BlockingQueue<ExecutionResult> received = new LinkedBlockingQueue<>();
+    results.subscribe(new Subscriber<ExecutionResult>() {
+      @Override
+      public void onSubscribe(final Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(final ExecutionResult result) {
+        received.add(result);
+      }
+
+      @Override
+      public void onError(final Throwable throwable) {}
+
+      @Override
+      public void onComplete() {}
+    });
+
+    contentChanges.publish(new ContentChange("B", ContentChange.Type.SAVED));
+    contentChanges.publish(new ContentChange("A", ContentChange.Type.SAVED));
+    contentChanges.publish(new ContentChange("A", ContentChange.Type.DELETED));
+
+    Map<String, Map<String, Object>> saved =
+        received.poll(5, TimeUnit.SECONDS).getData();
+    assertEquals("A", saved.get("contentChanged").get("id"));
+    assertEquals("SAVED", saved.get("contentChanged").get("type"));
+    assertEquals(Collections.singletonMap("title", "Blog A"),
+        saved.get("contentChanged").get("content"));
+    Map<String, Map<String, Object>> deleted =
+        received.poll(5, TimeUnit.SECONDS).getData();
+    assertEquals("DELETED", deleted.get("contentChanged").get("type"));
+    assertNull(deleted.get("contentChanged").get("content"));
+    assertTrue(received.isEmpty());
+  }
+
+  private ExecutionResult execute(final String query) {
+    return graphql.execute(ExecutionInput.newExecutionInput(query)
+        .dataLoaderRegistry(dataFetchers.newDataLoaderRegistry()));
+  }
+
+  private static Contents contents(final Content... contents) {
+    Contents result = new Contents();
+    result.setData(Arrays.asList(contents));
+    return result;
+  }
+
+  private static Content content(final String id, final String categoryId, final int rank) {
+    Content content = new Content();
+    content.setId(id);
+    content.setTitle("Blog " + id);
+    content.setCategoryId(categoryId);
+    content.setRank(rank);
+    return content;
+  }
+}
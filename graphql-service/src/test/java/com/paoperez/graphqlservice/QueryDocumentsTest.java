@@ -0,0 +1,54 @@
+package com.paoperez.graphqlservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import graphql.spring.web.servlet.GraphQLInvocationData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class QueryDocumentsTest {
+  private static final String QUERY = "{ contents { data { id title } } }";
+
+  private final QueryDocuments documents = new QueryDocuments(100, new SimpleMeterRegistry());
+
+  @Test
+  void getDocument_whenQuerySeenBefore_shouldNotParseItAgain() {
+    AtomicInteger parsed = new AtomicInteger();
+
+    PreparsedDocumentEntry first = documents.getDocument(input(QUERY), input -> {
+      parsed.incrementAndGet();
+      return new PreparsedDocumentEntry(Parser.parse(input.getQuery()));
+    });
+    PreparsedDocumentEntry second = documents.getDocument(input(QUERY), input -> {
+      parsed.incrementAndGet();
+      return new PreparsedDocumentEntry(Parser.parse(input.getQuery()));
+    });
+
+    assertEquals(1, parsed.get());
+    assertSame(first, second);
+  }
+
+  @Test
+  void parsed_whenQuerySeenBefore_shouldReturnSameDocument() {
+    QueryDocuments.Parsed parsed = documents.parsed(QUERY);
+
+    assertSame(parsed.document(), documents.parsed(QUERY).document());
+    assertEquals("query {contents {data {id title}}}", parsed.normalised());
+  }
+
+  @Test
+  void parsed_whenQueryDoesNotParse_shouldHaveNoDocument() {
+    assertNull(documents.parsed("{ contents {").document());
+    assertNull(QueryKey.of(new GraphQLInvocationData("{ contents {", null, null), documents));
+  }
+
+  private static ExecutionInput input(final String query) {
+    return ExecutionInput.newExecutionInput(query).build();
+  }
+}
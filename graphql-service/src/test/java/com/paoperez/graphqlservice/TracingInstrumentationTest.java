@@ -0,0 +1,97 @@
+package com.paoperez.graphqlservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracer.SpanInScope;
+import brave.Tracing;
+import com.google.common.io.Resources;
+import com.paoperez.graphqlservice.content.Content;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeRuntimeWiring;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.sleuth.util.ArrayListSpanReporter;
+
+public class TracingInstrumentationTest {
+  private static final String QUERY = "{ content(id: \"1\") { title image { url } } }";
+
+  private final ArrayListSpanReporter spans = new ArrayListSpanReporter();
+  private Tracing tracing;
+  private Tracer tracer;
+  private GraphQL graphql;
+
+  @BeforeEach
+  void init() throws IOException {
+    tracing = Tracing.newBuilder().localServiceName("graphql-service").spanReporter(spans).build();
+    tracer = tracing.tracer();
+    String sdl = Resources.toString(Resources.getResource("schema.graphqls"),
+        StandardCharsets.UTF_8);
+    RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+        .type(TypeRuntimeWiring.newTypeWiring("Query").dataFetcher("content", environment -> {
+          // Stands in for the call to content-service
+          tracer.nextSpan().name("get").start().finish();
+          return content(environment.getArgument("id"), "2");
+        }))
+        .type(TypeRuntimeWiring.newTypeWiring("Content").dataFetcher("image", environment -> {
+          throw new IllegalStateException("Image service unavailable");
+        }))
+        .build();
+    graphql = GraphQL.newGraphQL(new SchemaGenerator()
+        .makeExecutableSchema(new SchemaParser().parse(sdl), wiring))
+        .instrumentation(new TracingInstrumentation(tracer)).build();
+  }
+
+  @AfterEach
+  void close() {
+    tracing.close();
+  }
+
+  @Test
+  void beginFieldFetch_whenRequestTraced_shouldTraceFetchersWithTheirCalls() {
+    Span request = tracer.newTrace().name("post /graphql").start();
+    try (SpanInScope scope = tracer.withSpanInScope(request)) {
+      graphql.execute(QUERY);
+    } finally {
+      request.finish();
+    }
+
+    Map<String, zipkin2.Span> byName = spans.getSpans().stream()
+        .collect(Collectors.toMap(zipkin2.Span::name, Function.identity()));
+    assertEquals(4, byName.size());
+    zipkin2.Span content = byName.get("query.content");
+    assertEquals(request.context().spanIdString(), content.parentId());
+    assertEquals("/content", content.tags().get("graphql.path"));
+    assertEquals(content.id(), byName.get("get").parentId());
+    zipkin2.Span image = byName.get("content.image");
+    assertEquals(request.context().spanIdString(), image.parentId());
+    assertTrue(image.tags().containsKey("error"));
+  }
+
+  @Test
+  void beginFieldFetch_whenRequestNotTraced_shouldNotTraceFetchers() {
+    graphql.execute(QUERY);
+
+    assertEquals(1, spans.getSpans().size());
+    assertEquals("get", spans.getSpans().get(0).name());
+  }
+
+  private static Content content(final String id, final String imageId) {
+    Content content = new Content();
+    content.setId(id);
+    content.setTitle("Title " + id);
+    content.setImageId(imageId);
+    return content;
+  }
+}
@@ -0,0 +1,114 @@
+package com.paoperez.graphqlservice.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class AdmissionInterceptorTest {
+  private static final int BURST = 5;
+  private static final int LIMIT = 3;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final GradientConcurrencyLimit concurrencyLimit =
+      new GradientConcurrencyLimit(LIMIT, 1, 10, 1.5, 0.2);
+  private final AdmissionInterceptor interceptor = new AdmissionInterceptor(
+      new ClientRateLimiter(1, BURST, 100), concurrencyLimit, "X-Client-Id", 2, meterRegistry);
+
+  @Test
+  void preHandle_whenClientExceedsBurst_shouldRejectOnlyThatClient() throws Exception {
+    for (int i = 0; i < BURST; i++) {
+      complete(admit(request("greedy")));
+    }
+
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("greedy"), rejected, null));
+    assertEquals(429, rejected.getStatus());
+    assertEquals("1", rejected.getHeader("Retry-After"));
+    assertTrue(rejected.getContentAsString().contains("Too many requests"));
+    assertTrue(interceptor.preHandle(request("polite"), new MockHttpServletResponse(), null));
+    assertEquals(1, meterRegistry.get("graphql.admission.requests")
+        .tag("outcome", "rate-limited").counter().count());
+  }
+
+  @Test
+  void preHandle_whenConcurrencyLimitReached_shouldShedWith503() throws Exception {
+    MockHttpServletRequest[] inflight = new MockHttpServletRequest[LIMIT];
+    for (int i = 0; i < LIMIT; i++) {
+      inflight[i] = admit(request("client-" + i));
+    }
+
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("late"), rejected, null));
+    assertEquals(503, rejected.getStatus());
+    assertEquals("2", rejected.getHeader("Retry-After"));
+    assertEquals(LIMIT, meterRegistry.get("graphql.admission.inflight").gauge().value());
+
+    complete(inflight[0]);
+    assertTrue(interceptor.preHandle(request("late"), new MockHttpServletResponse(), null));
+  }
+
+  @Test
+  void preHandle_whenAsyncDispatchOfAdmittedRequest_shouldNotChargeAgain() throws Exception {
+    MockHttpServletRequest request = admit(request("async"));
+
+    // Dispatched again once the query completes, then completed
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+    complete(request);
+
+    assertEquals(0, concurrencyLimit.inflight());
+    assertEquals(1, meterRegistry.get("graphql.admission.requests")
+        .tag("outcome", "admitted").counter().count());
+  }
+
+  @Test
+  void limit_whenLatencyRises_shouldShrinkAndRecoverWhenItSettles() {
+    GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 2, 100, 1.5, 0.2);
+    saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 200);
+    int steady = limit.limit();
+
+    saturate(limit, TimeUnit.MILLISECONDS.toNanos(100), 20);
+    int overloaded = limit.limit();
+
+    saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 200);
+    assertTrue(steady > 20, "steady " + steady);
+    assertTrue(overloaded < steady / 2, "steady " + steady + ", overloaded " + overloaded);
+    assertTrue(limit.limit() > overloaded, "recovered " + limit.limit());
+  }
+
+  private MockHttpServletRequest admit(final MockHttpServletRequest request) throws Exception {
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+    return request;
+  }
+
+  private void complete(final MockHttpServletRequest request) {
+    interceptor.afterCompletion(request, new MockHttpServletResponse(), null, null);
+  }
+
+  private static MockHttpServletRequest request(final String client) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+    request.addHeader("X-Client-Id", client);
+    return request;
+  }
+
+  /**
+   * Keeps the limit full and completes requests one at a time with the given latency.
+   */
+  private static void saturate(final GradientConcurrencyLimit limit, final long rttNanos,
+      final int samples) {
+    for (int i = 0; i < samples; i++) {
+      while (limit.tryAcquire()) {
+        // Fill up to the current limit
+      }
+      limit.release(rttNanos);
+    }
+    while (limit.inflight() > 0) {
+      limit.release(rttNanos);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.paoperez.graphqlservice.downstream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.paoperez.graphqlservice.downstream.DownstreamException.Reason;
+import com.paoperez.graphqlservice.loadbalancer.CallContextRequestFactory;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+public class DownstreamClientTest {
+  static {
+    // Keeps delayed ACKs from adding tens of milliseconds to every stub response.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final AtomicInteger hits = new AtomicInteger();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private RestTemplate restTemplate;
+  private HttpServer stub;
+  private IntSupplier behaviour;
+  private DownstreamClient client;
+  private String url;
+
+  @BeforeEach
+  void init() throws IOException {
+    stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    stub.createContext("/", exchange -> {
+      int status = behaviour.getAsInt();
+      byte[] body = "avatar".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "text/plain");
+      exchange.sendResponseHeaders(status, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    stub.setExecutor(Executors.newCachedThreadPool());
+    stub.start();
+
+    RestTemplate restTemplate = new RestTemplate(new CallContextRequestFactory());
+    int port = stub.getAddress().getPort();
+    restTemplate.getInterceptors().add((request, body, execution) -> {
+      URI uri = UriComponentsBuilder.fromUri(request.getURI()).host("localhost").port(port)
+          .build(true).toUri();
+      HttpRequest rewritten = new HttpRequestWrapper(request) {
+        @Override
+        public URI getURI() {
+          return uri;
+        }
+      };
+      return execution.execute(rewritten, body);
+    });
+
+    this.restTemplate = restTemplate;
+    client = client(false);
+    url = "http://avatar-service/avatars/A";
+  }
+
+  private DownstreamClient client(final boolean hedged) {
+    DownstreamProperties properties = new DownstreamProperties();
+    properties.getDefaults().setReadTimeout(200);
+    properties.getDefaults().setSlidingWindowSize(4);
+    properties.getDefaults().setHedged(hedged);
+    properties.getDefaults().setHedgePercentile(90d);
+    properties.getHedging().setRatio(0.5);
+    return new DownstreamClient(restTemplate, properties, CircuitBreakerRegistry.ofDefaults(),
+        BulkheadRegistry.ofDefaults(), meterRegistry, Executors.newCachedThreadPool());
+  }
+
+  @AfterEach
+  void stop() {
+    stub.stop(0);
+  }
+
+  @Test
+  void getForObject_whenInstanceFailsOnce_shouldRetry() {
+    behaviour = () -> hits.incrementAndGet() == 1 ? 503 : 200;
+
+    assertEquals("avatar", client.getForObject(url, String.class));
+    assertEquals(2, hits.get());
+  }
+
+  @Test
+  void getForObject_whenNotFound_shouldNotRetry() {
+    behaviour = () -> {
+      hits.incrementAndGet();
+      return 404;
+    };
+
+    DownstreamException e =
+        assertThrows(DownstreamException.class, () -> client.getForObject(url, String.class));
+    assertEquals(Reason.NOT_FOUND, e.getReason());
+    assertEquals(1, hits.get());
+  }
+
+  @Test
+  void getForObject_whenInstanceIsSlow_shouldTimeOut() {
+    behaviour = () -> {
+      hits.incrementAndGet();
+      sleep(1000);
+      return 200;
+    };
+
+    long start = System.nanoTime();
+    DownstreamException e =
+        assertThrows(DownstreamException.class, () -> client.getForObject(url, String.class));
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertEquals(Reason.UNAVAILABLE, e.getReason());
+    assertTrue(elapsedMillis < 1000, "timed out after " + elapsedMillis + "ms");
+  }
+
+  @Test
+  void getForObject_whenInstanceKeepsFailing_shouldOpenCircuit() {
+    behaviour = () -> {
+      hits.incrementAndGet();
+      return 500;
+    };
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(DownstreamException.class, () -> client.getForObject(url, String.class));
+    }
+    int hitsWhenOpened = hits.get();
+    DownstreamException e =
+        assertThrows(DownstreamException.class, () -> client.getForObject(url, String.class));
+
+    assertEquals(Reason.CIRCUIT_OPEN, e.getReason());
+    assertEquals(hitsWhenOpened, hits.get());
+  }
+
+  @Test
+  void getForObject_whenHedged_shouldCutTailLatency() {
+    behaviour = () -> {
+      if (hits.incrementAndGet() % 25 == 0) {
+        sleep(150);
+      }
+      return 200;
+    };
+
+    long plain = p99(client);
+    DownstreamClient hedgedClient = client(true);
+    long hedged = p99(hedgedClient);
+
+    assertTrue(plain >= 150, "plain p99 " + plain);
+    assertTrue(hedged < 100, "hedged p99 " + hedged);
+    assertTrue(meterRegistry.get("downstream.hedges").tag("outcome", "won").counter().count() > 0);
+  }
+
+  private long p99(final DownstreamClient downstreamClient) {
+    for (int i = 0; i < LatencyWindow.MIN_SAMPLES * 2; i++) {
+      downstreamClient.getForObject(url, String.class);
+    }
+
+    long[] latencies = new long[200];
+    for (int i = 0; i < latencies.length; i++) {
+      long start = System.nanoTime();
+      downstreamClient.getForObject(url, String.class);
+      latencies[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    Arrays.sort(latencies);
+
+    return latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
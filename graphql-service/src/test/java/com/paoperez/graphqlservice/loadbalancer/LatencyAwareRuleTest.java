@@ -0,0 +1,162 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.RoundRobinRule;
+import com.netflix.loadbalancer.Server;
+import com.paoperez.graphqlservice.loadbalancer.LatencyAwareRule.Strategy;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+public class LatencyAwareRuleTest {
+  private static final int REQUESTS = 300;
+  private static final long SLOW_MILLIS = 40;
+  private static final int EJECT_AFTER_FAILURES = 2;
+
+  private final List<HttpServer> stubs = new ArrayList<>();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private InstanceLatencyTracker tracker;
+  private RestTemplate restTemplate;
+
+  @BeforeEach
+  void init() throws IOException {
+    stubs.add(stub(0));
+    stubs.add(stub(0));
+    stubs.add(stub(SLOW_MILLIS));
+    tracker = new InstanceLatencyTracker(meterRegistry, 10_000, EJECT_AFTER_FAILURES, 30_000);
+    restTemplate = new RestTemplate(
+        new TrackingClientHttpRequestFactory(new SimpleClientHttpRequestFactory(), tracker));
+  }
+
+  @AfterEach
+  void stop() {
+    stubs.forEach(stub -> stub.stop(0));
+  }
+
+  @Test
+  void peakEwma_whenOneInstanceIsSlow_shouldCutTailLatency() {
+    long roundRobin = p95(new RoundRobinRule());
+    long peakEwma = p95(new LatencyAwareRule(tracker, Strategy.PEAK_EWMA));
+
+    assertTrue(roundRobin >= SLOW_MILLIS, "round robin p95 " + roundRobin);
+    assertTrue(peakEwma < SLOW_MILLIS / 2, "peak ewma p95 " + peakEwma);
+  }
+
+  @Test
+  void leastOutstanding_shouldAvoidBusyInstance() {
+    LatencyAwareRule rule = new LatencyAwareRule(tracker, Strategy.LEAST_OUTSTANDING);
+    BaseLoadBalancer loadBalancer = loadBalancer(rule);
+    Server busy = loadBalancer.getAllServers().get(0);
+    tracker.register("image-service", busy.getHostPort()).start();
+
+    for (int i = 0; i < REQUESTS; i++) {
+      assertNotEquals(busy, loadBalancer.chooseServer(null));
+    }
+  }
+
+  @Test
+  void leastOutstanding_whenInstanceDies_shouldEjectItAfterConnectionFailures() {
+    LatencyAwareRule rule = new LatencyAwareRule(tracker, Strategy.LEAST_OUTSTANDING);
+    BaseLoadBalancer loadBalancer = loadBalancer(rule);
+    HttpServer dead = stubs.remove(0);
+    dead.stop(0);
+
+    long start = System.nanoTime();
+    long failoverMillis = 0;
+    int failures = 0;
+    for (int i = 0; i < REQUESTS / 3; i++) {
+      Server server = loadBalancer.chooseServer(null);
+      tracker.register("image-service", server.getHostPort());
+      try {
+        restTemplate.getForEntity(String.format("http://%s/", server.getHostPort()), Void.class);
+      } catch (ResourceAccessException e) {
+        failures++;
+        failoverMillis = (System.nanoTime() - start) / 1_000_000;
+      }
+    }
+
+    // Without ejection the dead instance, never having outstanding requests, would keep winning.
+    assertEquals(EJECT_AFTER_FAILURES, failures);
+    assertTrue(failoverMillis < 1000, "failed over after " + failoverMillis + "ms");
+    assertEquals(1, meterRegistry.get("graphql.loadbalancer.instance.ejections")
+        .tag("instance", "localhost:" + dead.getAddress().getPort()).counter().count());
+  }
+
+  @Test
+  void choose_whenSingleInstance_shouldTrackIt() {
+    stubs.remove(2).stop(0);
+    stubs.remove(1).stop(0);
+    BaseLoadBalancer loadBalancer =
+        loadBalancer(new LatencyAwareRule(tracker, Strategy.PEAK_EWMA));
+
+    Server server = loadBalancer.chooseServer(null);
+    restTemplate.getForEntity(String.format("http://%s/", server.getHostPort()), Void.class);
+
+    assertNotNull(tracker.find(server.getHostPort()));
+    assertTrue(meterRegistry.get("graphql.loadbalancer.instance.latency")
+        .tag("instance", server.getHostPort()).gauge().value() > 0);
+  }
+
+  // p95 rather than p99, so that a scheduling hiccup on a fast stub, which briefly makes it look
+  // slower than the slow one, cannot fail the test.
+  private long p95(final AbstractLoadBalancerRule rule) {
+    BaseLoadBalancer loadBalancer = loadBalancer(rule);
+    long[] latencies = new long[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      Server server = loadBalancer.chooseServer(null);
+      tracker.register("image-service", server.getHostPort());
+      long start = System.nanoTime();
+      restTemplate.getForEntity(String.format("http://%s/", server.getHostPort()), Void.class);
+      latencies[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    Arrays.sort(latencies);
+
+    return latencies[(int) Math.ceil(REQUESTS * 0.95) - 1];
+  }
+
+  private BaseLoadBalancer loadBalancer(final AbstractLoadBalancerRule rule) {
+    DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+    config.setClientName("image-service");
+    rule.initWithNiwsConfig(config);
+    BaseLoadBalancer loadBalancer = new BaseLoadBalancer("image-service", rule, null);
+    loadBalancer.addServers(stubs.stream()
+        .map(stub -> new Server("localhost", stub.getAddress().getPort()))
+        .collect(Collectors.toList()));
+    loadBalancer.getAllServers().forEach(server -> server.setAlive(true));
+
+    return loadBalancer;
+  }
+
+  private static HttpServer stub(final long delayMillis) throws IOException {
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    server.start();
+    return server;
+  }
+}
@@ -0,0 +1,75 @@
+package com.paoperez.graphqlservice.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerList;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SnapshotServerListTest {
+  @TempDir
+  Path directory;
+
+  private final List<Server> registry = new ArrayList<>();
+  private Path path;
+
+  @BeforeEach
+  void init() {
+    path = directory.resolve("registry.json");
+  }
+
+  @Test
+  void getUpdatedListOfServers_whenRegistryIsEmptyAfterRestart_shouldUseLastKnownInstances() {
+    registry.add(new Server("10.0.0.2", 8082));
+    registry.add(new Server("10.0.0.1", 8082));
+    serverList(new RegistrySnapshot(path)).getUpdatedListOfServers();
+
+    registry.clear();
+    List<Server> servers = serverList(new RegistrySnapshot(path)).getInitialListOfServers();
+
+    assertEquals(Arrays.asList("10.0.0.1:8082", "10.0.0.2:8082"),
+        servers.stream().map(Server::getHostPort).collect(Collectors.toList()));
+  }
+
+  @Test
+  void getUpdatedListOfServers_whenRegistryHasInstances_shouldPreferThem() {
+    registry.add(new Server("10.0.0.1", 8082));
+    SnapshotServerList serverList = serverList(new RegistrySnapshot(path));
+    serverList.getUpdatedListOfServers();
+
+    registry.set(0, new Server("10.0.0.3", 8082));
+    List<Server> servers = serverList.getUpdatedListOfServers();
+
+    assertEquals("10.0.0.3:8082", servers.get(0).getHostPort());
+    assertEquals(Arrays.asList("10.0.0.3:8082"),
+        new RegistrySnapshot(path).instances("image-service"));
+  }
+
+  @Test
+  void getInitialListOfServers_whenNothingIsKnown_shouldBeEmpty() {
+    assertTrue(serverList(new RegistrySnapshot(path)).getInitialListOfServers().isEmpty());
+  }
+
+  private SnapshotServerList serverList(final RegistrySnapshot snapshot) {
+    ServerList<Server> eureka = new ServerList<Server>() {
+      @Override
+      public List<Server> getInitialListOfServers() {
+        return new ArrayList<>(registry);
+      }
+
+      @Override
+      public List<Server> getUpdatedListOfServers() {
+        return new ArrayList<>(registry);
+      }
+    };
+    return new SnapshotServerList(eureka, snapshot, "image-service");
+  }
+}
@@ -0,0 +1,208 @@
+package com.paoperez.graphqlservice.subscription;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paoperez.graphqlservice.content.ContentChange;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeRuntimeWiring;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+public class SubscriptionHandlerTest {
+  private static final String SDL = "type Query { unused: Int }\n"
+      + "type Subscription { contentChanged(id: ID): ContentChange }\n"
+      + "type ContentChange { id: ID type: String }";
+  private static final String START = "{\"type\":\"start\",\"id\":\"%s\",\"payload\":"
+      + "{\"query\":\"subscription { contentChanged { id type } }\"}}";
+  private static final String START_SLOW = "{\"type\":\"start\",\"id\":\"%s\",\"payload\":"
+      + "{\"query\":\"subscription($id: ID) { contentChanged(id: $id) { id type } }\","
+      + "\"variables\":{\"id\":\"slow\"}}}";
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ContentChanges changes = new ContentChanges(100, meterRegistry);
+  private final AtomicInteger executions = new AtomicInteger();
+  // Held by the execution of subscriptions to the content "slow" until released
+  private final CountDownLatch slowStarting = new CountDownLatch(1);
+  private final CountDownLatch slowReleased = new CountDownLatch(1);
+  private SubscriptionHandler handler;
+
+  @BeforeEach
+  void init() {
+    RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+        .type(TypeRuntimeWiring.newTypeWiring("Subscription").dataFetcher("contentChanged",
+            environment -> {
+              if ("slow".equals(environment.getArgument("id"))) {
+                slowStarting.countDown();
+                slowReleased.await();
+              }
+              return changes.publisher(environment.getArgument("id"));
+            }))
+        .type(TypeRuntimeWiring.newTypeWiring("ContentChange").dataFetcher("type",
+            environment -> {
+              executions.incrementAndGet();
+              return ((ContentChange) environment.getSource()).getType().name();
+            }))
+        .build();
+    GraphQL graphql = GraphQL.newGraphQL(new SchemaGenerator()
+        .makeExecutableSchema(new SchemaParser().parse(SDL), wiring)).build();
+    handler = new SubscriptionHandler(graphql, new ObjectMapper(),
+        Executors.newCachedThreadPool(), 2, 10, 1000, meterRegistry);
+  }
+
+  @Test
+  void connectionInit_shouldAcknowledge() throws Exception {
+    Client client = new Client("1");
+
+    client.send("{\"type\":\"connection_init\"}");
+
+    assertEquals("{\"type\":\"connection_ack\"}", client.next());
+  }
+
+  @Test
+  void start_whenSameSubscription_shouldExecuteItOnceForAllClients() throws Exception {
+    Client first = new Client("1");
+    Client second = new Client("2");
+    first.send(String.format(START, "a"));
+    second.send(String.format(START, "b"));
+
+    changes.publish(new ContentChange("X", ContentChange.Type.SAVED));
+
+    String data = "{\"data\":{\"contentChanged\":{\"id\":\"X\",\"type\":\"SAVED\"}}}";
+    assertEquals("{\"type\":\"data\",\"id\":\"a\",\"payload\":" + data + "}", first.next());
+    assertEquals("{\"type\":\"data\",\"id\":\"b\",\"payload\":" + data + "}", second.next());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void start_whileSameSubscriptionStarting_shouldJoinItWithoutWaiting() throws Exception {
+    Client first = new Client("1");
+    Client second = new Client("2");
+    Future<?> starting = Executors.newSingleThreadExecutor().submit(() -> {
+      first.send(String.format(START_SLOW, "a"));
+      return null;
+    });
+    assertTrue(slowStarting.await(5, TimeUnit.SECONDS));
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5),
+        () -> second.send(String.format(START_SLOW, "b")));
+    slowReleased.countDown();
+    starting.get(5, TimeUnit.SECONDS);
+    changes.publish(new ContentChange("slow", ContentChange.Type.SAVED));
+
+    String data = "{\"data\":{\"contentChanged\":{\"id\":\"slow\",\"type\":\"SAVED\"}}}";
+    assertEquals("{\"type\":\"data\",\"id\":\"a\",\"payload\":" + data + "}", first.next());
+    assertEquals("{\"type\":\"data\",\"id\":\"b\",\"payload\":" + data + "}", second.next());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void start_whenQuery_shouldRefuseIt() throws Exception {
+    Client client = new Client("1");
+
+    client.send("{\"type\":\"start\",\"id\":\"a\",\"payload\":{\"query\":\"{ unused }\"}}");
+
+    assertEquals("{\"type\":\"error\",\"id\":\"a\",\"payload\":{\"message\":"
+        + "\"Only subscriptions are taken here, send queries to /graphql.\"}}", client.next());
+    assertEquals(0, executions.get());
+  }
+
+  @Test
+  void start_whenQueryInvalid_shouldSendErrors() throws Exception {
+    Client client = new Client("1");
+
+    client.send("{\"type\":\"start\",\"id\":\"a\",\"payload\":{\"query\":\"subscription {\"}}");
+
+    String error = client.next();
+    assertTrue(error.startsWith("{\"type\":\"error\",\"id\":\"a\",\"payload\":[{"), error);
+    assertEquals(0, meterRegistry.get("graphql.subscriptions.executions").gauge().value());
+  }
+
+  @Test
+  void stop_whenLastClient_shouldCancelExecution() throws Exception {
+    Client first = new Client("1");
+    Client second = new Client("2");
+    first.send(String.format(START, "a"));
+    second.send(String.format(START, "a"));
+
+    first.send("{\"type\":\"stop\",\"id\":\"a\"}");
+    handler.afterConnectionClosed(second.session, CloseStatus.NORMAL);
+
+    assertEquals("{\"type\":\"complete\",\"id\":\"a\"}", first.next());
+    assertEquals(0, changes.subscribers());
+    assertEquals(0, meterRegistry.get("graphql.subscriptions.executions").gauge().value());
+  }
+
+  @Test
+  void send_whenClientTooSlow_shouldCloseItOnly() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    Client slow = new Client("1", blocked);
+    Client fast = new Client("2");
+    slow.send(String.format(START, "a"));
+    fast.send(String.format(START, "a"));
+
+    // One being sent and a full buffer of two, with a fourth one more than it takes
+    for (int i = 0; i < 4; i++) {
+      changes.publish(new ContentChange(String.valueOf(i), ContentChange.Type.SAVED));
+      assertNotNull(fast.next());
+    }
+    blocked.countDown();
+
+    verify(slow.session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    assertEquals(1, meterRegistry.get("graphql.subscriptions.evictions").counter().count());
+    assertNull(fast.received.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  private final class Client {
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    Client(final String id) throws Exception {
+      this(id, new CountDownLatch(0));
+    }
+
+    Client(final String id, final CountDownLatch sending) throws Exception {
+      when(session.getId()).thenReturn(id);
+      doAnswer(invocation -> {
+        sending.await();
+        received.add(((TextMessage) invocation.getArgument(0)).getPayload());
+        return null;
+      }).when(session).sendMessage(any());
+      handler.afterConnectionEstablished(session);
+    }
+
+    void send(final String message) throws Exception {
+      handler.handleTextMessage(session, new TextMessage(message));
+    }
+
+    String next() throws InterruptedException {
+      return received.poll(5, TimeUnit.SECONDS);
+    }
+  }
+}
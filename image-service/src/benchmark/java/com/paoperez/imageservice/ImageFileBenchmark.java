@@ -0,0 +1,127 @@
+package com.paoperez.imageservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.http.MediaType;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Time to upload image files to the store, and to download them from an embedded Tomcat with and
+ * without sendfile, by file size. Add -prof gc to -Dbenchmark.args to see that the memory
+ * allocated per operation does not grow with the size of the file. Run with ./mvnw -Pbenchmark
+ * -DskipTests verify -Dbenchmark.args=ImageFileBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx256m")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImageFileBenchmark {
+  @Param({"1048576", "104857600", "1073741824"})
+  private long size;
+
+  @Param({"true", "false"})
+  private boolean sendfile;
+
+  private Path directory;
+  private ImageFileStore store;
+  private WebServer server;
+  private URL file;
+  private final byte[] buffer = new byte[64 * 1024];
+
+  @Setup(Level.Trial)
+  public void start() throws Exception {
+    directory = Files.createTempDirectory("images");
+    store = new ImageFileStore(directory, Long.MAX_VALUE);
+    String name = store.store(generated(size), MediaType.IMAGE_PNG);
+    ImageFileController controller = new ImageFileController(null, store, null, "");
+
+    TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+    factory.addConnectorCustomizers(
+        connector -> connector.setProperty("useSendfile", String.valueOf(sendfile)));
+    server = factory.getWebServer(context -> context.addServlet("files", new HttpServlet() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+          throws IOException {
+        controller.getFile(request.getPathInfo().substring(1), null, request, response);
+      }
+    }).addMapping("/files/*"));
+    server.start();
+    file = new URL("http://localhost:" + server.getPort() + "/files/" + name);
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() throws IOException {
+    server.stop();
+    FileSystemUtils.deleteRecursively(directory);
+  }
+
+  @Benchmark
+  public void upload() throws Exception {
+    // Each upload has other bytes, so that it is stored rather than found
+    Files.delete(store.resolve(store.store(generated(size), MediaType.IMAGE_JPEG)));
+  }
+
+  @Benchmark
+  public long download() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) file.openConnection();
+    long read = 0;
+    try (InputStream body = connection.getInputStream()) {
+      for (int n = body.read(buffer); n != -1; n = body.read(buffer)) {
+        read += n;
+      }
+    }
+    return read;
+  }
+
+  private static InputStream generated(final long size) {
+    long seed = System.nanoTime();
+    return new InputStream() {
+      private long remaining = size;
+
+      @Override
+      public int read() {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0];
+      }
+
+      @Override
+      public int read(final byte[] bytes, final int offset, final int length) {
+        if (remaining == 0) {
+          return -1;
+        }
+        int read = (int) Math.min(length, remaining);
+        Arrays.fill(bytes, offset, offset + read, (byte) (seed + remaining));
+        remaining -= read;
+        return read;
+      }
+    };
+  }
+}
@@ -0,0 +1,155 @@
+package com.paoperez.imageservice;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+/**
+ * Cost of every repository operation the service uses, on embedded Mongo with the indexes of the
+ * database image, i.e. none besides the id. Run with ./mvnw -Pbenchmark -DskipTests verify,
+ * results go to target/jmh-result.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ImageRepositoryBenchmark {
+  private static final int BATCH_SIZE = 10_000;
+
+  @Param({"1000", "100000", "1000000"})
+  private int documents;
+
+  private MongodExecutable mongod;
+  private MongoClient client;
+  private MongoTemplate template;
+  private ImageRepository repository;
+  private final List<String> ids = new ArrayList<>();
+  private int nextNumber;
+
+  @Setup(Level.Trial)
+  public void start() throws IOException {
+    int port = Network.getFreeServerPort();
+    mongod = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+        .version(Version.Main.V4_0)
+        .net(new Net("localhost", port, Network.localhostIsIPv6()))
+        .build());
+    mongod.start();
+    client = MongoClients.create("mongodb://localhost:" + port);
+    template = new MongoTemplate(client, "contentually");
+    repository = new MongoRepositoryFactory(template).getRepository(ImageRepository.class);
+
+    List<Image> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < documents; i++) {
+      batch.add(image(i));
+      if (batch.size() == BATCH_SIZE || i == documents - 1) {
+        template.insertAll(batch).forEach(image -> ids.add(image.getId()));
+        batch.clear();
+      }
+    }
+    nextNumber = documents;
+  }
+
+  @TearDown(Level.Trial)
+  public void stop() {
+    client.close();
+    mongod.stop();
+  }
+
+  @Benchmark
+  public List<Image> findAll() {
+    return repository.findAll();
+  }
+
+  @Benchmark
+  public Optional<Image> findById() {
+    return repository.findById(anyId());
+  }
+
+  @Benchmark
+  public Image findByUrl() {
+    return repository.findByUrl(url(ThreadLocalRandom.current().nextInt(documents)));
+  }
+
+  @Benchmark
+  public String save(final Created created) {
+    created.image = repository.save(image(nextNumber++));
+    return created.image.getId();
+  }
+
+  @Benchmark
+  public void deleteById(final Deletable deletable) {
+    repository.deleteById(deletable.id);
+  }
+
+  private String anyId() {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+  }
+
+  private static Image image(final int number) {
+    Image image = new Image();
+    image.setName("image-" + number);
+    image.setUrl(url(number));
+    image.setAlt("Image " + number);
+    image.setWidth(1280);
+    image.setHeight(720);
+    return image;
+  }
+
+  private static String url(final int number) {
+    return "https://images.contentually.dev/" + number + ".jpg";
+  }
+
+  /**
+   * Removes what a save created, so that the collection keeps its size.
+   */
+  @State(Scope.Thread)
+  public static class Created {
+    private Image image;
+
+    @TearDown(Level.Invocation)
+    public void delete(final ImageRepositoryBenchmark benchmark) {
+      benchmark.template.remove(image);
+    }
+  }
+
+  /**
+   * Inserts a document for every delete, so that the collection keeps its size.
+   */
+  @State(Scope.Thread)
+  public static class Deletable {
+    private String id;
+
+    @Setup(Level.Invocation)
+    public void insert(final ImageRepositoryBenchmark benchmark) {
+      id = benchmark.template.insert(image(benchmark.nextNumber++)).getId();
+    }
+  }
+}
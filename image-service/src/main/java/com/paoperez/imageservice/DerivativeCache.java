@@ -0,0 +1,151 @@
+package com.paoperez.imageservice;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Files derived from stored images, kept in a directory up to a total size and evicted least
+ * recently used first. Use is recorded in the modification time of the files too, so that the
+ * order survives restarts; the directory is indexed on first use.
+ */
+final class DerivativeCache {
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long maxSize;
+  private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  private boolean indexed;
+
+  /**
+   * @param directory - The directory of the files, created on first use.
+   * @param maxSize   - The total size of the files kept, in bytes.
+   */
+  DerivativeCache(final Path directory, final long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param name - The name of a derived file.
+   * @return Path - The file, or null when it is not cached.
+   */
+  Path get(final String name) throws IOException {
+    synchronized (this) {
+      index();
+      if (sizes.get(name) == null) {
+        return null;
+      }
+    }
+
+    Path file = directory.resolve(name);
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return file;
+    } catch (IOException e) {
+      // Evicted meanwhile
+      return null;
+    }
+  }
+
+  /**
+   * @return Path - A new file in the directory to write a derived file to before it is put.
+   */
+  Path newTemporaryFile() throws IOException {
+    Files.createDirectories(directory);
+    // Indexing drops temporary files, so it must be done before there are any to keep
+    synchronized (this) {
+      index();
+    }
+    return Files.createTempFile(directory, "derivative-", TEMPORARY_SUFFIX);
+  }
+
+  /**
+   * @param name    - The name of the derived file.
+   * @param written - The file it was written to, from {@link #newTemporaryFile()}.
+   * @return Path - The cached file, which may be evicted at any time from now on.
+   */
+  Path put(final String name, final Path written) throws IOException {
+    Path file = directory.resolve(name);
+    long length = Files.size(written);
+    Files.move(written, file, StandardCopyOption.ATOMIC_MOVE);
+    List<Path> evicted = new ArrayList<>();
+    synchronized (this) {
+      index();
+      Long replaced = sizes.put(name, length);
+      size += length - (replaced == null ? 0 : replaced);
+      Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+      while (size > maxSize && eldest.hasNext()) {
+        Map.Entry<String, Long> entry = eldest.next();
+        if (entry.getKey().equals(name)) {
+          continue;
+        }
+        size -= entry.getValue();
+        evicted.add(directory.resolve(entry.getKey()));
+        eldest.remove();
+      }
+    }
+
+    for (Path path : evicted) {
+      Files.deleteIfExists(path);
+    }
+    return file;
+  }
+
+  /**
+   * @param file - A file, or null.
+   * @return boolean - Whether the file is one of the cache, which may be evicted at any time.
+   */
+  boolean holds(final Path file) {
+    return file != null && file.startsWith(directory);
+  }
+
+  synchronized long size() {
+    return size;
+  }
+
+  synchronized int count() {
+    return sizes.size();
+  }
+
+  private void index() throws IOException {
+    if (indexed || !Files.isDirectory(directory)) {
+      return;
+    }
+
+    List<Path> files;
+    try (Stream<Path> listed = Files.list(directory)) {
+      files = listed.collect(Collectors.toList());
+    }
+    List<Map.Entry<Path, BasicFileAttributes>> derivatives = new ArrayList<>();
+    for (Path file : files) {
+      if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+        // Left by a resize that did not finish
+        Files.deleteIfExists(file);
+      } else {
+        derivatives.add(new AbstractMap.SimpleEntry<>(file,
+            Files.readAttributes(file, BasicFileAttributes.class)));
+      }
+    }
+
+    derivatives.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+    for (Map.Entry<Path, BasicFileAttributes> derivative : derivatives) {
+      sizes.put(derivative.getKey().getFileName().toString(), derivative.getValue().size());
+      size += derivative.getValue().size();
+    }
+    indexed = true;
+  }
+}
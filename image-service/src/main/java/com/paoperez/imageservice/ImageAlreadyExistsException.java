@@ -4,6 +4,6 @@ class ImageAlreadyExistsException extends Exception {
   private static final long serialVersionUID = 1L;
 
   ImageAlreadyExistsException(final String url) {
-    super(String.format("Image with url %s already exists.", url));
+    super("Image with url " + url + " already exists.", null, false, false);
   }
 }
@@ -1,11 +1,23 @@
 package com.paoperez.imageservice;
 
+import ch.qos.logback.classic.LoggerContext;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.discovery.DiscoveryClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Paths;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.config.Configuration.AccessLevel;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.util.unit.DataSize;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
 class ImageConfig {
   @Bean
   ImageService imageService(final ImageRepository imageRepository) {
@@ -25,4 +37,78 @@ class ImageConfig {
   ImageMapper imageMapper(final ModelMapper modelMapper) {
     return new ImageMapperImpl(modelMapper);
   }
+
+  @Bean
+  ImageFileStore imageFileStore(
+      @Value("${images.files.directory:/var/lib/images}") final String directory,
+      @Value("${images.files.max-size:20MB}") final DataSize maxSize) {
+    return new ImageFileStore(Paths.get(directory), maxSize.toBytes());
+  }
+
+  @Bean
+  DerivativeCache derivativeCache(
+      @Value("${images.variants.directory:/var/lib/images/variants}") final String directory,
+      @Value("${images.variants.max-size:1GB}") final DataSize maxSize) {
+    return new DerivativeCache(Paths.get(directory), maxSize.toBytes());
+  }
+
+  @Bean
+  ImageVariants imageVariants(final ImageFileStore imageFileStore,
+      final DerivativeCache derivativeCache, final MeterRegistry meterRegistry,
+      @Value("${images.variants.widths:160,320,480,640,960,1280,1920}") final int[] widths,
+      @Value("${images.variants.max-pixels:50000000}") final long maxPixels,
+      @Value("${images.variants.workers:2}") final int workers,
+      @Value("${images.variants.queue-size:64}") final int queueSize,
+      @Value("${images.variants.timeout:10000}") final long timeoutMillis) {
+    return new ImageVariants(imageFileStore, derivativeCache, widths, maxPixels, workers,
+        queueSize, timeoutMillis, meterRegistry);
+  }
+
+  @Bean
+  DeregisterOnShutdown deregisterOnShutdown(
+      final ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+      final ObjectProvider<DiscoveryClient> discoveryClient,
+      @Value("${discovery.shutdown-delay:10000}") final long delayMillis) {
+    return new DeregisterOnShutdown(applicationInfoManager, discoveryClient, delayMillis);
+  }
+
+  @Bean
+  @ConditionalOnProperty("graphql-cache.purge")
+  GraphQLCachePurge graphQLCachePurge(
+      final ObjectProvider<org.springframework.cloud.client.discovery.DiscoveryClient> clients,
+      @Value("${graphql-cache.service-id:graphql-service}") final String serviceId) {
+    return new GraphQLCachePurge(clients, serviceId);
+  }
+
+  @Bean
+  MongoClientSettingsBuilderCustomizer mongoMetrics(final MeterRegistry meterRegistry,
+      final SlowCommands slowCommands) {
+    return settings -> settings.addCommandListener(new MongoCommandMetrics(meterRegistry))
+        .addCommandListener(slowCommands)
+        .applyToConnectionPoolSettings(pool ->
+            pool.addConnectionPoolListener(new MongoPoolMetrics(meterRegistry)));
+  }
+
+  @Bean
+  SlowCommands slowCommands(final ObjectProvider<MongoOperations> operations,
+      @Value("${slow-commands.threshold:100}") final long thresholdMillis,
+      @Value("${slow-commands.capacity:100}") final int capacity,
+      final MeterRegistry meterRegistry) {
+    return new SlowCommands(operations, thresholdMillis, capacity, meterRegistry);
+  }
+
+  @Bean
+  SlowCommandsEndpoint slowCommandsEndpoint(final SlowCommands slowCommands) {
+    return new SlowCommandsEndpoint(slowCommands);
+  }
+
+  @Bean
+  static RepositoryMethods repositoryMethods() {
+    return new RepositoryMethods();
+  }
+
+  @Bean
+  AsyncLogMetrics asyncLogMetrics() {
+    return new AsyncLogMetrics((LoggerContext) LoggerFactory.getILoggerFactory());
+  }
 }
@@ -1,10 +1,10 @@
 package com.paoperez.imageservice;
 
-import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +17,19 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 @ControllerAdvice
 final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
+  private final ExpectedErrorLog expectedErrors;
+
+  ImageExceptionHandler(
+      @Value("${errors.expected.lines-per-second:1}") final int expectedErrorLinesPerSecond) {
+    this.expectedErrors = new ExpectedErrorLog(expectedErrorLinesPerSecond);
+  }
 
   @ExceptionHandler(ImageNotFoundException.class)
   final ResponseEntity<ImageErrorResponse> handleNotFoundException(final ImageNotFoundException ex,
       final WebRequest request) {
+    expectedErrors.log(HttpStatus.NOT_FOUND, ex.getMessage(), request);
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(ex.getLocalizedMessage())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.NOT_FOUND).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.NOT_FOUND).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -30,8 +37,9 @@ final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(ImageAlreadyExistsException.class)
   final ResponseEntity<ImageErrorResponse> handleAlreadyExistsException(
       final ImageAlreadyExistsException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.CONFLICT, ex.getMessage(), request);
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(ex.getLocalizedMessage())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.CONFLICT).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.CONFLICT).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -39,8 +47,19 @@ final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
   @ExceptionHandler(ImageMismatchException.class)
   final ResponseEntity<ImageErrorResponse> handleMismatchException(final ImageMismatchException ex,
       final WebRequest request) {
+    expectedErrors.log(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(ex.getLocalizedMessage())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
+
+    return new ResponseEntity<>(responseBody, responseBody.getStatus());
+  }
+
+  @ExceptionHandler(ImageFileTooLargeException.class)
+  final ResponseEntity<ImageErrorResponse> handleFileTooLargeException(
+      final ImageFileTooLargeException ex, final WebRequest request) {
+    expectedErrors.log(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage(), request);
+    ImageErrorResponse responseBody = ImageErrorResponse.builder().message(ex.getLocalizedMessage())
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.PAYLOAD_TOO_LARGE).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -50,9 +69,9 @@ final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
       final ConstraintViolationException ex, final WebRequest request) {
     Collection<String> message = ex.getConstraintViolations().stream()
         .map(ConstraintViolation::getMessage).collect(Collectors.toList());
-
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -63,9 +82,9 @@ final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
       final WebRequest request) {
     Collection<String> message = ex.getBindingResult().getFieldErrors().stream()
         .map(FieldError::getDefaultMessage).collect(Collectors.toList());
-
+    expectedErrors.log(HttpStatus.BAD_REQUEST, message.toString(), request);
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(message.toString())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.BAD_REQUEST).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.BAD_REQUEST).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -74,7 +93,7 @@ final class ImageExceptionHandler extends ResponseEntityExceptionHandler {
   final ResponseEntity<ImageErrorResponse> handleAllExceptions(final Exception ex,
       final WebRequest request) {
     ImageErrorResponse responseBody = ImageErrorResponse.builder().message(ex.getLocalizedMessage())
-        .timestamp(LocalDateTime.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        .timestamp(ErrorTimestamp.now()).status(HttpStatus.INTERNAL_SERVER_ERROR).build();
 
     return new ResponseEntity<>(responseBody, responseBody.getStatus());
   }
@@ -0,0 +1,252 @@
+package com.paoperez.imageservice;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Uploads of the bytes of an image, which then becomes the url of the image, and serving of them.
+ * Files are served with support for a single byte range, cached for good since their name is the
+ * digest of their bytes, and sent by the web server straight from the file when it supports it.
+ * With a width, a variant scaled down to about that width is served instead, streamed from the
+ * file opened beforehand since the web server would only open it once it may have been evicted.
+ */
+@Validated
+@RestController
+@RequestMapping("/images")
+public class ImageFileController {
+  static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+  static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private static final String CACHE_CONTROL =
+      CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+  private final ImageService imageService;
+  private final ImageFileStore fileStore;
+  private final ImageVariants variants;
+  private final String baseUrl;
+
+  public ImageFileController(final ImageService imageService, final ImageFileStore fileStore,
+      final ImageVariants variants, @Value("${images.files.base-url:}") final String baseUrl) {
+    this.imageService = imageService;
+    this.fileStore = fileStore;
+    this.variants = variants;
+    this.baseUrl = baseUrl;
+  }
+
+  @PutMapping(path = "/{id}/file",
+      consumes = {"image/png", "image/jpeg", "image/gif", "image/webp"})
+  public ResponseEntity<String> uploadFile(final @PathVariable @NotBlank String id,
+      final @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType type,
+      final HttpServletRequest request) throws ImageNotFoundException,
+      ImageAlreadyExistsException, ImageMismatchException, ImageFileTooLargeException,
+      IOException {
+    Image image = imageService.getImage(id);
+    String name = fileStore.store(request.getInputStream(), type);
+    URI location = (baseUrl.isEmpty()
+        ? ServletUriComponentsBuilder.fromCurrentContextPath().path("/images/files")
+        : UriComponentsBuilder.fromHttpUrl(baseUrl)).pathSegment(name).build().toUri();
+    image.setUrl(location.toString());
+    imageService.updateImage(id, image);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setLocation(location);
+
+    return new ResponseEntity<>(location.toString(), headers, HttpStatus.CREATED);
+  }
+
+  @GetMapping("/files/{name}")
+  public void getFile(final @PathVariable String name,
+      final @RequestParam(name = "w", required = false) @Positive Integer width,
+      final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+    Path file;
+    // A variant is opened before anything is sent, since it may be evicted at any time and an
+    // open file can still be read once deleted
+    FileChannel variant = null;
+    String cacheControl = CACHE_CONTROL;
+    try {
+      file = width == null ? fileStore.resolve(name) : variants.variant(name, width);
+      variant = openVariant(file);
+      if (variant == null && variants.isVariant(file)) {
+        // Evicted from the cache by the put of another variant since, so made again
+        file = variants.variant(name, width);
+        variant = openVariant(file);
+        if (variant == null && variants.isVariant(file)) {
+          // Evicted once more: the image itself is sent, but not kept for the variant's URL
+          file = fileStore.resolve(name);
+          cacheControl = CacheControl.noCache().getHeaderValue();
+        }
+      }
+    } catch (RejectedExecutionException | TimeoutException e) {
+      // Too many resizes waiting; the client may retry or fall back to the image itself
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+      return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while resizing " + name, e);
+    }
+
+    try (FileChannel opened = variant) {
+      send(file, opened, cacheControl, request, response);
+    }
+  }
+
+  private void send(final Path file, @Nullable final FileChannel variant,
+      final String cacheControl, final HttpServletRequest request,
+      final HttpServletResponse response) throws IOException {
+    long length = variant != null ? variant.size() : sizeOf(file);
+    if (length < 0) {
+      response.setStatus(HttpStatus.NOT_FOUND.value());
+      return;
+    }
+
+    String etag = "\"" + file.getFileName() + "\"";
+    response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+      return;
+    }
+
+    long start = 0;
+    long end = length - 1;
+    HttpRange range = singleRange(request, etag);
+    if (range != null) {
+      start = range.getRangeStart(length);
+      end = range.getRangeEnd(length);
+      if (start >= length || start > end) {
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(HttpHeaders.CONTENT_RANGE,
+          "bytes " + start + "-" + end + "/" + length);
+    }
+
+    response.setContentType(ImageFileStore.typeOf(file.getFileName().toString()).toString());
+    response.setContentLengthLong(end - start + 1);
+    if ("HEAD".equals(request.getMethod())) {
+      return;
+    }
+    if (variant != null) {
+      transfer(variant, file, start, end - start + 1, response);
+    } else {
+      transfer(file, start, end - start + 1, request, response);
+    }
+  }
+
+  /**
+   * @return FileChannel - The variant opened, or null when the file is not a variant or was
+   *         evicted.
+   */
+  @Nullable
+  private FileChannel openVariant(@Nullable final Path file) throws IOException {
+    if (!variants.isVariant(file)) {
+      return null;
+    }
+
+    try {
+      return FileChannel.open(file, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return long - The size of the file, or -1 when there is none.
+   */
+  private static long sizeOf(@Nullable final Path file) throws IOException {
+    if (file == null) {
+      return -1;
+    }
+
+    try {
+      return Files.size(file);
+    } catch (NoSuchFileException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return HttpRange - The range requested, or null for the whole file when none is, when it no
+   *         longer applies to the file or when several are.
+   */
+  private static HttpRange singleRange(final HttpServletRequest request, final String etag) {
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (ifRange != null && !ifRange.equals(etag)) {
+      return null;
+    }
+
+    try {
+      List<HttpRange> ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+      return ranges.size() == 1 ? ranges.get(0) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static void transfer(final Path file, final long start, final long count,
+      final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+    // Tomcat sends the file with sendfile(2) once the request returns, without copying it through
+    // the heap
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, start + count);
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      transfer(channel, file, start, count, response);
+    }
+  }
+
+  private static void transfer(final FileChannel channel, final Path file, final long start,
+      final long count, final HttpServletResponse response) throws IOException {
+    WritableByteChannel body = Channels.newChannel(response.getOutputStream());
+    for (long sent = 0; sent < count;) {
+      long transferred = channel.transferTo(start + sent, count - sent, body);
+      if (transferred <= 0) {
+        throw new EOFException("File " + file + " ended after " + sent + " bytes");
+      }
+      sent += transferred;
+    }
+  }
+}
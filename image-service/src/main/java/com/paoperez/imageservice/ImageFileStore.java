@@ -0,0 +1,111 @@
+package com.paoperez.imageservice;
+
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+import org.springframework.http.MediaType;
+
+/**
+ * Image files on local disk, named by the SHA-256 digest of their bytes and an extension for their
+ * type. A name always denotes the same bytes, so a file is never rewritten and responses serving
+ * it can be cached for good. Uploads are streamed to disk a buffer at a time, whatever their size.
+ */
+final class ImageFileStore {
+  static final ImmutableBiMap<MediaType, String> EXTENSIONS = ImmutableBiMap.of(
+      MediaType.IMAGE_PNG, "png", MediaType.IMAGE_JPEG, "jpg", MediaType.IMAGE_GIF, "gif",
+      MediaType.valueOf("image/webp"), "webp");
+
+  private static final Pattern NAME = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif|webp)");
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path directory;
+  private final long maxSize;
+
+  /**
+   * @param directory - The directory of the files, created on the first upload.
+   * @param maxSize   - The largest file accepted, in bytes.
+   */
+  ImageFileStore(final Path directory, final long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param content - The bytes of the image, read to the end but not closed.
+   * @param type    - The type of the image, one of {@link #EXTENSIONS}.
+   * @return String - The name of the stored file.
+   * @throws ImageFileTooLargeException - Thrown when the image has more than the maximum size.
+   */
+  String store(final InputStream content, final MediaType type)
+      throws IOException, ImageFileTooLargeException {
+    String extension = EXTENSIONS.get(new MediaType(type.getType(), type.getSubtype()));
+    if (extension == null) {
+      throw new IllegalArgumentException("Unsupported image type " + type);
+    }
+
+    Files.createDirectories(directory);
+    Path upload = Files.createTempFile(directory, "upload-", ".tmp");
+    try {
+      MessageDigest digest = sha256();
+      long size = 0;
+      try (OutputStream file = Files.newOutputStream(upload)) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = content.read(buffer); read != -1; read = content.read(buffer)) {
+          size += read;
+          if (size > maxSize) {
+            throw new ImageFileTooLargeException(maxSize);
+          }
+          digest.update(buffer, 0, read);
+          file.write(buffer, 0, read);
+        }
+      }
+
+      String name = BaseEncoding.base16().lowerCase().encode(digest.digest()) + "." + extension;
+      Path file = directory.resolve(name);
+      // The same bytes were uploaded before, or are being uploaded now and the rename is atomic
+      if (!Files.exists(file)) {
+        Files.move(upload, file, StandardCopyOption.ATOMIC_MOVE);
+      }
+      return name;
+    } finally {
+      Files.deleteIfExists(upload);
+    }
+  }
+
+  /**
+   * @param name - The name of a stored file.
+   * @return Path - The file, or null when there is no file of that name.
+   */
+  Path resolve(final String name) {
+    if (!NAME.matcher(name).matches()) {
+      return null;
+    }
+
+    Path file = directory.resolve(name);
+    return Files.isRegularFile(file) ? file : null;
+  }
+
+  /**
+   * @param name - The name of a stored file.
+   * @return MediaType - The type of the image in the file.
+   */
+  static MediaType typeOf(final String name) {
+    return EXTENSIONS.inverse().get(name.substring(name.lastIndexOf('.') + 1));
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
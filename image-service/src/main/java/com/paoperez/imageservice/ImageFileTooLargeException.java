@@ -0,0 +1,9 @@
+package com.paoperez.imageservice;
+
+class ImageFileTooLargeException extends Exception {
+  private static final long serialVersionUID = 1L;
+
+  ImageFileTooLargeException(final long maxSize) {
+    super("Image file is larger than " + maxSize + " bytes.", null, false, false);
+  }
+}
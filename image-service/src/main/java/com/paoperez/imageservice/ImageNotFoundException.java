@@ -4,6 +4,7 @@ class ImageNotFoundException extends Exception {
   private static final long serialVersionUID = 1L;
 
   ImageNotFoundException(String id) {
-    super(String.format("Image with id %s not found.", id));
+    // Expected on every request for a stale id, so without the cost of a stack trace
+    super("Image with id " + id + " not found.", null, false, false);
   }
 }
@@ -0,0 +1,260 @@
+package com.paoperez.imageservice;
+
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Stored images scaled down to a width, re-encoded as JPEG for photos and PNG otherwise, and
+ * cached on disk. Widths are rounded up to one of a few so that clients share variants. Resizes
+ * run on a bounded pool of workers, and requests for a variant being made wait for it rather than
+ * make it again.
+ */
+final class ImageVariants {
+  private static final Map<String, String> FORMATS =
+      ImmutableMap.of("jpg", "jpg", "png", "png", "gif", "png");
+  private static final float JPEG_QUALITY = 0.85f;
+
+  private final ImageFileStore store;
+  private final DerivativeCache cache;
+  private final int[] widths;
+  private final long maxPixels;
+  private final long timeoutMillis;
+  private final ThreadPoolExecutor workers;
+  private final ConcurrentMap<String, CompletableFuture<Path>> resizing =
+      new ConcurrentHashMap<>();
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter rejections;
+  private final Timer resizes;
+
+  /**
+   * @param store         - The store of the images to resize.
+   * @param cache         - The cache of the variants.
+   * @param widths        - The widths of variants.
+   * @param maxPixels     - The largest image resized, in pixels, since it is decoded in memory.
+   * @param workers       - The number of images resized at the same time.
+   * @param queueSize     - The number of resizes waiting for a worker, beyond which requests for
+   *                      new variants are rejected.
+   * @param timeoutMillis - How long a request waits for its variant.
+   * @param meterRegistry - The registry of cache hits and resize times.
+   */
+  ImageVariants(final ImageFileStore store, final DerivativeCache cache, final int[] widths,
+      final long maxPixels, final int workers, final int queueSize, final long timeoutMillis,
+      final MeterRegistry meterRegistry) {
+    this.store = store;
+    this.cache = cache;
+    this.widths = widths.clone();
+    Arrays.sort(this.widths);
+    this.maxPixels = maxPixels;
+    this.timeoutMillis = timeoutMillis;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("image-resize-");
+    threadFactory.setDaemon(true);
+    this.workers = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueSize), threadFactory);
+    this.workers.allowCoreThreadTimeOut(true);
+    this.hits = requests("hit", meterRegistry);
+    this.misses = requests("miss", meterRegistry);
+    this.rejections = requests("rejected", meterRegistry);
+    this.resizes = Timer.builder("images.variants.resize").description("Time to make a variant")
+        .register(meterRegistry);
+    Gauge.builder("images.variants.cache.size", cache, DerivativeCache::size).baseUnit("bytes")
+        .description("Size of the cached variants").register(meterRegistry);
+  }
+
+  /**
+   * @param name  - The name of a stored image.
+   * @param width - The width wanted.
+   * @return Path - The file of the variant, or of the image itself when it is not wider than the
+   *         width or cannot be resized; null when no image has that name.
+   * @throws RejectedExecutionException - Thrown when the workers cannot take another resize.
+   * @throws TimeoutException           - Thrown when the variant took too long to make.
+   */
+  Path variant(final String name, final int width)
+      throws IOException, InterruptedException, TimeoutException {
+    Path original = store.resolve(name);
+    String format = FORMATS.get(name.substring(name.lastIndexOf('.') + 1));
+    if (original == null || format == null) {
+      return original;
+    }
+
+    int variantWidth = widthFor(width);
+    String variantName =
+        name.substring(0, name.lastIndexOf('.')) + "-w" + variantWidth + "." + format;
+    Path cached = cache.get(variantName);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    CompletableFuture<Path> created = new CompletableFuture<>();
+    CompletableFuture<Path> variant = resizing.putIfAbsent(variantName, created);
+    if (variant == null) {
+      variant = created;
+      try {
+        workers.execute(() -> resize(original, variantWidth, format, variantName, created));
+      } catch (RejectedExecutionException e) {
+        rejections.increment();
+        resizing.remove(variantName, created);
+        created.completeExceptionally(e);
+        throw e;
+      }
+    }
+
+    try {
+      return variant.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RejectedExecutionException) {
+        throw (RejectedExecutionException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * @param file - A file from {@link #variant(String, int)}.
+   * @return boolean - Whether the file is a variant, which may be evicted at any time, rather than
+   *         the image itself.
+   */
+  boolean isVariant(final Path file) {
+    return cache.holds(file);
+  }
+
+  private int widthFor(final int width) {
+    for (int variantWidth : widths) {
+      if (variantWidth >= width) {
+        return variantWidth;
+      }
+    }
+    return widths[widths.length - 1];
+  }
+
+  private void resize(final Path original, final int width, final String format,
+      final String variantName, final CompletableFuture<Path> variant) {
+    try {
+      // Made by an earlier request between its lookup and this one's
+      Path cached = cache.get(variantName);
+      variant.complete(cached != null ? cached
+          : resizes.recordCallable(() -> resize(original, width, format, variantName)));
+    } catch (Exception | OutOfMemoryError e) {
+      variant.completeExceptionally(e);
+    } finally {
+      resizing.remove(variantName, variant);
+    }
+  }
+
+  private Path resize(final Path original, final int width, final String format,
+      final String variantName) throws IOException {
+    BufferedImage image;
+    try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        return original;
+      }
+
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        int originalWidth = reader.getWidth(0);
+        if (originalWidth <= width
+            || (long) originalWidth * reader.getHeight(0) > maxPixels) {
+          return original;
+        }
+
+        // Decoding every other pixel or more is cheap and still leaves twice the width to scale
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = originalWidth / width / 2;
+        if (subsampling > 1) {
+          param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+        image = reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+
+    BufferedImage scaled = scale(image, width, "jpg".equals(format));
+    Path written = cache.newTemporaryFile();
+    write(scaled, format, written);
+    return cache.put(variantName, written);
+  }
+
+  /**
+   * Halves the image until the width is reached, since bilinear scaling by more than half skips
+   * pixels.
+   */
+  private static BufferedImage scale(final BufferedImage image, final int width,
+      final boolean opaque) {
+    int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+    BufferedImage scaled = image;
+    do {
+      int stepWidth = Math.max(width, scaled.getWidth() / 2);
+      int stepHeight = Math.max(height, scaled.getHeight() / 2);
+      BufferedImage step = new BufferedImage(stepWidth, stepHeight,
+          opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+      Graphics2D graphics = step.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(scaled, 0, 0, stepWidth, stepHeight, null);
+      } finally {
+        graphics.dispose();
+      }
+      scaled = step;
+    } while (scaled.getWidth() != width || scaled.getHeight() != height);
+    return scaled;
+  }
+
+  private static void write(final BufferedImage image, final String format, final Path file)
+      throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+      writer.setOutput(output);
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      if ("jpg".equals(format)) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+      }
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  private static Counter requests(final String result, final MeterRegistry meterRegistry) {
+    return Counter.builder("images.variants.requests").tag("result", result)
+        .description("Requests for variants by whether they were cached").register(meterRegistry);
+  }
+}
@@ -0,0 +1,63 @@
+package com.paoperez.imageservice;
+
+import brave.Span;
+import brave.Tracer;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Traces every command the driver sends within a sampled trace as a client span named after the
+ * command, tagged by collection and the repository method it was sent from (see
+ * {@link RepositoryMethods}). Commands sent outside of a trace, such as those on start, cost a
+ * lookup of the current span only.
+ */
+final class MongoCommandTracing implements CommandListener {
+  private final Tracer tracer;
+  private final ConcurrentMap<Integer, Span> started = new ConcurrentHashMap<>();
+
+  /**
+   * @param tracer - The tracer of the current trace and of the command spans.
+   */
+  MongoCommandTracing(final Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void commandStarted(final CommandStartedEvent event) {
+    Span parent = tracer.currentSpan();
+    if (parent == null || parent.isNoop()) {
+      return;
+    }
+
+    Span span = tracer.newChild(parent.context())
+        .kind(Span.Kind.CLIENT)
+        .name(event.getCommandName())
+        .remoteServiceName("mongodb")
+        .tag("mongodb.collection",
+            MongoCommandMetrics.collection(event.getCommandName(), event.getCommand()))
+        .tag("mongodb.method", RepositoryMethods.current())
+        .tag("mongodb.server",
+            event.getConnectionDescription().getServerAddress().toString());
+    started.put(event.getRequestId(), span.start());
+  }
+
+  @Override
+  public void commandSucceeded(final CommandSucceededEvent event) {
+    Span span = started.remove(event.getRequestId());
+    if (span != null) {
+      span.finish();
+    }
+  }
+
+  @Override
+  public void commandFailed(final CommandFailedEvent event) {
+    Span span = started.remove(event.getRequestId());
+    if (span != null) {
+      span.error(event.getThrowable()).finish();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.paoperez.imageservice;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Keeps the repository method a thread is in, e.g. {@code ImageRepository.findById}, for the
+ * Mongo commands it sends to be told apart by; see {@link MongoCommandMetrics}. Methods the
+ * repository calls on itself count towards the one called first.
+ */
+final class RepositoryMethods implements BeanPostProcessor {
+  /** The method of commands not sent from a repository. */
+  static final String NONE = "none";
+
+  private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+  @Override
+  public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+    if (!(bean instanceof Repository)) {
+      return bean;
+    }
+
+    Class<?> repository = repositoryInterface(bean);
+    String repositoryName = repository.getSimpleName();
+    ProxyFactory proxyFactory = new ProxyFactory();
+    proxyFactory.addInterface(repository);
+    proxyFactory.setTarget(bean);
+    proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+      if (current.get() != null) {
+        return invocation.proceed();
+      }
+      current.set(repositoryName + "." + invocation.getMethod().getName());
+      try {
+        return invocation.proceed();
+      } finally {
+        current.remove();
+      }
+    });
+    return proxyFactory.getProxy();
+  }
+
+  /**
+   * @return String - The repository method the current thread is in, or {@link #NONE}.
+   */
+  static String current() {
+    String method = current.get();
+    return method != null ? method : NONE;
+  }
+
+  private static Class<?> repositoryInterface(final Object bean) {
+    for (Class<?> type : bean.getClass().getInterfaces()) {
+      if (Repository.class.isAssignableFrom(type) && type != Repository.class) {
+        return type;
+      }
+    }
+    return Repository.class;
+  }
+}
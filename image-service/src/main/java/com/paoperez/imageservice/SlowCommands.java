@@ -0,0 +1,308 @@
+package com.paoperez.imageservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Keeps the latest commands that took longer than a threshold, with the repository method they
+ * were sent from and, for reads and deletes, the shape of the command: its fields and operators
+ * with the values left out. Every new shape is explained once in the background, and its winning
+ * plan kept alongside. A read or delete has to be copied as it starts to be shaped, since the
+ * driver reuses its buffer by the time it is known to be slow. Only those of a repository method,
+ * or of a collection outside of one, that was slow before are copied, so commands cost no copy
+ * while none is slow, and the first slow command of each is kept without its shape.
+ */
+final class SlowCommands implements CommandListener {
+  private static final Logger logger = LoggerFactory.getLogger(SlowCommands.class);
+  private static final Set<String> EXPLAINABLE =
+      ImmutableSet.of("find", "aggregate", "count", "distinct", "delete");
+  // Fields the driver adds to every command, which explain does not take
+  private static final Set<String> DRIVER_FIELDS = ImmutableSet.of("$db", "lsid",
+      "$clusterTime", "$readPreference", "txnNumber", "autocommit", "startTransaction");
+  private static final BsonString VALUE = new BsonString("?");
+  private static final JsonNode PENDING = JsonNodeFactory.instance.nullNode();
+  private static final JsonWriterSettings JSON =
+      JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final ObjectProvider<MongoOperations> operations;
+  private final long thresholdNanos;
+  private final int capacity;
+  private final ThreadLocal<Started> started = ThreadLocal.withInitial(Started::new);
+  private final Deque<SlowCommand> commands = new ArrayDeque<>();
+  private final ConcurrentMap<String, JsonNode> plans = new ConcurrentHashMap<>();
+  // Repository methods, or collections, whose reads and deletes are copied to take their shape
+  private final Set<String> copied = ConcurrentHashMap.newKeySet();
+  private final ThreadPoolExecutor explainer;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * @param operations      - The operations to explain commands with, looked up once one is slow
+   *                        since they need the client this listens to.
+   * @param thresholdMillis - The time from which a command is slow, 0 or less to keep none.
+   * @param capacity        - The number of slow commands kept, and of shapes explained.
+   * @param meterRegistry   - The registry of the number of slow commands.
+   */
+  SlowCommands(final ObjectProvider<MongoOperations> operations, final long thresholdMillis,
+      final int capacity, final MeterRegistry meterRegistry) {
+    this.operations = operations;
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    this.capacity = capacity;
+    this.meterRegistry = meterRegistry;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-explain-");
+    threadFactory.setDaemon(true);
+    this.explainer = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(capacity), threadFactory);
+  }
+
+  @Override
+  public void commandStarted(final CommandStartedEvent event) {
+    if (thresholdNanos <= 0) {
+      return;
+    }
+
+    Started command = started.get();
+    command.requestId = event.getRequestId();
+    command.collection =
+        MongoCommandMetrics.collection(event.getCommandName(), event.getCommand());
+    command.method = RepositoryMethods.current();
+    command.command = EXPLAINABLE.contains(event.getCommandName())
+        && copied.contains(command.source()) ? event.getCommand().clone() : null;
+  }
+
+  @Override
+  public void commandSucceeded(final CommandSucceededEvent event) {
+    ended(event, event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(final CommandFailedEvent event) {
+    ended(event, event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * @return List<Map<String, Object>> - The slow commands kept, the latest first, each with the
+   *         plan of its shape once explained.
+   */
+  List<Map<String, Object>> commands() {
+    List<Map<String, Object>> slow = new ArrayList<>();
+    synchronized (commands) {
+      for (Iterator<SlowCommand> it = commands.descendingIterator(); it.hasNext(); ) {
+        SlowCommand command = it.next();
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("time", command.time);
+        entry.put("command", command.name);
+        entry.put("collection", command.collection);
+        entry.put("method", command.method);
+        entry.put("millis", command.millis);
+        entry.put("shape", command.shape);
+        entry.put("plan", command.shape != null ? plans.get(command.shape) : null);
+        slow.add(entry);
+      }
+    }
+    return slow;
+  }
+
+  /**
+   * Forgets the slow commands kept and the plans of their shapes.
+   */
+  void clear() {
+    synchronized (commands) {
+      commands.clear();
+    }
+    plans.clear();
+    copied.clear();
+  }
+
+  long thresholdMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+  }
+
+  private void ended(final CommandEvent event, final long nanos) {
+    if (thresholdNanos <= 0) {
+      return;
+    }
+    Started command = started.get();
+    BsonDocument document = command.command;
+    command.command = null;
+    if (nanos < thresholdNanos || command.requestId != event.getRequestId()) {
+      return;
+    }
+
+    Counter.builder("mongodb.driver.commands.slow").tag("command", event.getCommandName())
+        .description("Mongo commands that took longer than the slow threshold")
+        .register(meterRegistry).increment();
+    String shape = null;
+    if (document != null) {
+      DRIVER_FIELDS.forEach(document::remove);
+      shape = shape(document).toJson();
+      explain(shape, document);
+    } else if (EXPLAINABLE.contains(event.getCommandName()) && copied.size() < capacity) {
+      copied.add(command.source());
+    }
+    SlowCommand slow = new SlowCommand(event.getCommandName(), command.collection,
+        command.method, TimeUnit.NANOSECONDS.toMillis(nanos), shape);
+    synchronized (commands) {
+      if (commands.size() == capacity) {
+        commands.removeFirst();
+      }
+      commands.addLast(slow);
+    }
+  }
+
+  private void explain(final String shape, final BsonDocument command) {
+    if (plans.size() >= capacity || plans.putIfAbsent(shape, PENDING) != null) {
+      return;
+    }
+
+    try {
+      // Replaced outside the map's lock, which explaining would hold up
+      explainer.execute(() -> plans.replace(shape, PENDING, plan(command)));
+    } catch (RejectedExecutionException e) {
+      plans.remove(shape);
+    }
+  }
+
+  private JsonNode plan(final BsonDocument command) {
+    try {
+      BsonDocument explain = new BsonDocument("explain", command)
+          .append("verbosity", new BsonString("queryPlanner"));
+      Document explained =
+          operations.getObject().execute(database -> database.runCommand(explain));
+      Document queryPlanner = explained.get("queryPlanner", Document.class);
+      Object winningPlan = queryPlanner != null ? queryPlanner.get("winningPlan") : null;
+      return winningPlan instanceof Document
+          ? objectMapper.readTree(planShape(((Document) winningPlan).toBsonDocument(
+              BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry())).toJson(JSON))
+          : JsonNodeFactory.instance.textNode("No winning plan");
+    } catch (RuntimeException | IOException e) {
+      logger.debug("Could not explain {}", command, e);
+      return JsonNodeFactory.instance.textNode("Could not explain: " + e.getMessage());
+    }
+  }
+
+  /**
+   * @return BsonDocument - The command with every value but its collection and sort orders
+   *         replaced, and arrays of values taken as one value, so that commands alike but for
+   *         their values have the same shape.
+   */
+  static BsonDocument shape(final BsonDocument command) {
+    BsonDocument shape = new BsonDocument();
+    for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+      shape.put(field.getKey(), shape.isEmpty() || "sort".equals(field.getKey())
+          ? field.getValue() : shapeOf(field.getValue()));
+    }
+    return shape;
+  }
+
+  /**
+   * @return BsonDocument - The plan with the values in the filters and index bounds of its stages
+   *         replaced as in {@link #shape(BsonDocument)}, since they are those of the one command
+   *         explained rather than of its shape.
+   */
+  static BsonDocument planShape(final BsonDocument plan) {
+    BsonDocument shape = new BsonDocument();
+    for (Map.Entry<String, BsonValue> field : plan.entrySet()) {
+      BsonValue value = field.getValue();
+      if ("filter".equals(field.getKey()) || "indexBounds".equals(field.getKey())) {
+        shape.put(field.getKey(), shapeOf(value));
+      } else if (value.isDocument()) {
+        shape.put(field.getKey(), planShape(value.asDocument()));
+      } else if (value.isArray()) {
+        // The inputStages of an OR or a merge sort
+        BsonArray stages = new BsonArray();
+        value.asArray().forEach(element ->
+            stages.add(element.isDocument() ? planShape(element.asDocument()) : element));
+        shape.put(field.getKey(), stages);
+      } else {
+        shape.put(field.getKey(), value);
+      }
+    }
+    return shape;
+  }
+
+  private static BsonValue shapeOf(final BsonValue value) {
+    if (value.isDocument()) {
+      BsonDocument shape = new BsonDocument();
+      for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+        shape.put(field.getKey(),
+            "$sort".equals(field.getKey()) ? field.getValue() : shapeOf(field.getValue()));
+      }
+      return shape;
+    }
+    if (value.isArray() && !value.asArray().isEmpty()
+        && value.asArray().stream().allMatch(BsonValue::isDocument)) {
+      BsonArray shape = new BsonArray();
+      value.asArray().forEach(element -> shape.add(shapeOf(element)));
+      return shape;
+    }
+    return VALUE;
+  }
+
+  // Reused by every command a thread sends, which the driver sends one at a time
+  private static final class Started {
+    private int requestId;
+    private String collection;
+    private String method;
+    private BsonDocument command;
+
+    String source() {
+      return method != null ? method : collection;
+    }
+  }
+
+  private static final class SlowCommand {
+    private final long time = System.currentTimeMillis();
+    private final String name;
+    private final String collection;
+    private final String method;
+    private final long millis;
+    private final String shape;
+
+    SlowCommand(final String name, final String collection, final String method,
+        final long millis, final String shape) {
+      this.name = name;
+      this.collection = collection;
+      this.method = method;
+      this.millis = millis;
+      this.shape = shape;
+    }
+  }
+}
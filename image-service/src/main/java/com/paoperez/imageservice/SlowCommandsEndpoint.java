@@ -0,0 +1,33 @@
+package com.paoperez.imageservice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * The latest slow Mongo commands, with the plans of their shapes, at
+ * {@code GET /actuator/slowcommands}; {@code DELETE /actuator/slowcommands} forgets them.
+ */
+@Endpoint(id = "slowcommands")
+final class SlowCommandsEndpoint {
+  private final SlowCommands slowCommands;
+
+  SlowCommandsEndpoint(final SlowCommands slowCommands) {
+    this.slowCommands = slowCommands;
+  }
+
+  @ReadOperation
+  public Map<String, Object> commands() {
+    Map<String, Object> commands = new LinkedHashMap<>();
+    commands.put("thresholdMillis", slowCommands.thresholdMillis());
+    commands.put("commands", slowCommands.commands());
+    return commands;
+  }
+
+  @DeleteOperation
+  public void clear() {
+    slowCommands.clear();
+  }
+}
@@ -0,0 +1,58 @@
+package com.paoperez.imageservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DerivativeCacheTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void put_whenFull_shouldEvictLeastRecentlyUsed() throws IOException {
+    DerivativeCache cache = new DerivativeCache(directory, 25);
+    put(cache, "a", 10);
+    put(cache, "b", 10);
+    assertNotNull(cache.get("a"));
+
+    put(cache, "c", 10);
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertFalse(Files.exists(directory.resolve("b")));
+    assertEquals(20, cache.size());
+  }
+
+  @Test
+  void get_whenFilesLeftByEarlierRun_shouldIndexThemByLastUse() throws IOException {
+    Files.write(directory.resolve("old"), new byte[10]);
+    Files.setLastModifiedTime(directory.resolve("old"), FileTime.fromMillis(1000));
+    Files.write(directory.resolve("new"), new byte[10]);
+    Files.write(directory.resolve("derivative-1.tmp"), new byte[10]);
+    DerivativeCache cache = new DerivativeCache(directory, 25);
+
+    assertNotNull(cache.get("new"));
+    assertEquals(2, cache.count());
+    assertFalse(Files.exists(directory.resolve("derivative-1.tmp")));
+
+    put(cache, "c", 10);
+
+    assertNull(cache.get("old"));
+    assertNotNull(cache.get("new"));
+  }
+
+  private static void put(final DerivativeCache cache, final String name, final int size)
+      throws IOException {
+    Path written = cache.newTemporaryFile();
+    Files.write(written, new byte[size]);
+    cache.put(name, written);
+  }
+}
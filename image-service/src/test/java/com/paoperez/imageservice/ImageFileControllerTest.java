@@ -0,0 +1,275 @@
+package com.paoperez.imageservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.common.base.Strings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(ImageFileController.class)
+public class ImageFileControllerTest {
+  private static final byte[] BYTES = "0123456789".getBytes();
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ImageFileStore fileStore;
+
+  @Autowired
+  private ImageFileController controller;
+
+  @MockBean
+  private ImageService service;
+
+  @Test
+  void uploadFile_shouldStoreFileAndMakeItTheUrl() throws Exception {
+    Image image = new Image();
+    image.setId("A");
+    when(service.getImage("A")).thenReturn(image);
+    String url = "http://localhost/images/files/" + stored(BYTES);
+
+    mockMvc.perform(put("/images/{id}/file", "A").contentType(MediaType.IMAGE_PNG).content(BYTES))
+        .andExpect(status().isCreated()).andExpect(header().string(HttpHeaders.LOCATION, url))
+        .andExpect(content().string(url));
+
+    verify(service).updateImage(argThat("A"::equals), argThat(i -> url.equals(i.getUrl())));
+  }
+
+  @Test
+  void uploadFile_whenTooLarge_shouldReturnPayloadTooLarge() throws Exception {
+    when(service.getImage("A")).thenReturn(new Image());
+
+    mockMvc.perform(put("/images/{id}/file", "A").contentType(MediaType.IMAGE_PNG)
+        .content(new byte[1024 * 1024 + 1])).andExpect(status().isPayloadTooLarge());
+  }
+
+  @Test
+  void uploadFile_whenNotAnImage_shouldReturnUnsupportedMediaType() throws Exception {
+    mockMvc.perform(put("/images/{id}/file", "A").contentType(MediaType.TEXT_HTML).content(BYTES))
+        .andExpect(status().isUnsupportedMediaType());
+  }
+
+  @Test
+  void getFile_shouldReturnFileCachedForGood() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name)).andExpect(status().isOk())
+        .andExpect(content().bytes(BYTES)).andExpect(content().contentType(MediaType.IMAGE_PNG))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + name + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+            "max-age=31536000, public, immutable"))
+        .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+  }
+
+  @Test
+  void getFile_whenRange_shouldReturnPartialContent() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name).header(HttpHeaders.RANGE, "bytes=2-4"))
+        .andExpect(status().isPartialContent()).andExpect(content().string("234"))
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/10"));
+    mockMvc.perform(get("/images/files/{name}", name).header(HttpHeaders.RANGE, "bytes=-3"))
+        .andExpect(status().isPartialContent()).andExpect(content().string("789"));
+  }
+
+  @Test
+  void getFile_whenRangeForOtherVersion_shouldReturnWholeFile() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name).header(HttpHeaders.RANGE, "bytes=2-4")
+        .header(HttpHeaders.IF_RANGE, "\"other\"")).andExpect(status().isOk())
+        .andExpect(content().bytes(BYTES));
+  }
+
+  @Test
+  void getFile_whenRangeBeyondEnd_shouldReturnRangeNotSatisfiable() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name).header(HttpHeaders.RANGE, "bytes=10-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+  }
+
+  @Test
+  void getFile_whenETagMatches_shouldReturnNotModified() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name)
+        .header(HttpHeaders.IF_NONE_MATCH, "\"" + name + "\""))
+        .andExpect(status().isNotModified()).andExpect(content().bytes(new byte[0]));
+  }
+
+  @Test
+  void getFile_whenWidth_shouldReturnVariantCachedForGood() throws Exception {
+    String name = fileStore.store(ImageVariantsTest.png(800, 600), MediaType.IMAGE_PNG);
+    String variant = name.replace(".png", "-w320.png");
+
+    mockMvc.perform(get("/images/files/{name}", name).param("w", "300"))
+        .andExpect(status().isOk()).andExpect(content().contentType(MediaType.IMAGE_PNG))
+        .andExpect(header().string(HttpHeaders.ETAG, "\"" + variant + "\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+            "max-age=31536000, public, immutable"));
+  }
+
+  @Test
+  void getFile_whenVariantEvictedAfterHeaders_shouldStillSendIt() throws Exception {
+    String name = fileStore.store(ImageVariantsTest.png(800, 600), MediaType.IMAGE_PNG);
+    Path variant = FileStoreConfig.DIRECTORY.resolve("variants")
+        .resolve(name.replace(".png", "-w160.png"));
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/files/" + name);
+    request.setAttribute(ImageFileController.SENDFILE_SUPPORTED, true);
+    // Evicted once the headers are sent, as by the put of another variant
+    MockHttpServletResponse response = new MockHttpServletResponse() {
+      @Override
+      public ServletOutputStream getOutputStream() {
+        try {
+          Files.delete(variant);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+        return super.getOutputStream();
+      }
+    };
+
+    controller.getFile(name, 100, request, response);
+
+    assertEquals(200, response.getStatus());
+    assertNull(request.getAttribute(ImageFileController.SENDFILE_FILENAME));
+    assertTrue(response.getContentAsByteArray().length > 0);
+    assertEquals(response.getContentLengthLong(), response.getContentAsByteArray().length);
+    assertFalse(Files.exists(variant));
+  }
+
+  @Test
+  void getFile_whenWidthNotPositive_shouldReturnBadRequest() throws Exception {
+    mockMvc.perform(get("/images/files/{name}", stored(BYTES)).param("w", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getFile_whenUnknown_shouldReturnNotFound() throws Exception {
+    mockMvc.perform(get("/images/files/{name}", "missing.png")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void getFile_whenSendfileSupported_shouldLeaveTransferToServer() throws Exception {
+    String name = stored(BYTES);
+
+    mockMvc.perform(get("/images/files/{name}", name).header(HttpHeaders.RANGE, "bytes=2-")
+        .requestAttr(ImageFileController.SENDFILE_SUPPORTED, true))
+        .andExpect(status().isPartialContent()).andExpect(content().bytes(new byte[0]))
+        .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 8))
+        .andExpect(request().attribute(ImageFileController.SENDFILE_FILENAME,
+            fileStore.resolve(name).toAbsolutePath().toString()))
+        .andExpect(request().attribute(ImageFileController.SENDFILE_START, 2L))
+        .andExpect(request().attribute(ImageFileController.SENDFILE_END, 10L));
+  }
+
+  @Test
+  void getFile_whenLargeFile_shouldStreamWithoutBuffering() throws Exception {
+    long size = 128L * 1024 * 1024;
+    String name = Strings.repeat("0", 64) + ".jpg";
+    Files.copy(ImageFileStoreTest.generated(size), FileStoreConfig.DIRECTORY.resolve(name),
+        StandardCopyOption.REPLACE_EXISTING);
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/files/" + name);
+    Discarding response = new Discarding();
+    long allocated = ImageFileStoreTest.allocatedBytes();
+
+    controller.getFile(name, null, request, response);
+
+    assertTrue(ImageFileStoreTest.allocatedBytes() - allocated < 4 * 1024 * 1024);
+    assertEquals(size, response.written);
+    Files.delete(FileStoreConfig.DIRECTORY.resolve(name));
+  }
+
+  private String stored(final byte[] bytes) throws Exception {
+    return fileStore.store(new ByteArrayInputStream(bytes), MediaType.IMAGE_PNG);
+  }
+
+  @TestConfiguration
+  static class FileStoreConfig {
+    static final Path DIRECTORY = temporaryDirectory();
+
+    @Bean
+    ImageFileStore imageFileStore() {
+      return new ImageFileStore(DIRECTORY, 1024 * 1024);
+    }
+
+    @Bean
+    ImageVariants imageVariants(final ImageFileStore imageFileStore) {
+      return new ImageVariants(imageFileStore,
+          new DerivativeCache(DIRECTORY.resolve("variants"), 1024 * 1024), new int[] {160, 320},
+          1000 * 1000, 1, 1, 10000, new SimpleMeterRegistry());
+    }
+
+    private static Path temporaryDirectory() {
+      try {
+        return Files.createTempDirectory("images");
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static final class Discarding extends HttpServletResponseWrapper {
+    private long written;
+
+    Discarding() {
+      super(new MockHttpServletResponse());
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return new ServletOutputStream() {
+        @Override
+        public void write(final int b) {
+          written++;
+        }
+
+        @Override
+        public void write(final byte[] buffer, final int offset, final int length) {
+          written += length;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener listener) {}
+      };
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.paoperez.imageservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+
+public class ImageFileStoreTest {
+  private static final long LARGE_FILE = 128L * 1024 * 1024;
+
+  @TempDir
+  Path directory;
+
+  private ImageFileStore store;
+
+  @BeforeEach
+  void init() {
+    store = new ImageFileStore(directory, LARGE_FILE);
+  }
+
+  @Test
+  void store_shouldNameFileByDigestAndType() throws Exception {
+    byte[] bytes = {1, 2, 3};
+
+    String name = store.store(new ByteArrayInputStream(bytes), MediaType.IMAGE_PNG);
+
+    assertEquals(Hashing.sha256().hashBytes(bytes) + ".png", name);
+    assertEquals(MediaType.IMAGE_PNG, ImageFileStore.typeOf(name));
+    assertTrue(Arrays.equals(bytes, Files.readAllBytes(store.resolve(name))));
+  }
+
+  @Test
+  void store_whenSameBytesAgain_shouldKeepOneFile() throws Exception {
+    String first = store.store(new ByteArrayInputStream(new byte[] {1}), MediaType.IMAGE_JPEG);
+    String second = store.store(new ByteArrayInputStream(new byte[] {1}), MediaType.IMAGE_JPEG);
+
+    assertEquals(first, second);
+    assertEquals(1, files());
+  }
+
+  @Test
+  void store_whenTooLarge_shouldThrowAndKeepNothing() {
+    ImageFileStore small = new ImageFileStore(directory, 10);
+
+    assertThrows(ImageFileTooLargeException.class,
+        () -> small.store(new ByteArrayInputStream(new byte[11]), MediaType.IMAGE_GIF));
+    assertEquals(0, files());
+  }
+
+  @Test
+  void store_whenLargeFile_shouldStreamWithoutBuffering() throws Exception {
+    long allocated = allocatedBytes();
+
+    String name = store.store(generated(LARGE_FILE), MediaType.IMAGE_PNG);
+
+    assertTrue(allocatedBytes() - allocated < 4 * 1024 * 1024);
+    assertEquals(LARGE_FILE, Files.size(store.resolve(name)));
+  }
+
+  @Test
+  void resolve_whenNotTheNameOfAStoredFile_shouldReturnNull() throws IOException {
+    Files.write(directory.resolve("notes.txt"), new byte[] {1});
+
+    assertNull(store.resolve("notes.txt"));
+    assertNull(store.resolve("../" + directory.getFileName() + "/notes.txt"));
+    assertNull(store.resolve(Hashing.sha256().hashBytes(new byte[] {9}) + ".png"));
+  }
+
+  private long files() {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  static InputStream generated(final long size) {
+    return new InputStream() {
+      private long remaining = size;
+
+      @Override
+      public int read() {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) == -1 ? -1 : one[0];
+      }
+
+      @Override
+      public int read(final byte[] buffer, final int offset, final int length) {
+        if (remaining == 0) {
+          return -1;
+        }
+        int read = (int) Math.min(length, remaining);
+        Arrays.fill(buffer, offset, offset + read, (byte) remaining);
+        remaining -= read;
+        return read;
+      }
+    };
+  }
+}
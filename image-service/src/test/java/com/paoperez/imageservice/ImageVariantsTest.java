@@ -0,0 +1,101 @@
+package com.paoperez.imageservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+
+public class ImageVariantsTest {
+  @TempDir
+  Path directory;
+
+  private ImageFileStore store;
+  private MeterRegistry meterRegistry;
+  private ImageVariants variants;
+
+  @BeforeEach
+  void init() {
+    store = new ImageFileStore(directory, 1024 * 1024);
+    meterRegistry = new SimpleMeterRegistry();
+    variants = new ImageVariants(store,
+        new DerivativeCache(directory.resolve("variants"), 1024 * 1024),
+        new int[] {640, 160, 320}, 1000 * 1000, 2, 16, 10000, meterRegistry);
+  }
+
+  @Test
+  void variant_shouldScaleToNextWidthKeepingAspectRatio() throws Exception {
+    String name = store.store(png(800, 600), MediaType.IMAGE_PNG);
+
+    Path variant = variants.variant(name, 300);
+
+    assertEquals(name.replace(".png", "-w320.png"), variant.getFileName().toString());
+    BufferedImage image = ImageIO.read(variant.toFile());
+    assertEquals(320, image.getWidth());
+    assertEquals(240, image.getHeight());
+    assertEquals(variant, variants.variant(name, 320));
+    assertEquals(1, meterRegistry.get("images.variants.resize").timer().count());
+  }
+
+  @Test
+  void variant_whenRequestedTogether_shouldResizeOnce() throws Exception {
+    String name = store.store(png(800, 600), MediaType.IMAGE_PNG);
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Path>> requested = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      requested.add(clients.submit(() -> {
+        start.await();
+        return variants.variant(name, 160);
+      }));
+    }
+
+    start.countDown();
+
+    for (Future<Path> variant : requested) {
+      assertEquals(name.replace(".png", "-w160.png"), variant.get().getFileName().toString());
+    }
+    clients.shutdown();
+    assertEquals(1, meterRegistry.get("images.variants.resize").timer().count());
+  }
+
+  @Test
+  void variant_whenNarrowerOrNotResizable_shouldReturnImageItself() throws Exception {
+    String png = store.store(png(100, 50), MediaType.IMAGE_PNG);
+    String webp = store.store(png(800, 600), MediaType.valueOf("image/webp"));
+
+    assertEquals(store.resolve(png), variants.variant(png, 160));
+    assertEquals(store.resolve(webp), variants.variant(webp, 160));
+    assertNull(variants.variant("missing.png", 160));
+  }
+
+  static InputStream png(final int width, final int height) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.ORANGE);
+    graphics.fillOval(0, 0, width, height);
+    graphics.dispose();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ImageIO.write(image, "png", bytes);
+    return new ByteArrayInputStream(bytes.toByteArray());
+  }
+}
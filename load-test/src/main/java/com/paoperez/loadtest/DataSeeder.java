@@ -0,0 +1,129 @@
+package com.paoperez.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Creates images, avatars, categories and contents through the APIs of the entity services, so
+ * that the data passes the same validation as in production. The data is the same on every run.
+ */
+final class DataSeeder {
+  private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+  private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur",
+      "adipiscing", "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et",
+      "dolore", "magna", "aliqua", "enim", "ad", "minim", "veniam", "quis", "nostrud"};
+
+  private final RestTemplate restTemplate;
+  private final Stack stack;
+  private final LoadTestProperties.Seed seed;
+  private final Random random = new Random(0);
+
+  DataSeeder(final RestTemplate restTemplate, final Stack stack,
+      final LoadTestProperties.Seed seed) {
+    this.restTemplate = restTemplate;
+    this.stack = stack;
+    this.seed = seed;
+  }
+
+  /**
+   * Seeds the data and returns the ids of the contents.
+   */
+  List<String> seed() throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(seed.getThreads());
+    try {
+      List<Map<String, Object>> images = new ArrayList<>();
+      for (int i = 0; i < seed.getImages(); i++) {
+        Map<String, Object> image = new LinkedHashMap<>();
+        image.put("name", "image-" + i);
+        image.put("url", "https://images.contentually.dev/" + i + ".jpg");
+        image.put("alt", words(8));
+        image.put("width", 1280);
+        image.put("height", 720);
+        images.add(image);
+      }
+      List<String> imageIds = create(executor, Service.IMAGE, "/images", images);
+
+      List<Map<String, Object>> avatars = new ArrayList<>();
+      for (int i = 0; i < seed.getAvatars(); i++) {
+        Map<String, Object> avatar = new LinkedHashMap<>();
+        avatar.put("userName", "user-" + i);
+        avatar.put("imageId", any(imageIds));
+        avatars.add(avatar);
+      }
+      List<String> avatarIds = create(executor, Service.AVATAR, "/avatars", avatars);
+
+      List<Map<String, Object>> categories = new ArrayList<>();
+      for (int i = 0; i < seed.getCategories(); i++) {
+        Map<String, Object> category = new LinkedHashMap<>();
+        category.put("name", "category-" + i);
+        categories.add(category);
+      }
+      List<String> categoryIds =
+          create(executor, Service.CATEGORY, "/categories", categories);
+
+      List<Map<String, Object>> contents = new ArrayList<>();
+      for (int i = 0; i < seed.getContents(); i++) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("title", words(6));
+        content.put("body", body());
+        content.put("rank", i + 1);
+        content.put("categoryId", any(categoryIds));
+        content.put("avatarId", any(avatarIds));
+        content.put("imageId", any(imageIds));
+        contents.add(content);
+      }
+      return create(executor, Service.CONTENT, "/contents", contents);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<String> create(final ExecutorService executor, final Service service,
+      final String path, final List<Map<String, Object>> entities)
+      throws InterruptedException, ExecutionException {
+    String url = stack.url(service) + path;
+    List<Callable<String>> requests = new ArrayList<>();
+    entities.forEach(entity -> requests.add(() -> restTemplate.postForObject(url, entity,
+        String.class)));
+
+    List<String> ids = new ArrayList<>();
+    for (Future<String> id : executor.invokeAll(requests)) {
+      ids.add(id.get());
+    }
+    logger.info("Created {} entities in {}", ids.size(), service.id());
+    return ids;
+  }
+
+  private String any(final List<String> ids) {
+    return ids.get(random.nextInt(ids.size()));
+  }
+
+  private String words(final int count) {
+    StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+    for (int i = 1; i < count; i++) {
+      words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return words.toString();
+  }
+
+  // Between half and one and a half times the average length
+  private String body() {
+    int length = seed.getBodyLength() / 2 + random.nextInt(seed.getBodyLength() + 1);
+    StringBuilder body = new StringBuilder(length + 16);
+    while (body.length() < length) {
+      body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+    }
+    return body.toString().trim();
+  }
+}
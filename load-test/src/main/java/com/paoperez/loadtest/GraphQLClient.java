@@ -0,0 +1,32 @@
+package com.paoperez.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+final class GraphQLClient {
+  private final RestTemplate restTemplate;
+  private final String url;
+
+  GraphQLClient(final RestTemplate restTemplate, final String url) {
+    this.restTemplate = restTemplate;
+    this.url = url;
+  }
+
+  /**
+   * Sends a query and tells whether it was answered with data and without errors.
+   */
+  boolean execute(final String query, final Map<String, Object> variables) {
+    Map<String, Object> request = new HashMap<>();
+    request.put("query", query);
+    request.put("variables", variables);
+    try {
+      JsonNode response = restTemplate.postForObject(url, request, JsonNode.class);
+      return response != null && response.hasNonNull("data") && !response.hasNonNull("errors");
+    } catch (RestClientException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.paoperez.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Sends a weighted mix of queries at a fixed rate, whether or not earlier requests were answered.
+ * Latencies count from when a request was due rather than when it was sent, so requests queued
+ * behind slow ones are not left out of the percentiles.
+ */
+final class LoadDriver {
+  private final GraphQLClient client;
+  private final List<String> names = new ArrayList<>();
+  private final List<String> queries = new ArrayList<>();
+  private final int[] cumulativeWeights;
+  private final List<String> contentIds;
+  private final double rate;
+  private final int maxConcurrency;
+  // Same sequence of queries and ids on every run
+  private final Random random = new Random(0);
+
+  LoadDriver(final GraphQLClient client, final Map<String, LoadTestProperties.Query> queries,
+      final List<String> contentIds, final double rate, final int maxConcurrency) {
+    if (queries.isEmpty()) {
+      throw new IllegalArgumentException("No queries to send.");
+    }
+    this.client = client;
+    this.cumulativeWeights = new int[queries.size()];
+    int total = 0;
+    for (Map.Entry<String, LoadTestProperties.Query> entry : queries.entrySet()) {
+      total += entry.getValue().getWeight();
+      cumulativeWeights[names.size()] = total;
+      names.add(entry.getKey());
+      this.queries.add(entry.getValue().getQuery());
+    }
+    this.contentIds = contentIds;
+    this.rate = rate;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  LoadReport run(final long durationMillis) throws InterruptedException {
+    Map<String, QueryStats> stats = new LinkedHashMap<>();
+    names.forEach(name -> stats.put(name, new QueryStats()));
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-driver-");
+    threadFactory.setDaemon(true);
+    ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency, threadFactory);
+
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    for (long due = start; due < end; due += interval) {
+      LockSupport.parkNanos(due - System.nanoTime());
+      int index = next();
+      String query = queries.get(index);
+      QueryStats queryStats = stats.get(names.get(index));
+      Map<String, Object> variables = variables(query);
+      long dueAt = due;
+      executor.execute(() -> {
+        boolean success = client.execute(query, variables);
+        queryStats.record(System.nanoTime() - dueAt, success);
+      });
+    }
+    executor.shutdown();
+    if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+      executor.shutdownNow();
+    }
+
+    return new LoadReport(stats, System.nanoTime() - start);
+  }
+
+  private int next() {
+    int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    int index = 0;
+    while (value >= cumulativeWeights[index]) {
+      index++;
+    }
+    return index;
+  }
+
+  private Map<String, Object> variables(final String query) {
+    if (!query.contains("$id") || contentIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return Collections.singletonMap("id", contentIds.get(random.nextInt(contentIds.size())));
+  }
+}
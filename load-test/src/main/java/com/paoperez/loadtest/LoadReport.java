@@ -0,0 +1,63 @@
+package com.paoperez.loadtest;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+
+final class LoadReport {
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  private final Map<String, QueryStats> stats;
+  private final long elapsedNanos;
+
+  LoadReport(final Map<String, QueryStats> stats, final long elapsedNanos) {
+    this.stats = stats;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  Map<String, QueryStats> stats() {
+    return stats;
+  }
+
+  void print(final PrintStream out) {
+    double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    out.printf("%-20s %9s %7s %8s %9s %9s %9s %9s %9s%n", "query", "requests", "errors",
+        "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    Histogram all = new Histogram(3);
+    long allErrors = 0;
+    for (Map.Entry<String, QueryStats> entry : stats.entrySet()) {
+      Histogram latencies = entry.getValue().latencies();
+      print(out, entry.getKey(), latencies, entry.getValue().errors(), seconds);
+      all.add(latencies);
+      allErrors += entry.getValue().errors();
+    }
+    print(out, "all", all, allErrors, seconds);
+  }
+
+  private static void print(final PrintStream out, final String query,
+      final Histogram latencies, final long errors, final double seconds) {
+    out.printf("%-20s %9d %7d %8.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", query,
+        latencies.getTotalCount(), errors, latencies.getTotalCount() / seconds,
+        latencies.getValueAtPercentile(50) / MICROS_PER_MILLI,
+        latencies.getValueAtPercentile(90) / MICROS_PER_MILLI,
+        latencies.getValueAtPercentile(99) / MICROS_PER_MILLI,
+        latencies.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+        latencies.getMaxValue() / MICROS_PER_MILLI);
+  }
+
+  /**
+   * Writes the percentile distribution of every query in milliseconds to {@code <query>.hgrm},
+   * which HdrHistogram's plotter reads, to compare runs.
+   */
+  void write(final Path directory) throws FileNotFoundException {
+    for (Map.Entry<String, QueryStats> entry : stats.entrySet()) {
+      try (PrintStream out =
+          new PrintStream(directory.resolve(entry.getKey() + ".hgrm").toFile())) {
+        entry.getValue().latencies().outputPercentileDistribution(out, MICROS_PER_MILLI);
+      }
+    }
+  }
+}
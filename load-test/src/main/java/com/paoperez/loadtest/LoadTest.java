@@ -0,0 +1,68 @@
+package com.paoperez.loadtest;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Starts the stack, seeds it, warms it up and reports the latencies of the measured load, then
+ * of content changes sent to subscribers.
+ */
+final class LoadTest implements CommandLineRunner {
+  private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+  private static final String ROUTING_QUERY = "{ contents { data { id } } }";
+
+  private final LoadTestProperties properties;
+  private final RestTemplate restTemplate;
+
+  LoadTest(final LoadTestProperties properties, final RestTemplate restTemplate) {
+    this.properties = properties;
+    this.restTemplate = restTemplate;
+  }
+
+  @Override
+  public void run(final String... args) throws Exception {
+    try (Stack stack = new Stack(properties, restTemplate)) {
+      stack.start();
+      List<String> contentIds =
+          new DataSeeder(restTemplate, stack, properties.getSeed()).seed();
+      GraphQLClient client =
+          new GraphQLClient(restTemplate, stack.url(Service.GRAPHQL) + "/graphql");
+      awaitRouting(client);
+
+      LoadDriver driver = new LoadDriver(client, properties.getQueries(), contentIds,
+          properties.getRate(), properties.getMaxConcurrency());
+      logger.info("Warming up for {} ms", properties.getWarmup());
+      driver.run(properties.getWarmup());
+      logger.info("Measuring {} requests per second for {} ms", properties.getRate(),
+          properties.getDuration());
+      LoadReport report = driver.run(properties.getDuration());
+
+      report.print(System.out);
+      report.write(stack.workDir());
+
+      if (properties.getSubscriptions().getActive() > 0) {
+        LoadReport subscriptions = new SubscriptionLoad(restTemplate,
+            stack.url(Service.GRAPHQL), stack.managementUrl(Service.GRAPHQL), contentIds,
+            properties.getSubscriptions()).run();
+        subscriptions.print(System.out);
+        subscriptions.write(stack.workDir());
+      }
+    }
+  }
+
+  // The graphql service knows the entity services once its registry fetch returned them
+  private void awaitRouting(final GraphQLClient client) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + properties.getStartupTimeout();
+    while (!client.execute(ROUTING_QUERY, null)) {
+      if (System.currentTimeMillis() > deadline) {
+        throw new IllegalStateException(String.format(
+            "graphql-service could not reach the entity services within %d ms.",
+            properties.getStartupTimeout()));
+      }
+      Thread.sleep(1000);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.paoperez.loadtest;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(LoadTestProperties.class)
+class LoadTestConfig {
+  @Bean
+  RestTemplate restTemplate(final LoadTestProperties properties) {
+    // Keep a connection per request in flight alive instead of the default 5
+    System.setProperty("http.maxConnections", String.valueOf(properties.getMaxConcurrency()));
+    SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+    requestFactory.setConnectTimeout(properties.getTimeout());
+    requestFactory.setReadTimeout(properties.getTimeout());
+    return new RestTemplate(requestFactory);
+  }
+
+  @Bean
+  LoadTest loadTest(final LoadTestProperties properties, final RestTemplate restTemplate) {
+    return new LoadTest(properties, restTemplate);
+  }
+}
@@ -0,0 +1,71 @@
+package com.paoperez.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("load-test")
+class LoadTestProperties {
+  /** Directory containing the service modules, whose jars are built beforehand. */
+  private String servicesDir = "..";
+  /** Directory for the logs, registry snapshots and histograms of a run, emptied on start. */
+  private String workDir = "target/load-test";
+  /** Added to the default port of every service and database. */
+  private int portOffset = 0;
+  /** Options of the JVM of every service. */
+  private String jvmOptions = "-Xmx512m";
+  /** Milliseconds to wait for a service to start. */
+  private long startupTimeout = 180000;
+  /** Requests per second sent regardless of how fast they are answered. */
+  private double rate = 50;
+  /** Maximum number of requests in flight; requests due beyond that wait and count as late. */
+  private int maxConcurrency = 200;
+  /** Connect and read timeout of a request in milliseconds. */
+  private int timeout = 10000;
+  /** Milliseconds of load sent before the measurement starts. */
+  private long warmup = 30000;
+  /** Milliseconds of load measured. */
+  private long duration = 120000;
+  private Seed seed = new Seed();
+  /** Queries sent, by name. */
+  private Map<String, Query> queries = new LinkedHashMap<>();
+  private Subscriptions subscriptions = new Subscriptions();
+
+  @Data
+  static class Seed {
+    private int images = 500;
+    private int avatars = 200;
+    private int categories = 25;
+    private int contents = 1000;
+    /** Average number of characters of a content body. */
+    private int bodyLength = 4000;
+    /** Number of concurrent requests creating the data. */
+    private int threads = 16;
+  }
+
+  @Data
+  static class Subscriptions {
+    /** Clients subscribed to the changes of contents that do not change. */
+    private int idle = 10000;
+    /** Clients subscribed to the changes of all contents; 0 skips the subscriptions. */
+    private int active = 1000;
+    /** Subscription of the active clients, which must select the id of the changed content. */
+    private String query = "subscription { contentChanged { id type content { title } } }";
+    /** Changes reported per second, each for another seeded content as long as there are any. */
+    private double rate = 10;
+    /** Milliseconds of changes measured. */
+    private long duration = 60000;
+    /** Number of clients connecting at the same time. */
+    private int connectThreads = 16;
+  }
+
+  @Data
+  static class Query {
+    /** GraphQL query; one declaring an $id variable gets the id of a random seeded content. */
+    private String query;
+    /** Share of the requests relative to the weights of the other queries. */
+    private int weight = 1;
+  }
+}
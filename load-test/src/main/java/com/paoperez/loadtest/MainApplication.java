@@ -0,0 +1,20 @@
+package com.paoperez.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration;
+
+// The harness starts its own Mongo instances, one per entity service
+@SpringBootApplication(proxyBeanMethods = false,
+    exclude = {MongoAutoConfiguration.class, EmbeddedMongoAutoConfiguration.class})
+public class MainApplication {
+  private static final Logger logger = LoggerFactory.getLogger(MainApplication.class);
+
+  public static void main(String[] args) {
+    logger.info("Starting load test...");
+    SpringApplication.run(MainApplication.class, args);
+  }
+}
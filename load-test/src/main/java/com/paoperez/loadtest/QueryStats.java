@@ -0,0 +1,30 @@
+package com.paoperez.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies in microseconds of the successful requests of one query, and its failed requests.
+ */
+final class QueryStats {
+  private final Histogram latencies = new ConcurrentHistogram(3);
+  private final LongAdder errors = new LongAdder();
+
+  void record(final long latencyNanos, final boolean success) {
+    if (success) {
+      latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    } else {
+      errors.increment();
+    }
+  }
+
+  Histogram latencies() {
+    return latencies;
+  }
+
+  long errors() {
+    return errors.sum();
+  }
+}
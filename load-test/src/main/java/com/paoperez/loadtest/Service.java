@@ -0,0 +1,44 @@
+package com.paoperez.loadtest;
+
+/**
+ * The services of the stack with the ports they use in docker-compose, and a management port each
+ * since they all run on the one host.
+ */
+enum Service {
+  DISCOVERY(8761, 0, 8095),
+  IMAGE(8082, 27018, 8092),
+  AVATAR(8083, 27019, 8093),
+  CATEGORY(8084, 27020, 8094),
+  CONTENT(8081, 27021, 8091),
+  GRAPHQL(8080, 0, 8090);
+
+  private final int port;
+  private final int databasePort;
+  private final int managementPort;
+
+  Service(final int port, final int databasePort, final int managementPort) {
+    this.port = port;
+    this.databasePort = databasePort;
+    this.managementPort = managementPort;
+  }
+
+  String id() {
+    return name().toLowerCase() + "-service";
+  }
+
+  int port() {
+    return port;
+  }
+
+  int managementPort() {
+    return managementPort;
+  }
+
+  int databasePort() {
+    return databasePort;
+  }
+
+  boolean hasDatabase() {
+    return databasePort != 0;
+  }
+}
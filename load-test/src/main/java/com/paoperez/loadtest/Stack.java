@@ -0,0 +1,212 @@
+package com.paoperez.loadtest;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Runs every service as a local process from its built jar, each entity service on its own
+ * embedded Mongo instance, and stops them all again on close.
+ */
+final class Stack implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(Stack.class);
+  private static final String MONGO_USERNAME = "load-test";
+  private static final String MONGO_PASSWORD = "load-test";
+  private static final String DATABASE = "contentually";
+
+  private final LoadTestProperties properties;
+  private final RestTemplate restTemplate;
+  private final Path workDir;
+  private final List<MongodExecutable> databases = new ArrayList<>();
+  private final Map<Service, Process> processes = new EnumMap<>(Service.class);
+
+  Stack(final LoadTestProperties properties, final RestTemplate restTemplate) {
+    this.properties = properties;
+    this.restTemplate = restTemplate;
+    this.workDir = Paths.get(properties.getWorkDir()).toAbsolutePath();
+  }
+
+  void start() throws IOException, InterruptedException {
+    clean();
+    for (Service service : Service.values()) {
+      if (service.hasDatabase()) {
+        startDatabase(service);
+      }
+    }
+
+    start(Service.DISCOVERY);
+    await(Service.DISCOVERY, "/eureka/apps");
+    List<Service> entityServices =
+        Arrays.asList(Service.IMAGE, Service.AVATAR, Service.CATEGORY, Service.CONTENT);
+    for (Service service : entityServices) {
+      start(service);
+    }
+    for (Service service : entityServices) {
+      await(service, "/health");
+    }
+    start(Service.GRAPHQL);
+    await(Service.GRAPHQL, "/health");
+  }
+
+  String url(final Service service) {
+    return "http://localhost:" + port(service);
+  }
+
+  String managementUrl(final Service service) {
+    return "http://localhost:" + (service.managementPort() + properties.getPortOffset());
+  }
+
+  Path workDir() {
+    return workDir;
+  }
+
+  private int port(final Service service) {
+    return service.port() + properties.getPortOffset();
+  }
+
+  private void clean() throws IOException {
+    if (Files.exists(workDir)) {
+      try (Stream<Path> paths = Files.walk(workDir)) {
+        for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+          Files.delete(path);
+        }
+      }
+    }
+    Files.createDirectories(workDir);
+  }
+
+  private void startDatabase(final Service service) throws IOException {
+    int port = service.databasePort() + properties.getPortOffset();
+    MongodExecutable database = MongodStarter.getDefaultInstance().prepare(
+        new MongodConfigBuilder().version(Version.Main.V4_0)
+            .net(new Net("localhost", port, Network.localhostIsIPv6())).build());
+    databases.add(database);
+    database.start();
+
+    // Same user and indexes as the init script of the database images
+    try (MongoClient client = MongoClients.create("mongodb://localhost:" + port)) {
+      client.getDatabase("admin").runCommand(new Document("createUser", MONGO_USERNAME)
+          .append("pwd", MONGO_PASSWORD)
+          .append("roles", Collections.singletonList(
+              new Document("role", "readWrite").append("db", DATABASE))));
+      if (service == Service.CONTENT) {
+        MongoCollection<Document> contents =
+            client.getDatabase(DATABASE).getCollection("Content");
+        contents.createIndex(Indexes.ascending("rank"), new IndexOptions().unique(true));
+        contents.createIndex(Indexes.ascending("categoryId", "rank"));
+        contents.createIndex(Indexes.ascending("avatarId", "rank"));
+      }
+    }
+    logger.info("Started database of {} on port {}", service.id(), port);
+  }
+
+  private void start(final Service service) throws IOException {
+    String name = service.name().toLowerCase();
+    Path jar = Paths.get(properties.getServicesDir(), service.id(), "target",
+        service.id() + "-0.0.1-SNAPSHOT.jar").toAbsolutePath();
+    if (!Files.exists(jar)) {
+      throw new IllegalStateException(String.format(
+          "%s not found, build it first with ./mvnw package -DskipTests.", jar));
+    }
+
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    Arrays.stream(properties.getJvmOptions().split("\\s+"))
+        .filter(option -> !option.isEmpty())
+        .forEach(command::add);
+    command.add("-jar");
+    command.add(jar.toString());
+    command.add("--server.port=" + port(service));
+    command.add("--logging.file.name=" + workDir.resolve(name + ".log"));
+    command.add("--eureka.instance.hostname=localhost");
+    command.add("--management.server.port="
+        + (service.managementPort() + properties.getPortOffset()));
+    switch (service) {
+      case DISCOVERY:
+        command.add("--discovery.registry-snapshot=" + workDir.resolve("discovery-registry.json"));
+        break;
+      case GRAPHQL:
+        command.add("--loadbalancer.registry-snapshot=" + workDir.resolve("graphql-registry.json"));
+        command.add("--management.endpoint.contentchanges.enabled=true");
+        break;
+      default:
+        command.add("--spring.data.mongodb.host=localhost");
+        command.add("--spring.data.mongodb.port="
+            + (service.databasePort() + properties.getPortOffset()));
+        command.add("--discovery.shutdown-delay=0");
+    }
+
+    ProcessBuilder builder = new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(workDir.resolve(name + ".out").toFile());
+    builder.environment().put("EUREKA_SERVER", url(Service.DISCOVERY) + "/eureka");
+    builder.environment().put("MONGO_USERNAME", MONGO_USERNAME);
+    builder.environment().put("MONGO_PASSWORD", MONGO_PASSWORD);
+    processes.put(service, builder.start());
+    logger.info("Started {} on port {}", service.id(), port(service));
+  }
+
+  private void await(final Service service, final String path) throws InterruptedException {
+    Process process = processes.get(service);
+    long deadline = System.currentTimeMillis() + properties.getStartupTimeout();
+    while (System.currentTimeMillis() < deadline) {
+      if (!process.isAlive()) {
+        throw new IllegalStateException(String.format("%s exited, see %s.", service.id(),
+            workDir.resolve(service.name().toLowerCase() + ".out")));
+      }
+      try {
+        restTemplate.getForEntity(url(service) + path, String.class);
+        logger.info("{} is up", service.id());
+        return;
+      } catch (RestClientException e) {
+        TimeUnit.SECONDS.sleep(1);
+      }
+    }
+    throw new IllegalStateException(String.format("%s did not start within %d ms.",
+        service.id(), properties.getStartupTimeout()));
+  }
+
+  @Override
+  public void close() {
+    List<Process> started = new ArrayList<>(processes.values());
+    Collections.reverse(started);
+    for (Process process : started) {
+      process.destroy();
+      try {
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+          process.destroyForcibly();
+        }
+      } catch (InterruptedException e) {
+        process.destroyForcibly();
+        Thread.currentThread().interrupt();
+      }
+    }
+    databases.forEach(MongodExecutable::stop);
+  }
+}
@@ -0,0 +1,202 @@
+package com.paoperez.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.ContainerProvider;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import javax.websocket.WebSocketContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Connects idle clients, subscribed to contents that do not change, and active ones, subscribed to
+ * all changes, then reports changes to graphql-service at a fixed rate the way content-service
+ * does. Latencies count from when a change was reported until an active client received it; a
+ * change some active client did not receive counts as an error.
+ */
+final class SubscriptionLoad {
+  private static final Logger logger = LoggerFactory.getLogger(SubscriptionLoad.class);
+  private static final String NAME = "content-changed";
+  private static final String IDLE_QUERY =
+      "subscription Idle($id: ID) { contentChanged(id: $id) { id } }";
+  private static final long SETTLE_MILLIS = 5000;
+
+  private final RestTemplate restTemplate;
+  private final String graphqlUrl;
+  private final String managementUrl;
+  private final List<String> contentIds;
+  private final LoadTestProperties.Subscriptions properties;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+  private final Map<String, Long> reported = new ConcurrentHashMap<>();
+  private final QueryStats stats = new QueryStats();
+  private final LongAdder received = new LongAdder();
+
+  SubscriptionLoad(final RestTemplate restTemplate, final String graphqlUrl,
+      final String managementUrl, final List<String> contentIds,
+      final LoadTestProperties.Subscriptions properties) {
+    this.restTemplate = restTemplate;
+    this.graphqlUrl = graphqlUrl;
+    this.managementUrl = managementUrl;
+    this.contentIds = contentIds;
+    this.properties = properties;
+  }
+
+  LoadReport run() throws InterruptedException, ExecutionException, IOException {
+    URI uri = URI.create(graphqlUrl.replaceFirst("^http", "ws") + "/subscriptions");
+    List<Session> sessions = new ArrayList<>();
+    try {
+      sessions.addAll(connect(uri, properties.getIdle(), false));
+      sessions.addAll(connect(uri, properties.getActive(), true));
+      logger.info("Connected {} idle and {} active subscribers", properties.getIdle(),
+          properties.getActive());
+      // Starts are not acknowledged
+      TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+
+      logger.info("Reporting {} changes per second for {} ms", properties.getRate(),
+          properties.getDuration());
+      long start = System.nanoTime();
+      long changes = report();
+      TimeUnit.MILLISECONDS.sleep(SETTLE_MILLIS);
+      long missed = changes * properties.getActive() - received.sum();
+      for (long i = 0; i < missed; i++) {
+        stats.record(0, false);
+      }
+      long open = sessions.stream().filter(Session::isOpen).count();
+      logger.info("{} of {} subscribers still connected", open, sessions.size());
+      return new LoadReport(Collections.singletonMap(NAME, stats), System.nanoTime() - start);
+    } finally {
+      for (Session session : sessions) {
+        try {
+          session.close();
+        } catch (IOException e) {
+          logger.debug("Could not close {}", session.getId(), e);
+        }
+      }
+    }
+  }
+
+  private List<Session> connect(final URI uri, final int count, final boolean active)
+      throws InterruptedException, ExecutionException, IOException {
+    ClientEndpointConfig config = ClientEndpointConfig.Builder.create()
+        .preferredSubprotocols(Collections.singletonList("graphql-ws")).build();
+    List<Callable<Session>> connects = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Map<String, Object> payload = new LinkedHashMap<>();
+      if (active) {
+        payload.put("query", properties.getQuery());
+      } else {
+        payload.put("query", IDLE_QUERY);
+        payload.put("variables", Collections.singletonMap("id", "idle-" + i));
+      }
+      // Clients number their operations alike
+      Map<String, Object> start = new LinkedHashMap<>();
+      start.put("type", "start");
+      start.put("id", "1");
+      start.put("payload", payload);
+      String startMessage = objectMapper.writeValueAsString(start);
+      connects.add(() -> {
+        Session session =
+            container.connectToServer(active ? new Active() : new Idle(), config, uri);
+        session.getBasicRemote().sendText("{\"type\":\"connection_init\"}");
+        session.getBasicRemote().sendText(startMessage);
+        return session;
+      });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(properties.getConnectThreads());
+    try {
+      List<Session> sessions = new ArrayList<>();
+      for (Future<Session> session : executor.invokeAll(connects)) {
+        sessions.add(session.get());
+      }
+      return sessions;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private long report() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-reporter-");
+    threadFactory.setDaemon(true);
+    ExecutorService executor = Executors.newSingleThreadExecutor(threadFactory);
+    String url = managementUrl + "/actuator/contentchanges";
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / properties.getRate());
+    long start = System.nanoTime();
+    long end = start + TimeUnit.MILLISECONDS.toNanos(properties.getDuration());
+    long changes = 0;
+    for (long due = start; due < end; due += interval) {
+      LockSupport.parkNanos(due - System.nanoTime());
+      String id = contentIds.get((int) (changes++ % contentIds.size()));
+      long dueAt = due;
+      executor.execute(() -> {
+        reported.put(id, dueAt);
+        Map<String, String> change = new LinkedHashMap<>();
+        change.put("id", id);
+        change.put("type", "SAVED");
+        try {
+          restTemplate.postForLocation(url, change);
+        } catch (RestClientException e) {
+          logger.debug("Could not report the change of {}", id, e);
+        }
+      });
+    }
+    executor.shutdown();
+    return changes;
+  }
+
+  private static final class Idle extends Endpoint {
+    @Override
+    public void onOpen(final Session session, final EndpointConfig config) {
+      session.addMessageHandler(String.class, message -> {});
+    }
+  }
+
+  private final class Active extends Endpoint {
+    @Override
+    public void onOpen(final Session session, final EndpointConfig config) {
+      session.addMessageHandler(String.class, SubscriptionLoad.this::received);
+    }
+  }
+
+  private void received(final String message) {
+    long now = System.nanoTime();
+    try {
+      JsonNode node = objectMapper.readTree(message);
+      if (!"data".equals(node.path("type").asText())) {
+        return;
+      }
+      Long reportedAt =
+          reported.get(node.path("payload").path("data").path("contentChanged").path("id")
+              .asText());
+      if (reportedAt != null) {
+        received.increment();
+        stats.record(now - reportedAt, true);
+      }
+    } catch (IOException e) {
+      logger.debug("Could not read {}", message, e);
+    }
+  }
+}
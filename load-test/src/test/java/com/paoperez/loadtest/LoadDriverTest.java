@@ -0,0 +1,88 @@
+package com.paoperez.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+public class LoadDriverTest {
+  private static final double RATE = 200;
+
+  private final ConcurrentLinkedQueue<String> requests = new ConcurrentLinkedQueue<>();
+  private HttpServer stub;
+  private GraphQLClient client;
+
+  @BeforeEach
+  void init() throws IOException {
+    stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    stub.createContext("/graphql", exchange -> {
+      String request = new Scanner(exchange.getRequestBody(), "UTF-8").useDelimiter("\\A").next();
+      requests.add(request);
+      byte[] response = (request.contains("broken") ? "{\"errors\":[{\"message\":\"broken\"}]}"
+          : "{\"data\":{}}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream body = exchange.getResponseBody()) {
+        body.write(response);
+      }
+    });
+    stub.start();
+    client = new GraphQLClient(new RestTemplate(),
+        "http://localhost:" + stub.getAddress().getPort() + "/graphql");
+  }
+
+  @AfterEach
+  void stop() {
+    stub.stop(0);
+  }
+
+  @Test
+  void run_whenQueriesWeighted_shouldSendMixAtFixedRate() throws InterruptedException {
+    Map<String, LoadTestProperties.Query> queries = new LinkedHashMap<>();
+    queries.put("frequent", query("{ contents { data { id } } }", 3));
+    queries.put("rare", query("{ contents { data { title } } }", 1));
+
+    LoadReport report = new LoadDriver(client, queries, Arrays.asList("A"), RATE, 10).run(1000);
+
+    long frequent = report.stats().get("frequent").latencies().getTotalCount();
+    long rare = report.stats().get("rare").latencies().getTotalCount();
+    assertEquals(RATE, frequent + rare, 1);
+    assertTrue(frequent > 2 * rare, "frequent " + frequent + ", rare " + rare);
+  }
+
+  @Test
+  void run_whenQueryFails_shouldCountErrors() throws InterruptedException {
+    Map<String, LoadTestProperties.Query> queries = new LinkedHashMap<>();
+    queries.put("broken", query("query Broken($id: ID) { broken(id: $id) { id } }", 1));
+    List<String> contentIds = Arrays.asList("A", "B");
+
+    LoadReport report = new LoadDriver(client, queries, contentIds, RATE, 10).run(100);
+
+    QueryStats stats = report.stats().get("broken");
+    assertEquals(0, stats.latencies().getTotalCount());
+    assertEquals(RATE / 10, stats.errors(), 1);
+    assertTrue(requests.stream().allMatch(request -> request.contains("\"id\":\"A\"")
+        || request.contains("\"id\":\"B\"")));
+  }
+
+  private static LoadTestProperties.Query query(final String text, final int weight) {
+    LoadTestProperties.Query query = new LoadTestProperties.Query();
+    query.setQuery(text);
+    query.setWeight(weight);
+    return query;
+  }
+}
@@ -7,6 +7,7 @@ DEPLOYMENT_ENV=
 TARGET_SPECIFIED=false
 APP_DIR=$PWD
 DEBUG_ENABLED=false
+DOCKERFILE=Dockerfile
 
 usage() {
 cat << EOF
@@ -17,6 +18,7 @@ cat << EOF
   Options:
     -t set target environment [ required ]
     -d enable debug mode
+    -c build service images with an application class-data sharing archive
 
   Example: $0 -t development -d
 EOF
@@ -31,7 +33,7 @@ setup_service() {
   fi
 
   # Build service container image
-  cd $service-service/ && DOCKER_BUILDKIT=$buildkit_enabled docker build -t $service-service:0.0.1 .
+  cd $service-service/ && DOCKER_BUILDKIT=$buildkit_enabled docker build -f $DOCKERFILE -t $service-service:0.0.1 .
   if [[ $service != "discovery" ]] && [[ $service != "graphql" ]]; then
     # Build db container image
     cd db/ && docker build -t $service-db:0.0.1 .
@@ -39,7 +41,7 @@ setup_service() {
   cd $APP_DIR
 }
 
-while getopts "t:d" opt; do
+while getopts "t:dc" opt; do
   case $opt in
     t)
       if [[ ! $OPTARG =~ ^[a-zA-Z]+$ ]]; then
@@ -58,6 +60,10 @@ while getopts "t:d" opt; do
       echo "Debug enabled, disabling Buildkit.."
       DEBUG_ENABLED=true
       ;;
+    c)
+      echo "Class-data sharing enabled, building service images from Dockerfile.cds.."
+      DOCKERFILE=Dockerfile.cds
+      ;;
     ?)
       usage
       exit
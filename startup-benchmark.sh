@@ -0,0 +1,96 @@
+#!/bin/bash
+
+# Exit as soon as an error is encountered
+set -e
+
+RUNS=3
+SERVICES="discovery graphql avatar category content image"
+VARIANTS="baseline cds native"
+
+usage() {
+cat << EOF
+  Usage: $0 [-r runs] [-s service] [-v variant]
+
+  Compare startup time and resident memory of the service images built from Dockerfile (baseline),
+  Dockerfile.cds (application class-data sharing) and Dockerfile.native (GraalVM native image).
+  Variants a service has no Dockerfile for are skipped.
+
+  Options:
+    -r set number of starts per image [ default: $RUNS ]
+    -s only benchmark the given service
+    -v only benchmark the given variant: baseline, cds or native
+
+  Example: $0 -r 5 -s content -v native
+EOF
+}
+
+# Starts a container and prints the seconds it took to start and the RSS of its largest process in
+# MiB, which is the JVM or the native executable
+measure() {
+  local image=$1
+  local container
+  local started
+  local rss
+
+  container=$(docker run -d --rm $image --logging.file.name=/tmp/benchmark.log \
+    --eureka.client.service-url.defaultZone=http://localhost:8761/eureka)
+  for i in $(seq 300); do
+    started=$(docker logs $container 2>&1 | grep -o "JVM running for [0-9.]*" | grep -o "[0-9.]*$" || true)
+    if [[ $started != "" ]]; then
+      break
+    fi
+    sleep 1
+  done
+  rss=$(docker top $container -eo rss | awk 'NR > 1 && $1 > max { max = $1 } END { print int(max / 1024) }')
+  docker stop $container > /dev/null
+
+  echo "$started $rss"
+}
+
+benchmark() {
+  local service=$1
+
+  for variant in $VARIANTS; do
+    local dockerfile=Dockerfile
+    if [[ $variant != "baseline" ]]; then
+      dockerfile=Dockerfile.$variant
+    fi
+    if [[ ! -f $service-service/$dockerfile ]]; then
+      continue
+    fi
+    (cd $service-service/ && docker build -q -f $dockerfile -t $service-service:$variant . > /dev/null)
+
+    local total_seconds=0
+    local total_rss=0
+    for run in $(seq $RUNS); do
+      read -r seconds rss <<< "$(measure $service-service:$variant)"
+      total_seconds=$(echo "$total_seconds + $seconds" | bc)
+      total_rss=$((total_rss + rss))
+    done
+    printf "%-20s %-10s %8.2f s %8d MiB\n" "$service-service" "$variant" \
+      "$(echo "scale=2; $total_seconds / $RUNS" | bc)" "$((total_rss / RUNS))"
+  done
+}
+
+while getopts "r:s:v:" opt; do
+  case $opt in
+    r)
+      RUNS=$OPTARG
+      ;;
+    s)
+      SERVICES=$OPTARG
+      ;;
+    v)
+      VARIANTS=$OPTARG
+      ;;
+    ?)
+      usage
+      exit
+      ;;
+  esac
+done
+
+printf "%-20s %-10s %10s %12s\n" "service" "image" "startup" "rss"
+for service in $SERVICES; do
+  benchmark $service
+done
@@ -123,7 +123,7 @@ gcloud compute --project=$PROJECT_ID network-endpoint-groups update $NEG \
 HTTP_HEALTH_CHECK=$RESOURCE_TAG-health-check-http
 gcloud beta compute --project=$PROJECT_ID health-checks create http $HTTP_HEALTH_CHECK \
     --use-serving-port \
-    --request-path=/actuator/health \
+    --request-path=/health \
     --proxy-header=NONE \
     --check-interval=10 \
     --timeout=10 \